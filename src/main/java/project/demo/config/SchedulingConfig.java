@@ -0,0 +1,19 @@
+package project.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Job nền (@Scheduled), chạy trên pool spring.task.scheduling.pool.size (mặc định Spring chỉ 1 thread dùng chung):
+ * <ul>
+ *   <li>NotificationDispatcher: drain outbox mỗi poll-ms, purge outbox đã dispatch mỗi giờ</li>
+ *   <li>UnreadNotificationCounter: reconcile unread_notifications hằng giờ</li>
+ *   <li>NotificationRetentionJob, TaskLogArchiver: chạy lâu (tới vài phút) nên chỉ nhận lịch rồi chuyển sang
+ *   executor riêng, không giữ thread scheduler</li>
+ * </ul>
+ * Pool size phải đủ để drain outbox không phải chờ job khác; thêm job chạy định kỳ thì tính lại.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
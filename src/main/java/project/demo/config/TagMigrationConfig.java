@@ -0,0 +1,43 @@
+package project.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Chuyển tags dạng chuỗi tự do (task_tags.tag) sang dictionary tags + task_tag_links.
+ * Chạy 1 lần: bảng cũ được đổi tên thành task_tags_legacy sau khi copy xong.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class TagMigrationConfig {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Bean
+    public ApplicationRunner migrateLegacyTags() {
+        return args -> {
+            Integer legacy = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM information_schema.columns
+                    WHERE table_schema = DATABASE() AND table_name = 'task_tags' AND column_name = 'tag'
+                    """, Integer.class);
+            if (legacy == null || legacy == 0) return;
+
+            int tags = jdbcTemplate.update("""
+                    INSERT IGNORE INTO tags(name)
+                    SELECT DISTINCT LOWER(TRIM(tag)) FROM task_tags
+                    WHERE tag IS NOT NULL AND TRIM(tag) <> ''
+                    """);
+            int links = jdbcTemplate.update("""
+                    INSERT IGNORE INTO task_tag_links(task_id, tag_id)
+                    SELECT tt.task_id, g.id FROM task_tags tt
+                    JOIN tags g ON g.name = LOWER(TRIM(tt.tag))
+                    """);
+            jdbcTemplate.execute("RENAME TABLE task_tags TO task_tags_legacy");
+
+            System.out.println("[MIGRATION] task_tags -> tags: " + tags + " tags, " + links + " links");
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package project.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import project.demo.service.UnreadNotificationCounter;
+
+/**
+ * Backfill users.unread_notifications khi khởi động: cột mới thêm với DEFAULT 0, nếu chỉ chờ job reconcile hằng giờ
+ * thì user đang có notification chưa đọc thấy badge 0 tới lần chạy kế tiếp.
+ * Chạy lại mỗi lần khởi động là an toàn: reconcile chỉ UPDATE dòng bị lệch, theo lô user id.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class UnreadCounterBackfillConfig {
+
+    private final UnreadNotificationCounter unreadCounter;
+
+    @Value("${app.notification.unread.backfill-on-startup:true}")
+    private boolean enabled;
+
+    @Bean
+    public ApplicationRunner backfillUnreadNotifications() {
+        return args -> {
+            if (!enabled) return;
+            int fixed = unreadCounter.reconcile();
+            if (fixed > 0) System.out.println("[MIGRATION] users.unread_notifications backfilled for " + fixed + " user(s)");
+        };
+    }
+}
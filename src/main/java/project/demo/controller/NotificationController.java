@@ -1,12 +1,17 @@
 package project.demo.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import project.demo.dto.NotificationDtos;
+import project.demo.dto.TaskDtos;
 import project.demo.enums.NotificationType;
 import project.demo.security.CustomUserDetails;
+import project.demo.service.NotificationHub;
 import project.demo.service.NotificationService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
@@ -18,6 +23,7 @@ import java.time.Instant;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationHub notificationHub;
 
     @GetMapping
     public Page<NotificationDtos.NotificationResponse> myNotifications(
@@ -33,13 +39,56 @@ public class NotificationController {
         return notificationService.listMyNotifications(me.getId(), unreadOnly, type, from, to, pageable);
     }
 
+    // Feed keyset mới -> cũ: không COUNT / OFFSET, nextCursor lấy trang kế; unreadFirst: chưa đọc trước rồi tới đã đọc
+    @GetMapping("/feed")
+    public TaskDtos.CursorPage<NotificationDtos.NotificationResponse> feed(
+            @AuthenticationPrincipal CustomUserDetails me,
+            @RequestParam(defaultValue = "false") boolean unreadFirst,
+            @RequestParam(defaultValue = "false") boolean unreadOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return notificationService.feed(me.getId(), unreadFirst, unreadOnly, cursor, size);
+    }
+
+    @GetMapping("/unread-count")
+    public NotificationDtos.UnreadCountResponse unreadCount(@AuthenticationPrincipal CustomUserDetails me) {
+        return new NotificationDtos.UnreadCountResponse(notificationService.unreadCount(me.getId()));
+    }
+
+    // SSE: event "notification" (id = notification id), reconnect gửi Last-Event-ID để nhận bù phần bị lỡ
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @AuthenticationPrincipal CustomUserDetails me,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        Long after = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                after = Long.valueOf(lastEventId.trim());
+            } catch (NumberFormatException ignored) {
+                // id lạ -> chỉ nhận event mới
+            }
+        }
+        return notificationHub.subscribe(me.getId(), after);
+    }
+
     @PatchMapping("/{id}/read")
     public void markRead(@AuthenticationPrincipal CustomUserDetails me, @PathVariable Long id) {
         notificationService.markRead(me.getId(), id);
     }
 
     @PatchMapping("/read-all")
-    public void markAllRead(@AuthenticationPrincipal CustomUserDetails me) {
-        notificationService.markAllRead(me.getId());
+    public NotificationDtos.MarkReadResponse markAllRead(@AuthenticationPrincipal CustomUserDetails me) {
+        return new NotificationDtos.MarkReadResponse(notificationService.markAllRead(me.getId()));
+    }
+
+    // theo ids / type / taskId / khoảng createdAt, mỗi loại là 1 UPDATE
+    @PatchMapping("/read")
+    public NotificationDtos.MarkReadResponse markRead(
+            @AuthenticationPrincipal CustomUserDetails me,
+            @RequestBody @Valid NotificationDtos.MarkReadRequest req
+    ) {
+        return new NotificationDtos.MarkReadResponse(notificationService.markReadMatching(me.getId(), req));
     }
 }
@@ -0,0 +1,28 @@
+package project.demo.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import project.demo.dto.TaskDtos;
+import project.demo.service.TagService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/tags")
+public class TagController {
+
+    private final TagService tagService;
+
+    // autocomplete từ dictionary, sắp theo tên
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping
+    public ResponseEntity<List<TaskDtos.TagResponse>> autocomplete(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(tagService.autocomplete(prefix, limit));
+    }
+}
@@ -0,0 +1,67 @@
+package project.demo.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import project.demo.dto.TaskDtos;
+import project.demo.security.CustomUserDetails;
+import project.demo.service.TaskBulkService;
+
+// ADMIN only: body có "ids" hoặc "filter" (cùng field với GET /tasks), không nhận cả hai
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/tasks/bulk")
+@PreAuthorize("hasRole('ADMIN')")
+public class TaskBulkController {
+
+    private final TaskBulkService taskBulkService;
+
+    private Long uid(CustomUserDetails principal) {
+        if (principal == null) throw new RuntimeException("UNAUTHORIZED");
+        return principal.getId();
+    }
+
+    @PostMapping("/assign")
+    public ResponseEntity<TaskDtos.BulkResult> assign(
+            @RequestBody TaskDtos.BulkTaskRequest req,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskBulkService.assign(uid(principal), req));
+    }
+
+    @PostMapping("/status")
+    public ResponseEntity<TaskDtos.BulkResult> status(
+            @RequestBody TaskDtos.BulkTaskRequest req,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskBulkService.status(uid(principal), req));
+    }
+
+    @PostMapping("/priority")
+    public ResponseEntity<TaskDtos.BulkResult> priority(
+            @RequestBody TaskDtos.BulkTaskRequest req,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskBulkService.priority(uid(principal), req));
+    }
+
+    // addTags / removeTags, giữ nguyên các tag khác của task
+    @PostMapping("/tags")
+    public ResponseEntity<TaskDtos.BulkResult> tags(
+            @RequestBody TaskDtos.BulkTaskRequest req,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskBulkService.tags(uid(principal), req));
+    }
+
+    // soft delete (active = false)
+    @PostMapping("/delete")
+    public ResponseEntity<TaskDtos.BulkResult> delete(
+            @RequestBody TaskDtos.BulkTaskRequest req,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskBulkService.softDelete(uid(principal), req));
+    }
+}
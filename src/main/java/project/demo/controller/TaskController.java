@@ -2,19 +2,21 @@ package project.demo.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
-import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import project.demo.dto.TaskDtos;
-import project.demo.enums.TaskPriority;
-import project.demo.enums.TaskStatus;
 import project.demo.security.CustomUserDetails;
 import project.demo.service.TaskService;
+import project.demo.util.VersionTag;
 
-import java.time.LocalDate;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
@@ -28,6 +30,12 @@ public class TaskController {
         return principal.getId();
     }
 
+    // If-Match lệch version, hoặc bị request khác commit chen giữa (@Version khi flush) -> 412
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> versionConflict() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", "VERSION_CONFLICT"));
+    }
+
     // ADMIN only
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
@@ -39,38 +47,92 @@ public class TaskController {
     }
 
     // ADMIN: xem tất cả | CUSTOMER: chỉ thấy task assigned cho mình (service sẽ ép assigneeId)
+    // Filter tag: tag / tagsAll (AND), tagsAny (OR), tagsNone (NOT), ví dụ ?tagsAll=backend,urgent&tagsNone=blocked
     @PreAuthorize("isAuthenticated()")
     @GetMapping
     public ResponseEntity<Page<TaskDtos.TaskSummaryResponse>> list(
-            @RequestParam(required = false) String q,
-            @RequestParam(required = false) TaskStatus status,
-            @RequestParam(required = false) TaskPriority priority,
-            @RequestParam(required = false) Long assigneeId,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueFrom,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueTo,
-            @RequestParam(required = false) String tag,
+            TaskDtos.TaskFilter filter,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "updatedAt,desc") String sort,
-            @AuthenticationPrincipal CustomUserDetails principal
+            @AuthenticationPrincipal CustomUserDetails principal,
+            WebRequest request
     ) {
+        // If-None-Match khớp fingerprint của filter -> 304, không chạy query trang / map DTO
+        String etag = taskService.listETag(uid(principal), filter);
+        if (request.checkNotModified(etag)) return null;
+
         String[] s = sort.split(",");
         Sort sortObj = Sort.by(Sort.Direction.fromString(s.length > 1 ? s[1] : "desc"), s[0]);
         Pageable pageable = PageRequest.of(page, size, sortObj);
 
-        return ResponseEntity.ok(
-                taskService.listTasks(uid(principal), q, status, priority, assigneeId, dueFrom, dueTo, tag, pageable)
-        );
+        return ResponseEntity.ok().eTag(etag).body(taskService.listTasks(uid(principal), filter, pageable));
+    }
+
+    // Cursor mode của list: cùng filter, không COUNT/OFFSET, trả nextCursor để lấy trang kế
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/scroll")
+    public ResponseEntity<TaskDtos.CursorPage<TaskDtos.TaskSummaryResponse>> scroll(
+            TaskDtos.TaskFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "updatedAt,desc") String sort,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        String[] s = sort.split(",");
+        Sort.Order order = new Sort.Order(Sort.Direction.fromString(s.length > 1 ? s[1] : "desc"), s[0]);
+
+        return ResponseEntity.ok(taskService.scrollTasks(uid(principal), filter, cursor, size, order));
+    }
+
+    // Counter cho board (status / priority / assignee / top tags) trong 1 request, cùng filter với list
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/facets")
+    public ResponseEntity<TaskDtos.TaskFacetsResponse> facets(
+            TaskDtos.TaskFilter filter,
+            @RequestParam(defaultValue = "10") int topTags,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskService.facets(uid(principal), filter, topTags));
     }
 
     // ADMIN: xem mọi task | CUSTOMER: chỉ xem task assigned cho mình
+    // ETag mạnh: If-None-Match khớp -> 304 trước khi load subtasks / comments / logs
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/{taskId}")
     public ResponseEntity<TaskDtos.TaskDetailResponse> detail(
             @PathVariable Long taskId,
+            @AuthenticationPrincipal CustomUserDetails principal,
+            WebRequest request
+    ) {
+        String etag = taskService.detailETag(uid(principal), taskId);
+        if (request.checkNotModified(etag)) return null;
+
+        return ResponseEntity.ok().eTag(etag).body(taskService.getTaskDetail(uid(principal), taskId));
+    }
+
+    // Trang tiếp của comments (cũ -> mới), cursor lấy từ detail.comments.nextCursor
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{taskId}/comments")
+    public ResponseEntity<TaskDtos.CursorPage<TaskDtos.CommentResponse>> comments(
+            @PathVariable Long taskId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal CustomUserDetails principal
     ) {
-        return ResponseEntity.ok(taskService.getTaskDetail(uid(principal), taskId));
+        return ResponseEntity.ok(taskService.listComments(uid(principal), taskId, cursor, size));
+    }
+
+    // Trang tiếp của audit log (mới -> cũ), cursor lấy từ detail.logs.nextCursor
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{taskId}/logs")
+    public ResponseEntity<TaskDtos.CursorPage<TaskDtos.LogResponse>> logs(
+            @PathVariable Long taskId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskService.listLogs(uid(principal), taskId, cursor, size));
     }
 
     // ADMIN only
@@ -79,9 +141,37 @@ public class TaskController {
     public ResponseEntity<TaskDtos.TaskSummaryResponse> patch(
             @PathVariable Long taskId,
             @RequestBody TaskDtos.PatchTaskRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        var res = taskService.patchTask(uid(principal), taskId, req, VersionTag.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTag.of(res.version())).body(res);
+    }
+
+    // ADMIN only: thêm 1 tag, đã có thì không ghi gì
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{taskId}/tags/{tag}")
+    public ResponseEntity<TaskDtos.TaskSummaryResponse> addTag(
+            @PathVariable Long taskId,
+            @PathVariable String tag,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        var res = taskService.addTag(uid(principal), taskId, tag, VersionTag.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTag.of(res.version())).body(res);
+    }
+
+    // ADMIN only: bỏ 1 tag, không có thì không ghi gì
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{taskId}/tags/{tag}")
+    public ResponseEntity<TaskDtos.TaskSummaryResponse> removeTag(
+            @PathVariable Long taskId,
+            @PathVariable String tag,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal CustomUserDetails principal
     ) {
-        return ResponseEntity.ok(taskService.patchTask(uid(principal), taskId, req));
+        var res = taskService.removeTag(uid(principal), taskId, tag, VersionTag.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTag.of(res.version())).body(res);
     }
 
     // ADMIN only
@@ -90,9 +180,11 @@ public class TaskController {
     public ResponseEntity<TaskDtos.TaskSummaryResponse> assign(
             @PathVariable Long taskId,
             @RequestBody @Valid TaskDtos.AssignRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal CustomUserDetails principal
     ) {
-        return ResponseEntity.ok(taskService.assignTask(uid(principal), taskId, req.assigneeId()));
+        var res = taskService.assignTask(uid(principal), taskId, req.assigneeId(), VersionTag.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTag.of(res.version())).body(res);
     }
 
     // CUSTOMER được update status cho task của mình | ADMIN được update status mọi task
@@ -101,9 +193,11 @@ public class TaskController {
     public ResponseEntity<TaskDtos.TaskSummaryResponse> status(
             @PathVariable Long taskId,
             @RequestBody @Valid TaskDtos.UpdateStatusRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal CustomUserDetails principal
     ) {
-        return ResponseEntity.ok(taskService.updateStatus(uid(principal), taskId, req.status()));
+        var res = taskService.updateStatus(uid(principal), taskId, req.status(), VersionTag.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTag.of(res.version())).body(res);
     }
 
     // ADMIN only
@@ -135,9 +229,11 @@ public class TaskController {
             @PathVariable Long taskId,
             @PathVariable Long subTaskId,
             @RequestBody TaskDtos.PatchSubTaskRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal CustomUserDetails principal
     ) {
-        return ResponseEntity.ok(taskService.patchSubTask(uid(principal), taskId, subTaskId, req));
+        var res = taskService.patchSubTask(uid(principal), taskId, subTaskId, req, VersionTag.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTag.of(res.version())).body(res);
     }
 
     // (tuỳ bạn) Nếu muốn CUSTOMER không được delete subtask thì đổi thành hasRole('ADMIN')
@@ -0,0 +1,44 @@
+package project.demo.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import project.demo.dto.TaskDtos;
+import project.demo.security.CustomUserDetails;
+import project.demo.service.TaskImportService;
+
+// ADMIN only: upload CSV / XLSX -> 202 + job id, poll GET /{jobId} để xem tiến độ và lỗi từng dòng
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/tasks/import")
+@PreAuthorize("hasRole('ADMIN')")
+public class TaskImportController {
+
+    private final TaskImportService taskImportService;
+
+    private Long uid(CustomUserDetails principal) {
+        if (principal == null) throw new RuntimeException("UNAUTHORIZED");
+        return principal.getId();
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<TaskDtos.ImportJobResponse> upload(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(taskImportService.submit(uid(principal), file));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<TaskDtos.ImportJobResponse> job(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return ResponseEntity.ok(taskImportService.getJob(uid(principal), jobId));
+    }
+}
@@ -1,9 +1,11 @@
 package project.demo.dto;
 
+import jakarta.validation.constraints.Size;
 import project.demo.entity.Notification;
 import project.demo.enums.NotificationType;
 
 import java.time.Instant;
+import java.util.List;
 
 public class NotificationDtos {
 
@@ -13,9 +15,27 @@ public class NotificationDtos {
             String message,
             Long taskId,
             Instant createdAt,
-            Instant readAt
+            Instant readAt,
+            // số lần xảy ra đã gộp vào notification này (message là của lần mới nhất)
+            int occurrences
     ) {}
 
+    public record UnreadCountResponse(int unread) {}
+
+    // đúng 1 tiêu chí: ids, type, taskId hoặc khoảng thời gian [from, to) (thiếu 1 đầu = không giới hạn đầu đó)
+    public record MarkReadRequest(
+            @Size(max = 1000) List<Long> ids,
+            NotificationType type,
+            Long taskId,
+            Instant from,
+            Instant to
+    ) {}
+
+    public record MarkReadResponse(int updated) {}
+
+    // notification cần tạo, dùng cho ghi theo lô (bulk)
+    public record NewNotification(Long recipientId, Long actorId, NotificationType type, String message, Long taskId) {}
+
     public static NotificationResponse fromEntity(Notification n) {
         return new NotificationResponse(
                 n.getId(),
@@ -23,7 +43,8 @@ public class NotificationDtos {
                 n.getMessage(),
                 n.getTaskId(),
                 n.getCreatedAt(),
-                n.getReadAt()
+                n.getReadAt(),
+                n.getOccurrences()
         );
     }
 }
@@ -1,12 +1,14 @@
 package project.demo.dto;
 
 import jakarta.validation.constraints.*;
+import org.springframework.format.annotation.DateTimeFormat;
 import project.demo.enums.TaskPriority;
 import project.demo.enums.TaskStatus;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class TaskDtos {
@@ -41,6 +43,33 @@ public class TaskDtos {
 
     public record CreateCommentRequest(@NotBlank String content) {}
 
+    // Filter chung cho list / scroll / facets, bind trực tiếp từ query params
+    // multi-value dạng status=TODO,IN_PROGRESS&priority=HIGH,URGENT&tagsAll=a,b
+    public record TaskFilter(
+            String q,
+            Set<TaskStatus> status,
+            Set<TaskPriority> priority,
+            Set<Long> assigneeId,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueFrom,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueTo,
+            String tag,
+            Set<String> tagsAll,
+            Set<String> tagsAny,
+            Set<String> tagsNone
+    ) {
+        public TaskFilter withStatus(Set<TaskStatus> s) {
+            return new TaskFilter(q, s, priority, assigneeId, dueFrom, dueTo, tag, tagsAll, tagsAny, tagsNone);
+        }
+
+        public TaskFilter withPriority(Set<TaskPriority> p) {
+            return new TaskFilter(q, status, p, assigneeId, dueFrom, dueTo, tag, tagsAll, tagsAny, tagsNone);
+        }
+
+        public TaskFilter withAssigneeId(Set<Long> a) {
+            return new TaskFilter(q, status, priority, a, dueFrom, dueTo, tag, tagsAll, tagsAny, tagsNone);
+        }
+    }
+
     // -------- Responses --------
 
     public record UserBrief(Long id, String email, String fullName) {}
@@ -55,10 +84,60 @@ public class TaskDtos {
             UserBrief assignee,
             boolean active,
             Instant createdAt,
-            Instant updatedAt
+            Instant updatedAt,
+            long version
     ) {}
 
-    public record SubTaskResponse(Long id, String title, boolean done, boolean active, Instant createdAt) {}
+    public record TagResponse(Integer id, String name) {}
+
+    // assignee = null: nhóm task chưa assign
+    public record AssigneeCount(UserBrief assignee, long count) {}
+
+    public record TagCount(String tag, long count) {}
+
+    public record TaskFacetsResponse(
+            long total,
+            Map<TaskStatus, Long> status,
+            Map<TaskPriority, Long> priority,
+            List<AssigneeCount> assignees,
+            List<TagCount> tags
+    ) {}
+
+    // Bulk: chọn task bằng ids HOẶC filter (cùng tham số với list); field còn lại tuỳ thao tác
+    public record BulkTaskRequest(
+            List<Long> ids,
+            TaskFilter filter,
+            Long assigneeId,
+            TaskStatus status,
+            TaskPriority priority,
+            Set<String> addTags,
+            Set<String> removeTags
+    ) {}
+
+    // outcome: UPDATED | UNCHANGED | NOT_FOUND
+    public record BulkItemResult(Long id, String outcome) {}
+
+    public record BulkResult(int matched, int updated, int unchanged, int notFound, List<BulkItemResult> items) {}
+
+    // import CSV / XLSX: row = số dòng trong file (header = dòng 1)
+    public record ImportRowError(long row, String message) {}
+
+    // status: QUEUED | RUNNING | DONE | FAILED; errors giữ tối đa app.import.max-errors dòng đầu
+    public record ImportJobResponse(
+            String id,
+            String fileName,
+            String status,
+            long rowsRead,
+            long inserted,
+            long failed,
+            List<ImportRowError> errors,
+            boolean errorsTruncated,
+            String message,
+            Instant startedAt,
+            Instant finishedAt
+    ) {}
+
+    public record SubTaskResponse(Long id, String title, boolean done, boolean active, Instant createdAt, long version) {}
 
     public record CommentResponse(Long id, String content, UserBrief author, Instant createdAt) {}
 
@@ -67,9 +146,12 @@ public class TaskDtos {
     public record TaskDetailResponse(
             TaskSummaryResponse task,
             List<SubTaskResponse> subtasks,
-            List<CommentResponse> comments,
-            List<LogResponse> logs
+            CursorPage<CommentResponse> comments,
+            CursorPage<LogResponse> logs
     ) {}
 
+    // keyset pagination: không có total/page number, chỉ có token để lấy trang kế
+    public record CursorPage<T>(List<T> items, String nextCursor, boolean hasNext) {}
+
     public record NotificationResponse(Long id, String type, String content, Long taskId, boolean read, Instant createdAt) {}
 }
@@ -0,0 +1,34 @@
+package project.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Lease theo tên cho job định kỳ chạy trên nhiều instance (JobLeases): instance nào cập nhật được dòng thì giữ job
+ * tới lockedUntil (giờ UTC theo đồng hồ DB).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = PRIVATE)
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    @Id
+    @Column(length = 64)
+    String name;
+
+    @Column(length = 128)
+    String owner;
+
+    @Column(name = "locked_until", nullable = false)
+    Instant lockedUntil;
+}
@@ -12,7 +12,11 @@ import java.time.Instant;
 @Entity
 @Table(name = "notifications", indexes = {
         @Index(name = "idx_notif_recipient", columnList = "recipient_id"),
-        @Index(name = "idx_notif_created", columnList = "created_at")
+        @Index(name = "idx_notif_created", columnList = "created_at"),
+        // feed keyset: lọc + sắp xếp hoàn toàn trên index, không filesort
+        @Index(name = "idx_notif_feed", columnList = "recipient_id, active, created_at, id"),
+        // phần chưa đọc của feed unread-first (read_at IS NULL là điều kiện bằng trên index)
+        @Index(name = "idx_notif_unread", columnList = "recipient_id, active, read_at, created_at, id")
 })
 public class Notification {
 
@@ -37,6 +41,11 @@ public class Notification {
 
     private Long taskId;
 
+    // NotificationCoalescer cộng dồn khi cùng (recipient, task, type) lặp lại trong cửa sổ gộp
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "INT NOT NULL DEFAULT 1")
+    private int occurrences = 1;
+
     private Instant readAt;
 
     @Column(nullable = false, updatable = false)
@@ -45,6 +54,10 @@ public class Notification {
     @Column(nullable = false)
     private boolean active;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
+
     @PrePersist
     void prePersist() {
         if (createdAt == null) createdAt = Instant.now();
@@ -0,0 +1,65 @@
+package project.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import project.demo.enums.NotificationType;
+
+import java.time.Instant;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Notification chờ tạo, ghi cùng transaction với thay đổi task (transactional outbox).
+ * Không có FK để INSERT nhẹ; NotificationDispatcher đọc theo id tăng dần, tạo Notification rồi set dispatchedAt.
+ * Record fail quá số lần cho phép được park (parkedAt) để phần còn lại tiếp tục drain; set parkedAt = null để chạy lại.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = PRIVATE)
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        // dispatched_at IS NULL ORDER BY id: chỉ quét phần đang chờ
+        @Index(name = "idx_outbox_pending", columnList = "dispatched_at, id")
+})
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    Long recipientId;
+
+    @Column(name = "actor_id")
+    Long actorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    NotificationType type;
+
+    @Column(nullable = false, length = 500)
+    String message;
+
+    @Column(name = "task_id")
+    Long taskId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    Instant createdAt;
+
+    @Column(name = "dispatched_at")
+    Instant dispatchedAt;
+
+    // số lần lô chứa record này dispatch fail
+    @Column(nullable = false)
+    int attempts;
+
+    @Column(name = "last_error", length = 500)
+    String lastError;
+
+    @Column(name = "parked_at")
+    Instant parkedAt;
+}
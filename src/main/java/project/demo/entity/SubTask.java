@@ -42,6 +42,10 @@ public class SubTask {
 
     Instant deletedAt;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    long version;
+
     @Builder.Default
     @Column(nullable = false, updatable = false)
     Instant createdAt = Instant.now();
@@ -0,0 +1,40 @@
+package project.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Locale;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = PRIVATE)
+@Entity
+@Table(name = "tags", indexes = {
+        @Index(name = "idx_tags_name", columnList = "name", unique = true)
+})
+public class Tag {
+
+    public static final int MAX_LENGTH = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Integer id;
+
+    @Column(nullable = false, length = MAX_LENGTH)
+    String name;
+
+    // dictionary không phân biệt hoa thường / khoảng trắng thừa (khớp collation ci của MySQL)
+    public static String normalize(String raw) {
+        if (raw == null) return null;
+        String n = raw.trim().toLowerCase(Locale.ROOT);
+        if (n.isEmpty()) return null;
+        if (n.length() > MAX_LENGTH) throw new RuntimeException("TAG_TOO_LONG");
+        return n;
+    }
+}
@@ -23,7 +23,14 @@ import static lombok.AccessLevel.PRIVATE;
 @Table(name = "tasks", indexes = {
         @Index(name = "idx_tasks_status", columnList = "status"),
         @Index(name = "idx_tasks_dueDate", columnList = "dueDate"),
-        @Index(name = "idx_tasks_active", columnList = "active")
+        @Index(name = "idx_tasks_active", columnList = "active"),
+        // keyset scroll: WHERE active = true ORDER BY updatedAt|createdAt, id
+        @Index(name = "idx_tasks_active_updated", columnList = "active, updatedAt, id"),
+        @Index(name = "idx_tasks_active_created", columnList = "active, createdAt, id"),
+        // filter phổ biến của list / facets: status IN (...), priority IN (...), assignee IN (...)
+        @Index(name = "idx_tasks_active_status_updated", columnList = "active, status, updatedAt"),
+        @Index(name = "idx_tasks_active_priority_status", columnList = "active, priority, status"),
+        @Index(name = "idx_tasks_assignee_active_status", columnList = "assignee_id, active, status")
 })
 public class Task {
 
@@ -47,12 +54,16 @@ public class Task {
 
     LocalDate dueDate;
 
-    // tags (simple)
-    @ElementCollection
-    @CollectionTable(name = "task_tags", joinColumns = @JoinColumn(name = "task_id"))
-    @Column(name = "tag", length = 50)
+    // tags: dictionary (tags) + posting list (task_tag_links), index (tag_id, task_id) cho filter AND/OR/NOT
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "task_tag_links",
+            joinColumns = @JoinColumn(name = "task_id"),
+            inverseJoinColumns = @JoinColumn(name = "tag_id"),
+            indexes = @Index(name = "idx_task_tag_links_tag", columnList = "tag_id, task_id")
+    )
     @Builder.Default
-    Set<String> tags = new HashSet<>();
+    Set<Tag> tags = new HashSet<>();
 
     // createdBy / assignee
     @ManyToOne(fetch = FetchType.LAZY)
@@ -70,6 +81,11 @@ public class Task {
 
     Instant deletedAt;
 
+    // optimistic lock: UPDATE ... WHERE version = ?, lệch thì 412 thay vì ghi đè âm thầm
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    long version;
+
     @Builder.Default
     @Column(nullable = false, updatable = false)
     Instant createdAt = Instant.now();
@@ -16,7 +16,7 @@ import static lombok.AccessLevel.PRIVATE;
 @FieldDefaults(level = PRIVATE)
 @Entity
 @Table(name = "task_comments", indexes = {
-        @Index(name = "idx_comments_task", columnList = "task_id")
+        @Index(name = "idx_comments_task_created", columnList = "task_id, createdAt, id")
 })
 public class TaskComment {
 
@@ -17,7 +17,11 @@ import static lombok.AccessLevel.PRIVATE;
 @FieldDefaults(level = PRIVATE)
 @Entity
 @Table(name = "task_logs", indexes = {
-        @Index(name = "idx_logs_task", columnList = "task_id")
+        @Index(name = "idx_logs_task_created", columnList = "task_id, createdAt, id"),
+        // lịch sử 1 field (description) của task: tìm điểm đồng bộ lại cho delta
+        @Index(name = "idx_logs_task_field", columnList = "task_id, fieldName, createdAt, id"),
+        // archive theo tháng: MIN(createdAt) + quét 1 tháng
+        @Index(name = "idx_logs_created", columnList = "createdAt")
 })
 public class TaskLog {
 
@@ -0,0 +1,56 @@
+package project.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Manifest của các segment file chứa task_logs đã archive (1 tháng / file, có thể thêm file cho dòng đến muộn).
+ * WRITTEN = file đã ghi + verify, đang xoá khỏi bảng nóng; ARCHIVED = đã xoá xong.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = PRIVATE)
+@Entity
+@Table(name = "task_log_segments", indexes = {
+        @Index(name = "idx_log_segments_month", columnList = "month")
+})
+public class TaskLogSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    // yyyy-MM (UTC)
+    @Column(nullable = false, length = 7)
+    String month;
+
+    @Column(nullable = false, unique = true, length = 255)
+    String fileName;
+
+    @Column(nullable = false, length = 20)
+    String status;
+
+    long rowCount;
+
+    long minLogId;
+
+    long maxLogId;
+
+    @Column(nullable = false)
+    Instant minCreatedAt;
+
+    @Column(nullable = false)
+    Instant maxCreatedAt;
+
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    Instant createdAt = Instant.now();
+}
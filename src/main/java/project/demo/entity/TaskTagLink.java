@@ -0,0 +1,36 @@
+package project.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+/**
+ * View read-only lên join table task_tag_links (ghi qua Task.tags).
+ * Dùng làm posting list trong subquery lọc tag: quét index (tag_id, task_id), không join tasks / tags.
+ */
+@Getter
+@NoArgsConstructor
+@Immutable
+@Entity
+@Table(name = "task_tag_links")
+public class TaskTagLink {
+
+    @EmbeddedId
+    private Key id;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "task_id")
+        private Long taskId;
+
+        @Column(name = "tag_id")
+        private Integer tagId;
+    }
+}
@@ -42,6 +42,11 @@ public class User {
     @Column(nullable = false)
     private boolean emailVerified = false;
 
+    // số notification chưa đọc (denormalized): chỉ đổi bằng UPDATE +/- trong NotificationServiceImpl và job reconcile,
+    // Hibernate không ghi cột này nên save User với giá trị cũ không đè mất
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int unreadNotifications;
+
     @Builder.Default
     @Column(nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
@@ -0,0 +1,17 @@
+package project.demo.event;
+
+import project.demo.dto.NotificationDtos;
+
+/**
+ * Phát từ NotificationService cho mỗi Notification vừa INSERT (đã có id).
+ * Listener nhận sau khi transaction commit, vd. NotificationHub đẩy xuống SSE stream của recipient.
+ *
+ * <p>merged = true: lần xảy ra mới được NotificationCoalescer gộp vào notification chưa đọc đã có (cùng id,
+ * occurrences / message mới) — không phải notification mới, badge không đổi.
+ */
+public record NotificationCreatedEvent(Long recipientId, NotificationDtos.NotificationResponse notification, boolean merged) {
+
+    public NotificationCreatedEvent(Long recipientId, NotificationDtos.NotificationResponse notification) {
+        this(recipientId, notification, false);
+    }
+}
@@ -0,0 +1,8 @@
+package project.demo.event;
+
+/**
+ * Phát khi count notification chưa đọc của recipient rời khỏi badge: chuyển sang đã đọc (NotificationService)
+ * hoặc bị xoá vì hết hạn (NotificationRetentionJob).
+ * Listener nhận sau khi transaction commit (badge counter trong process trừ theo count).
+ */
+public record NotificationsReadEvent(Long recipientId, int count) {}
@@ -0,0 +1,8 @@
+package project.demo.event;
+
+/**
+ * Phát từ TaskService khi task được tạo / sửa / assign / đổi status / xoá mềm.
+ * Listener nhận sau khi transaction commit (snapshot các field cần thiết, không giữ entity).
+ * contentChanged = title/description có thể đã đổi (search index chỉ cần re-index khi true).
+ */
+public record TaskChangedEvent(Long taskId, String title, String description, boolean active, boolean contentChanged) {}
@@ -1,10 +1,101 @@
 package project.demo.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import project.demo.entity.Notification;
+import project.demo.enums.NotificationType;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long>, JpaSpecificationExecutor<Notification> {
-    List<Notification> findAllByRecipientIdAndActiveTrueAndReadAtIsNull(Long recipientId);
+
+    // SSE resume từ Last-Event-ID: range scan (recipient_id, id) trên idx_notif_recipient
+    List<Notification> findByRecipientIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(Long recipientId, Long id, Limit limit);
+
+    // ---------- feed keyset (createdAt, id) giảm dần: trang đầu + trang sau cursor, mỗi trang đọc đúng limit dòng ----------
+
+    // idx_notif_feed
+    List<Notification> findByRecipientIdAndActiveTrueOrderByCreatedAtDescIdDesc(Long recipientId, Limit limit);
+
+    @Query("""
+            select n from Notification n
+            where n.recipient.id = :recipientId and n.active = true
+              and (n.createdAt < :createdAt or (n.createdAt = :createdAt and n.id < :id))
+            order by n.createdAt desc, n.id desc
+            """)
+    List<Notification> findFeedBefore(@Param("recipientId") Long recipientId,
+                                      @Param("createdAt") Instant createdAt,
+                                      @Param("id") Long id,
+                                      Limit limit);
+
+    // idx_notif_unread
+    List<Notification> findByRecipientIdAndActiveTrueAndReadAtIsNullOrderByCreatedAtDescIdDesc(Long recipientId, Limit limit);
+
+    @Query("""
+            select n from Notification n
+            where n.recipient.id = :recipientId and n.active = true and n.readAt is null
+              and (n.createdAt < :createdAt or (n.createdAt = :createdAt and n.id < :id))
+            order by n.createdAt desc, n.id desc
+            """)
+    List<Notification> findUnreadFeedBefore(@Param("recipientId") Long recipientId,
+                                            @Param("createdAt") Instant createdAt,
+                                            @Param("id") Long id,
+                                            Limit limit);
+
+    // idx_notif_feed, bỏ qua dòng chưa đọc (số này nhỏ: badge)
+    List<Notification> findByRecipientIdAndActiveTrueAndReadAtIsNotNullOrderByCreatedAtDescIdDesc(Long recipientId, Limit limit);
+
+    @Query("""
+            select n from Notification n
+            where n.recipient.id = :recipientId and n.active = true and n.readAt is not null
+              and (n.createdAt < :createdAt or (n.createdAt = :createdAt and n.id < :id))
+            order by n.createdAt desc, n.id desc
+            """)
+    List<Notification> findReadFeedBefore(@Param("recipientId") Long recipientId,
+                                          @Param("createdAt") Instant createdAt,
+                                          @Param("id") Long id,
+                                          Limit limit);
+
+    // ---------- mark read: 1 UPDATE / lần, không load entity; trả về số dòng thực sự chuyển sang đã đọc ----------
+    // UPDATE JPQL không qua @Version nên tự tăng version
+
+    @Modifying
+    @Query("""
+            update Notification n set n.readAt = :now, n.version = n.version + 1
+            where n.recipient.id = :recipientId and n.active = true and n.readAt is null
+            """)
+    int markAllRead(@Param("recipientId") Long recipientId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update Notification n set n.readAt = :now, n.version = n.version + 1
+            where n.recipient.id = :recipientId and n.active = true and n.readAt is null and n.id in :ids
+            """)
+    int markReadByIds(@Param("recipientId") Long recipientId, @Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update Notification n set n.readAt = :now, n.version = n.version + 1
+            where n.recipient.id = :recipientId and n.active = true and n.readAt is null and n.type = :type
+            """)
+    int markReadByType(@Param("recipientId") Long recipientId, @Param("type") NotificationType type, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update Notification n set n.readAt = :now, n.version = n.version + 1
+            where n.recipient.id = :recipientId and n.active = true and n.readAt is null and n.taskId = :taskId
+            """)
+    int markReadByTask(@Param("recipientId") Long recipientId, @Param("taskId") Long taskId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update Notification n set n.readAt = :now, n.version = n.version + 1
+            where n.recipient.id = :recipientId and n.active = true and n.readAt is null
+              and n.createdAt >= :from and n.createdAt < :to
+            """)
+    int markReadCreatedBetween(@Param("recipientId") Long recipientId, @Param("from") Instant from,
+                               @Param("to") Instant to, @Param("now") Instant now);
 }
@@ -0,0 +1,22 @@
+package project.demo.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import project.demo.entity.Tag;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TagRepository extends JpaRepository<Tag, Integer> {
+
+    List<Tag> findAllByNameIn(Collection<String> names);
+
+    // autocomplete: range scan trên idx_tags_name
+    List<Tag> findAllByNameStartingWithOrderByNameAsc(String prefix, Pageable pageable);
+
+    // 2 request tạo cùng tag mới không làm rollback transaction vì duplicate key
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO tags(name) VALUES (:name)", nativeQuery = true)
+    int insertIgnore(@Param("name") String name);
+}
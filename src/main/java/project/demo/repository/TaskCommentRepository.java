@@ -1,10 +1,30 @@
 package project.demo.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import project.demo.entity.TaskComment;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface TaskCommentRepository extends JpaRepository<TaskComment, Long> {
-    List<TaskComment> findAllByTaskIdOrderByCreatedAtAsc(Long taskId);
+
+    // Keyset (createdAt, id) tăng dần, đi trên index idx_comments_task_created
+    @EntityGraph(attributePaths = "author")
+    List<TaskComment> findByTaskIdOrderByCreatedAtAscIdAsc(Long taskId, Limit limit);
+
+    @EntityGraph(attributePaths = "author")
+    @Query("""
+            select c from TaskComment c
+            where c.task.id = :taskId
+              and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id))
+            order by c.createdAt asc, c.id asc
+            """)
+    List<TaskComment> findPageAfter(@Param("taskId") Long taskId,
+                                    @Param("createdAt") Instant createdAt,
+                                    @Param("id") Long id,
+                                    Limit limit);
 }
@@ -1,10 +1,86 @@
 package project.demo.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import project.demo.entity.TaskLog;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface TaskLogRepository extends JpaRepository<TaskLog, Long> {
-    List<TaskLog> findAllByTaskIdOrderByCreatedAtDesc(Long taskId);
+
+    // Keyset (createdAt, id) giảm dần (mới nhất trước), đi trên index idx_logs_task_created
+    @EntityGraph(attributePaths = "actor")
+    List<TaskLog> findByTaskIdOrderByCreatedAtDescIdDesc(Long taskId, Limit limit);
+
+    @EntityGraph(attributePaths = "actor")
+    @Query("""
+            select l from TaskLog l
+            where l.task.id = :taskId
+              and (l.createdAt < :createdAt or (l.createdAt = :createdAt and l.id < :id))
+            order by l.createdAt desc, l.id desc
+            """)
+    List<TaskLog> findPageBefore(@Param("taskId") Long taskId,
+                                 @Param("createdAt") Instant createdAt,
+                                 @Param("id") Long id,
+                                 Limit limit);
+
+    // lịch sử 1 field từ mới nhất ngược về tới (createdAt, id), không load actor
+    @Query("""
+            select l.id as id, l.fieldName as fieldName, l.oldValue as oldValue, l.newValue as newValue
+            from TaskLog l
+            where l.task.id = :taskId and l.fieldName in :fields
+              and (l.createdAt > :createdAt or (l.createdAt = :createdAt and l.id >= :id))
+            order by l.createdAt desc, l.id desc
+            """)
+    List<FieldChangeRow> findFieldHistorySince(@Param("taskId") Long taskId,
+                                               @Param("fields") Collection<String> fields,
+                                               @Param("createdAt") Instant createdAt,
+                                               @Param("id") Long id);
+
+    // như trên nhưng dừng ở (toCreatedAt, toId): điểm đồng bộ lại gần nhất, không đọc phần lịch sử mới hơn nó
+    @Query("""
+            select l.id as id, l.fieldName as fieldName, l.oldValue as oldValue, l.newValue as newValue
+            from TaskLog l
+            where l.task.id = :taskId and l.fieldName in :fields
+              and (l.createdAt > :createdAt or (l.createdAt = :createdAt and l.id >= :id))
+              and (l.createdAt < :toCreatedAt or (l.createdAt = :toCreatedAt and l.id <= :toId))
+            order by l.createdAt desc, l.id desc
+            """)
+    List<FieldChangeRow> findFieldHistoryBetween(@Param("taskId") Long taskId,
+                                                 @Param("fields") Collection<String> fields,
+                                                 @Param("createdAt") Instant createdAt,
+                                                 @Param("id") Long id,
+                                                 @Param("toCreatedAt") Instant toCreatedAt,
+                                                 @Param("toId") Long toId);
+
+    // log đầu tiên của 1 field sau (createdAt, id), tăng dần
+    @Query("""
+            select l.id as id, l.createdAt as createdAt
+            from TaskLog l
+            where l.task.id = :taskId and l.fieldName = :field
+              and (l.createdAt > :createdAt or (l.createdAt = :createdAt and l.id > :id))
+            order by l.createdAt asc, l.id asc
+            """)
+    List<LogPosition> findFieldChangesAfter(@Param("taskId") Long taskId,
+                                            @Param("field") String field,
+                                            @Param("createdAt") Instant createdAt,
+                                            @Param("id") Long id,
+                                            Limit limit);
+
+    interface LogPosition {
+        Long getId();
+        Instant getCreatedAt();
+    }
+
+    interface FieldChangeRow {
+        Long getId();
+        String getFieldName();
+        String getOldValue();
+        String getNewValue();
+    }
 }
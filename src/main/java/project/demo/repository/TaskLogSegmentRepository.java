@@ -0,0 +1,13 @@
+package project.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import project.demo.entity.TaskLogSegment;
+
+import java.util.List;
+
+public interface TaskLogSegmentRepository extends JpaRepository<TaskLogSegment, Long> {
+
+    List<TaskLogSegment> findAllByOrderByMonthDescIdDesc();
+
+    List<TaskLogSegment> findByStatus(String status);
+}
@@ -1,7 +1,113 @@
 package project.demo.repository;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import project.demo.entity.Task;
+import project.demo.entity.User;
+import project.demo.enums.TaskPriority;
+import project.demo.enums.TaskStatus;
 
-public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task>, TaskRepositoryCustom {
+
+    // tags của cả trang trong 1 query IN, thay vì init @ElementCollection từng task
+    @Query("select t.id as taskId, g.name as tag from Task t join t.tags g where t.id in :ids")
+    List<TagRow> findTagRows(@Param("ids") Collection<Long> ids);
+
+    // dấu vết thay đổi của task detail (ETag): đọc thẳng từ bảng con, không chờ TaskLog (ghi async, có thể dead-letter).
+    // comment chỉ thêm (không sửa / xoá) -> max id; subtask sửa / xoá mềm đều đổi updatedAt
+    @Query("""
+            select t.active as active, t.version as version, t.updatedAt as updatedAt, a.id as assigneeId,
+                   (select max(l.id) from TaskLog l where l.task.id = t.id) as lastLogId,
+                   (select max(c.id) from TaskComment c where c.task.id = t.id) as lastCommentId,
+                   (select max(s.updatedAt) from SubTask s where s.task.id = t.id) as lastSubTaskUpdatedAt
+            from Task t left join t.assignee a
+            where t.id = :id
+            """)
+    Optional<VersionRow> findVersionRow(@Param("id") Long id);
+
+    // điểm bắt đầu replay delta của audit log description
+    @Query("select t.description from Task t where t.id = :id")
+    Optional<String> findDescriptionById(@Param("id") Long id);
+
+    // ---------- bulk: đọc before-image rồi UPDATE theo tập id (không load entity) ----------
+
+    @Query("""
+            select t.id as id, t.title as title, t.status as status, t.priority as priority, a.id as assigneeId
+            from Task t left join t.assignee a
+            where t.id in :ids and t.active = true
+            """)
+    List<BulkRow> findBulkRows(@Param("ids") Collection<Long> ids);
+
+    // UPDATE JPQL không qua @PreUpdate / @Version nên tự set updatedAt và tăng version
+    @Modifying
+    @Query("update Task t set t.assignee = :assignee, t.updatedAt = :now, t.version = t.version + 1 where t.id in :ids")
+    int bulkAssign(@Param("ids") Collection<Long> ids, @Param("assignee") User assignee, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update Task t set t.status = :status, t.updatedAt = :now, t.version = t.version + 1 where t.id in :ids")
+    int bulkStatus(@Param("ids") Collection<Long> ids, @Param("status") TaskStatus status, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update Task t set t.priority = :priority, t.updatedAt = :now, t.version = t.version + 1 where t.id in :ids")
+    int bulkPriority(@Param("ids") Collection<Long> ids, @Param("priority") TaskPriority priority, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update Task t set t.active = false, t.deletedAt = :now, t.updatedAt = :now, t.version = t.version + 1
+            where t.id in :ids and t.active = true
+            """)
+    int bulkSoftDelete(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update Task t set t.updatedAt = :now, t.version = t.version + 1 where t.id in :ids")
+    int bulkTouch(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Query("select l.id.taskId as taskId, l.id.tagId as tagId from TaskTagLink l where l.id.taskId in :taskIds and l.id.tagId in :tagIds")
+    List<TagLinkRow> findTagLinks(@Param("taskIds") Collection<Long> taskIds, @Param("tagIds") Collection<Integer> tagIds);
+
+    // task_tag_links là bảng join (TaskTagLink @Immutable) -> ghi bằng native, set-based
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO task_tag_links (task_id, tag_id)
+            SELECT t.id, g.id FROM tasks t CROSS JOIN tags g
+            WHERE t.id IN (:taskIds) AND g.id IN (:tagIds)
+            """, nativeQuery = true)
+    int linkTags(@Param("taskIds") Collection<Long> taskIds, @Param("tagIds") Collection<Integer> tagIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM task_tag_links WHERE task_id IN (:taskIds) AND tag_id IN (:tagIds)", nativeQuery = true)
+    int unlinkTags(@Param("taskIds") Collection<Long> taskIds, @Param("tagIds") Collection<Integer> tagIds);
+
+    interface BulkRow {
+        Long getId();
+        String getTitle();
+        TaskStatus getStatus();
+        TaskPriority getPriority();
+        Long getAssigneeId();
+    }
+
+    interface TagLinkRow {
+        Long getTaskId();
+        Integer getTagId();
+    }
+
+    interface VersionRow {
+        boolean isActive();
+        long getVersion();
+        Instant getUpdatedAt();
+        Long getAssigneeId();
+        Long getLastLogId();
+        Long getLastCommentId();
+        Instant getLastSubTaskUpdatedAt();
+    }
+
+    interface TagRow {
+        Long getTaskId();
+        String getTag();
+    }
 }
@@ -0,0 +1,26 @@
+package project.demo.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import project.demo.entity.Task;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Query không trả entity (chỉ id / aggregate) — implement bằng Criteria trong TaskRepositoryCustomImpl
+public interface TaskRepositoryCustom {
+
+    List<Long> findIds(Specification<Task> spec);
+
+    // SELECT <attribute>, COUNT(*) ... WHERE spec GROUP BY <attribute> ORDER BY COUNT(*) DESC
+    // attribute dạng path ("status", "assignee.id"); association được left join nên giá trị null cũng được đếm
+    Map<Object, Long> countGroupedBy(Specification<Task> spec, String attribute);
+
+    // top tag trong tập task thoả spec: group trên posting list task_tag_links
+    Map<Integer, Long> countTopTags(Specification<Task> spec, int limit);
+
+    // SELECT COUNT(*), MAX(updatedAt) ... WHERE spec — dấu vết thay đổi của 1 list đã lọc (ETag)
+    Fingerprint fingerprint(Specification<Task> spec);
+
+    record Fingerprint(long count, Instant maxUpdatedAt) {}
+}
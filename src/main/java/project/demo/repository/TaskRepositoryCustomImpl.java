@@ -0,0 +1,99 @@
+package project.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+import project.demo.entity.Task;
+import project.demo.entity.TaskTagLink;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Long> findIds(Specification<Task> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Task> root = cq.from(Task.class);
+
+        Predicate p = spec.toPredicate(root, cq, cb);
+        cq.select(root.get("id")).distinct(true);
+        if (p != null) cq.where(p);
+
+        return em.createQuery(cq).getResultList();
+    }
+
+    @Override
+    public Map<Object, Long> countGroupedBy(Specification<Task> spec, String attribute) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Task> root = cq.from(Task.class);
+
+        String[] parts = attribute.split("\\.");
+        From<?, ?> from = root;
+        for (int i = 0; i < parts.length - 1; i++) {
+            from = from.join(parts[i], JoinType.LEFT);
+        }
+        Path<Object> key = from.get(parts[parts.length - 1]);
+        Expression<Long> count = cb.count(root);
+
+        Predicate p = spec.toPredicate(root, cq, cb);
+        cq.multiselect(key, count).groupBy(key).orderBy(cb.desc(count));
+        if (p != null) cq.where(p);
+
+        Map<Object, Long> out = new LinkedHashMap<>();
+        for (Tuple t : em.createQuery(cq).getResultList()) {
+            out.put(t.get(0), t.get(1, Long.class));
+        }
+        return out;
+    }
+
+    @Override
+    public Map<Integer, Long> countTopTags(Specification<Task> spec, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<TaskTagLink> link = cq.from(TaskTagLink.class);
+
+        Subquery<Long> tasks = cq.subquery(Long.class);
+        Root<Task> t = tasks.from(Task.class);
+        Predicate p = spec.toPredicate(t, cq, cb);
+        tasks.select(t.get("id"));
+        if (p != null) tasks.where(p);
+
+        Path<Integer> tagId = link.get("id").get("tagId");
+        Expression<Long> count = cb.count(tagId);
+        cq.multiselect(tagId, count)
+                .where(link.get("id").get("taskId").in(tasks))
+                .groupBy(tagId)
+                .orderBy(cb.desc(count));
+
+        Map<Integer, Long> out = new LinkedHashMap<>();
+        for (Tuple row : em.createQuery(cq).setMaxResults(limit).getResultList()) {
+            out.put(row.get(0, Integer.class), row.get(1, Long.class));
+        }
+        return out;
+    }
+
+    @Override
+    public Fingerprint fingerprint(Specification<Task> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Task> root = cq.from(Task.class);
+
+        Predicate p = spec.toPredicate(root, cq, cb);
+        cq.multiselect(cb.count(root), cb.greatest(root.<Instant>get("updatedAt")));
+        if (p != null) cq.where(p);
+
+        Tuple row = em.createQuery(cq).getSingleResult();
+        Long count = row.get(0, Long.class);
+        return new Fingerprint(count == null ? 0 : count, row.get(1, Instant.class));
+    }
+}
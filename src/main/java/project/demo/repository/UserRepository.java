@@ -1,11 +1,34 @@
 package project.demo.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import project.demo.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // import: resolve assignee theo email cho cả chunk bằng 1 query
+    @Query("select u.id as id, u.email as email from User u where u.isActive = true and u.email in :emails")
+    List<EmailRow> findActiveIdsByEmailIn(@Param("emails") Collection<String> emails);
+
+    @Query("select u.unreadNotifications from User u where u.id = :id")
+    Optional<Integer> findUnreadNotifications(@Param("id") Long id);
+
+    // cộng / trừ trong transaction của thay đổi notification, không xuống dưới 0
+    @Modifying
+    @Query(value = "UPDATE users SET unread_notifications = GREATEST(unread_notifications + :delta, 0) WHERE id = :id",
+            nativeQuery = true)
+    int addUnreadNotifications(@Param("id") Long id, @Param("delta") int delta);
+
+    interface EmailRow {
+        Long getId();
+        String getEmail();
+    }
 }
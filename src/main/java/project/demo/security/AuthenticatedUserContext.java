@@ -0,0 +1,33 @@
+package project.demo.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import project.demo.entity.User;
+
+import java.util.Optional;
+
+/**
+ * User đã xác thực của request hiện tại, giữ trong request attribute.
+ * JwtAuthenticationFilter load user 1 lần và bind vào đây; service lấy lại thay vì findById thêm lần nữa.
+ * Ngoài request (job nền, thread async) luôn trả empty -> service tự query như cũ.
+ */
+public final class AuthenticatedUserContext {
+
+    private static final String ATTRIBUTE = AuthenticatedUserContext.class.getName();
+
+    private AuthenticatedUserContext() {}
+
+    public static void bind(HttpServletRequest request, User user) {
+        request.setAttribute(ATTRIBUTE, user);
+    }
+
+    public static Optional<User> find(Long userId) {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs == null || userId == null) return Optional.empty();
+        if (attrs.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User u && userId.equals(u.getId())) {
+            return Optional.of(u);
+        }
+        return Optional.empty();
+    }
+}
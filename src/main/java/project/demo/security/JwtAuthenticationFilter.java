@@ -38,6 +38,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     );
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    AuthenticatedUserContext.bind(request, user);
                 });
             } catch (Exception ignored) {
                 // invalid token -> ignore, request remains unauthenticated
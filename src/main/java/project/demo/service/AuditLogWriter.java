@@ -0,0 +1,393 @@
+package project.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.demo.entity.TaskLog;
+import project.demo.enums.TaskLogAction;
+import project.demo.repository.TaskLogRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi TaskLog (audit) theo lô thay vì 1 INSERT / field trong transaction của user.
+ *
+ * <ul>
+ *   <li>strict: save ngay trong transaction hiện tại (như cũ) — dùng cho test cần đọc lại log trong cùng tx.</li>
+ *   <li>async: gom log của transaction, sau commit đẩy vào queue có giới hạn; 1 thread nền flush bằng
+ *   JDBC batch (multi-row INSERT với rewriteBatchedStatements). Transaction rollback thì log bị bỏ.</li>
+ * </ul>
+ * Queue đầy quá offer-timeout thì thread gọi tự ghi luôn lô của mình (backpressure, không bao giờ drop).
+ * WAL (tuỳ chọn): log được append + fsync vào file trước khi vào queue, replay khi khởi động, truncate khi
+ * đã flush hết — đảm bảo at-least-once nếu process chết giữa chừng.
+ *
+ * <p>Lỗi tạm thời (lock, timeout, mất connection) được retry tối đa max-attempts lần; lỗi khác (constraint, data too
+ * long) thì tách lô ghi từng entry để chỉ entry hỏng bị loại. Entry không ghi được chuyển sang dead-letter file (cùng
+ * định dạng WAL — sửa nguyên nhân rồi đặt file vào wal-path để replay); không có dead-letter thì giữ trong WAL.
+ * Flusher không bao giờ kẹt vì 1 lô hỏng.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    static final String INSERT_SQL = "INSERT INTO task_logs "
+            + "(task_id, actor_id, action, field_name, old_value, new_value, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    public record Entry(Long taskId, Long actorId, TaskLogAction action, String fieldName,
+                        String oldValue, String newValue, Instant createdAt) {}
+
+    // inWal: entry này thực sự đã được fsync vào WAL (append lỗi thì false) -> chỉ những entry này được trừ khỏi walPending
+    private record Queued(Entry entry, boolean inWal) {}
+
+    private final TaskLogRepository taskLogRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTx;
+    private final ObjectMapper objectMapper;
+
+    private final boolean strict;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final int maxAttempts;
+    private final Path walPath;
+    private final Path deadLetterPath;
+    private final BlockingQueue<Queued> queue;
+
+    private final Counter written;
+    private final Counter callerWrites;
+    private final Counter deadLettered;
+
+    // số entry đã vào WAL mà chưa flush xong; về 0 thì truncate WAL
+    private final Object walLock = new Object();
+    private long walPending;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public AuditLogWriter(
+            TaskLogRepository taskLogRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.audit.mode:strict}") String mode,
+            @Value("${app.audit.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.audit.batch-size:500}") int batchSize,
+            @Value("${app.audit.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${app.audit.offer-timeout-ms:50}") long offerTimeoutMillis,
+            @Value("${app.audit.max-attempts:5}") int maxAttempts,
+            @Value("${app.audit.wal-path:}") String walPath,
+            @Value("${app.audit.dead-letter-path:}") String deadLetterPath
+    ) {
+        this.taskLogRepository = taskLogRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.strict = !"async".equalsIgnoreCase(mode);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.offerTimeoutMillis = Math.max(0, offerTimeoutMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.walPath = walPath == null || walPath.isBlank() ? null : Path.of(walPath);
+        this.deadLetterPath = deadLetterPath == null || deadLetterPath.isBlank() ? null : Path.of(deadLetterPath);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        this.written = Counter.builder("task.audit.written").register(meterRegistry);
+        this.callerWrites = Counter.builder("task.audit.caller.writes")
+                .description("Lô audit do thread gọi tự ghi vì queue đầy")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("task.audit.dead.lettered")
+                .description("Entry audit không ghi được vào DB, chuyển sang dead-letter")
+                .register(meterRegistry);
+        Gauge.builder("task.audit.queue.size", queue, Collection::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (strict) return;
+        running = true;
+        flusher = Thread.ofPlatform().name("audit-log-writer").daemon().start(this::runFlusher);
+        replayWal();
+    }
+
+    /** Dừng nhận mới, flush nốt queue rồi mới để DataSource đóng. */
+    @PreDestroy
+    void stop() {
+        if (flusher == null) return;
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+        if (!queue.isEmpty()) {
+            log.error("Audit writer stopped with {} entries not written{}", queue.size(),
+                    walPath == null ? "" : " (kept in WAL " + walPath + ")");
+        }
+    }
+
+    public void append(TaskLog l) {
+        if (strict) {
+            taskLogRepository.save(l);
+            return;
+        }
+        Entry e = new Entry(l.getTask().getId(), l.getActor().getId(), l.getAction(), l.getFieldName(),
+                l.getOldValue(), l.getNewValue(), l.getCreatedAt());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(e));
+            return;
+        }
+        // gom theo transaction: chỉ log của transaction đã commit mới được ghi.
+        // Synchronization gắn với transaction hiện tại (REQUIRES_NEW lồng bên trong có danh sách riêng)
+        PendingEntries pending = null;
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sync instanceof PendingEntries p && p.owner() == this) {
+                pending = p;
+                break;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingEntries(this, new ArrayList<>());
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.entries().add(e);
+    }
+
+    private record PendingEntries(AuditLogWriter owner, List<Entry> entries) implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            owner.publish(entries);
+        }
+    }
+
+    private void publish(List<Entry> entries) {
+        boolean inWal = appendWal(entries);
+        List<Queued> items = entries.stream().map(e -> new Queued(e, inWal)).toList();
+        for (int i = 0; i < items.size(); i++) {
+            boolean queued;
+            try {
+                queued = queue.offer(items.get(i), offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                // backpressure: queue đầy -> thread gọi tự ghi phần còn lại
+                callerWrites.increment();
+                write(items.subList(i, items.size()), Math.min(3, maxAttempts));
+                return;
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            try {
+                Queued first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                List<Queued> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch, maxAttempts);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /** Flush hết những gì đang có trong queue (shutdown / test). */
+    void drain() {
+        List<Queued> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch, Math.min(3, maxAttempts));
+            batch.clear();
+        }
+    }
+
+    private void write(List<Queued> batch, int attempts) {
+        long backoff = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeBatch(batch);
+                return;
+            } catch (RuntimeException ex) {
+                if (!retryable(ex)) {
+                    // lỗi của dữ liệu: ghi lại từng entry để chỉ entry hỏng ra dead-letter
+                    if (batch.size() == 1) {
+                        deadLetter(batch, ex);
+                    } else {
+                        for (Queued q : batch) write(List.of(q), attempts);
+                    }
+                    return;
+                }
+                if (attempt >= attempts || (!running && attempt >= 3)) {
+                    deadLetter(batch, ex);
+                    return;
+                }
+                log.warn("Audit batch write failed (attempt {}), retrying", attempt, ex);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                backoff = Math.min(backoff * 2, 5_000);
+            }
+        }
+    }
+
+    // lỗi tạm thời hoặc DB / pool tạm không dùng được -> retry; còn lại coi là lỗi của dữ liệu
+    private static boolean retryable(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException
+                || ex instanceof RecoverableDataAccessException
+                || ex instanceof DataAccessResourceFailureException
+                || ex instanceof CannotCreateTransactionException;
+    }
+
+    void writeBatch(List<Queued> batch) {
+        List<Entry> entries = batch.stream().map(Queued::entry).toList();
+        writeTx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, e) -> {
+            ps.setLong(1, e.taskId());
+            ps.setLong(2, e.actorId());
+            ps.setString(3, e.action().name());
+            ps.setString(4, e.fieldName());
+            ps.setString(5, e.oldValue());
+            ps.setString(6, e.newValue());
+            // giống Hibernate (Instant -> TIMESTAMP_UTC)
+            ps.setTimestamp(7, Timestamp.from(e.createdAt()), Calendar.getInstance(UTC));
+        }));
+        written.increment(batch.size());
+        walFlushed(batch);
+    }
+
+    private void deadLetter(List<Queued> batch, RuntimeException cause) {
+        if (deadLetterPath == null) {
+            // không trừ walPending: entry còn trong WAL (nếu bật) và được replay ở lần khởi động sau
+            log.error("Audit batch of {} entries not written{}", batch.size(),
+                    walPath == null ? "" : ", kept in WAL " + walPath, cause);
+            return;
+        }
+        synchronized (walLock) {
+            try {
+                appendLines(deadLetterPath, batch.stream().map(Queued::entry).toList());
+            } catch (IOException ex) {
+                log.error("Cannot dead-letter {} audit entries to {}", batch.size(), deadLetterPath, ex);
+                return;
+            }
+        }
+        deadLettered.increment(batch.size());
+        log.error("Audit batch of {} entries moved to dead-letter {}", batch.size(), deadLetterPath, cause);
+        walFlushed(batch);
+    }
+
+    // ---------- WAL ----------
+
+    /** @return true nếu cả lô đã fsync vào WAL */
+    private boolean appendWal(List<Entry> entries) {
+        if (walPath == null) return false;
+        synchronized (walLock) {
+            try {
+                appendLines(walPath, entries);
+                walPending += entries.size();
+                return true;
+            } catch (IOException ex) {
+                // không chặn request vì WAL; entry vẫn vào queue như bình thường (không được tính vào walPending)
+                log.error("Cannot append {} audit entries to WAL {}", entries.size(), walPath, ex);
+                return false;
+            }
+        }
+    }
+
+    private void appendLines(Path file, List<Entry> entries) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE,
+                StandardOpenOption.DSYNC)) {
+            for (Entry e : entries) {
+                w.write(objectMapper.writeValueAsString(e));
+                w.newLine();
+            }
+        }
+    }
+
+    private void walFlushed(List<Queued> batch) {
+        if (walPath == null) return;
+        long inWal = batch.stream().filter(Queued::inWal).count();
+        if (inWal == 0) return;
+        synchronized (walLock) {
+            walPending = Math.max(0, walPending - inWal);
+            if (walPending > 0) return;
+            try {
+                Files.write(walPath, new byte[0], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException ex) {
+                log.warn("Cannot truncate audit WAL {}", walPath, ex);
+            }
+        }
+    }
+
+    private void replayWal() {
+        if (walPath == null || !Files.exists(walPath)) return;
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(walPath, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    entries.add(objectMapper.readValue(line, Entry.class));
+                } catch (IOException ex) {
+                    // dòng cuối có thể bị cắt dở khi crash
+                    log.warn("Skipping unreadable audit WAL line");
+                }
+            }
+        } catch (IOException ex) {
+            log.error("Cannot read audit WAL {}", walPath, ex);
+            return;
+        }
+        if (entries.isEmpty()) return;
+
+        log.info("Replaying {} audit entries from WAL {}", entries.size(), walPath);
+        synchronized (walLock) {
+            walPending += entries.size();
+        }
+        // flusher đã chạy: put() chờ khi queue đầy thay vì bỏ
+        try {
+            for (Entry e : entries) queue.put(new Queued(e, true));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int queueSize() {
+        return queue.size();
+    }
+}
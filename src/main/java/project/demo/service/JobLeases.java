@@ -0,0 +1,44 @@
+package project.demo.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Lease trên bảng job_leases để job định kỳ chỉ chạy trên 1 instance tại 1 thời điểm.
+ *
+ * <p>Mỗi lần lấy / trả lease là 1 UPDATE có điều kiện (auto-commit), không giữ lock trong lúc job chạy. Hạn lease
+ * tính bằng đồng hồ DB nên lệch giờ giữa các node không ảnh hưởng; instance chết giữa chừng thì lease tự hết sau ttl.
+ */
+@Component
+public class JobLeases {
+
+    static final String ENSURE_SQL = "INSERT IGNORE INTO job_leases (name, locked_until) VALUES (?, '1970-01-01 00:00:00')";
+
+    static final String ACQUIRE_SQL = "UPDATE job_leases SET owner = ?, locked_until = TIMESTAMPADD(SECOND, ?, UTC_TIMESTAMP(6)) "
+            + "WHERE name = ? AND (locked_until <= UTC_TIMESTAMP(6) OR owner = ?)";
+
+    static final String RELEASE_SQL = "UPDATE job_leases SET locked_until = UTC_TIMESTAMP(6) WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    // pid@host + hậu tố ngẫu nhiên: 2 lần khởi động trên cùng máy không bị coi là cùng owner
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    public JobLeases(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** @return true nếu instance này đang giữ lease name tới ít nhất now + ttl */
+    public boolean tryAcquire(String name, Duration ttl) {
+        jdbcTemplate.update(ENSURE_SQL, name);
+        return jdbcTemplate.update(ACQUIRE_SQL, owner, Math.max(1, ttl.toSeconds()), name, owner) == 1;
+    }
+
+    public void release(String name) {
+        jdbcTemplate.update(RELEASE_SQL, name, owner);
+    }
+}
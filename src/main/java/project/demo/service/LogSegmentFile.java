@@ -0,0 +1,330 @@
+package project.demo.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Định dạng segment file cho task_logs đã archive.
+ *
+ * <pre>
+ * "TLSEG1" | block* | index | indexOffset(long) | "TLSEG1"
+ * index = blockCount(int) + mỗi block: firstTaskId, lastTaskId, offset (long), length, rows (int)
+ * </pre>
+ * Row đưa vào phải sắp theo task_id; 1 task không bao giờ bị chia qua 2 block nên đọc log của 1 task
+ * chỉ cần binary search trên index (giữ trong RAM) rồi inflate đúng block đó.
+ * Trong block dữ liệu lưu theo cột (task_id, id, createdAt dạng delta varint, action / fieldName qua dictionary,
+ * old / new value) rồi nén deflate — giá trị lặp lại nhiều nên nén tốt hơn hẳn theo dòng.
+ */
+public final class LogSegmentFile {
+
+    private static final byte[] MAGIC = "TLSEG1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FOOTER_BYTES = Long.BYTES + MAGIC.length;
+
+    private LogSegmentFile() {}
+
+    public record Row(long id, long taskId, long actorId, String action, String fieldName,
+                      String oldValue, String newValue, Instant createdAt) {}
+
+    public static Writer create(Path path, int blockRows) throws IOException {
+        return new Writer(path, blockRows);
+    }
+
+    // ---------- write ----------
+
+    public static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final int blockRows;
+        private final List<Row> block = new ArrayList<>();
+        private final List<long[]> index = new ArrayList<>();
+        private long offset;
+        private long rows;
+        private long lastTaskId = Long.MIN_VALUE;
+        private boolean closed;
+
+        private Writer(Path path, int blockRows) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            this.out = new BufferedOutputStream(java.nio.channels.Channels.newOutputStream(channel), 1 << 16);
+            this.blockRows = Math.max(1, blockRows);
+            out.write(MAGIC);
+            offset = MAGIC.length;
+        }
+
+        public void add(Row r) throws IOException {
+            if (r.taskId() < lastTaskId) throw new IllegalArgumentException("rows must be sorted by taskId");
+            // chỉ cắt block ở ranh giới task
+            if (r.taskId() != lastTaskId && block.size() >= blockRows) flushBlock();
+            block.add(r);
+            lastTaskId = r.taskId();
+            rows++;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        private void flushBlock() throws IOException {
+            if (block.isEmpty()) return;
+            byte[] bytes = encodeBlock(block);
+            out.write(bytes);
+            index.add(new long[]{block.getFirst().taskId(), block.getLast().taskId(), offset, bytes.length, block.size()});
+            offset += bytes.length;
+            block.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                flushBlock();
+                DataOutputStream d = new DataOutputStream(out);
+                long indexOffset = offset;
+                d.writeInt(index.size());
+                for (long[] e : index) {
+                    d.writeLong(e[0]);
+                    d.writeLong(e[1]);
+                    d.writeLong(e[2]);
+                    d.writeInt((int) e[3]);
+                    d.writeInt((int) e[4]);
+                }
+                d.writeLong(indexOffset);
+                d.write(MAGIC);
+                d.flush();
+                // file chỉ được đăng ký vào manifest sau khi đã xuống đĩa
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static byte[] encodeBlock(List<Row> rows) throws IOException {
+        Map<String, Integer> dict = new LinkedHashMap<>();
+        for (Row r : rows) {
+            dict.putIfAbsent(r.action(), dict.size());
+            if (r.fieldName() != null) dict.putIfAbsent(r.fieldName(), dict.size());
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (DataOutputStream d = new DataOutputStream(new DeflaterOutputStream(bos))) {
+            writeVarLong(d, rows.size());
+            writeVarLong(d, dict.size());
+            for (String s : dict.keySet()) writeString(d, s);
+
+            long prev = 0;
+            for (Row r : rows) {
+                writeVarLong(d, r.taskId() - prev);
+                prev = r.taskId();
+            }
+            prev = 0;
+            for (Row r : rows) {
+                writeVarLong(d, zigzag(r.id() - prev));
+                prev = r.id();
+            }
+            prev = 0;
+            for (Row r : rows) {
+                long micros = micros(r.createdAt());
+                writeVarLong(d, zigzag(micros - prev));
+                prev = micros;
+            }
+            for (Row r : rows) writeVarLong(d, r.actorId());
+            for (Row r : rows) writeVarLong(d, dict.get(r.action()));
+            for (Row r : rows) writeVarLong(d, r.fieldName() == null ? 0 : dict.get(r.fieldName()) + 1);
+            for (Row r : rows) writeString(d, r.oldValue());
+            for (Row r : rows) writeString(d, r.newValue());
+        }
+        return bos.toByteArray();
+    }
+
+    // ---------- read ----------
+
+    /** Index của 1 file (nhỏ, cache được): đủ để biết block nào chứa task nào. */
+    public record Index(long[] firstTaskId, long[] lastTaskId, long[] offset, int[] length, int[] rows) {
+
+        public long rowCount() {
+            long n = 0;
+            for (int r : rows) n += r;
+            return n;
+        }
+    }
+
+    public static Index readIndex(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < MAGIC.length + Integer.BYTES + FOOTER_BYTES) throw new IOException("Segment too small: " + path);
+            ByteBuffer footer = readFully(ch, size - FOOTER_BYTES, FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            byte[] magic = new byte[MAGIC.length];
+            footer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a log segment: " + path);
+
+            ByteBuffer idx = readFully(ch, indexOffset, (int) (size - FOOTER_BYTES - indexOffset));
+            int n = idx.getInt();
+            Index index = new Index(new long[n], new long[n], new long[n], new int[n], new int[n]);
+            for (int i = 0; i < n; i++) {
+                index.firstTaskId[i] = idx.getLong();
+                index.lastTaskId[i] = idx.getLong();
+                index.offset[i] = idx.getLong();
+                index.length[i] = idx.getInt();
+                index.rows[i] = idx.getInt();
+            }
+            return index;
+        }
+    }
+
+    /** Tất cả log của taskId trong file (thứ tự như lúc ghi). */
+    public static List<Row> readTask(Path path, Index index, long taskId) throws IOException {
+        int i = firstBlockFor(index, taskId);
+        if (i < 0) return List.of();
+        List<Row> out = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (; i < index.firstTaskId.length && index.firstTaskId[i] <= taskId; i++) {
+                ByteBuffer buf = readFully(ch, index.offset[i], index.length[i]);
+                for (Row r : decodeBlock(buf.array())) {
+                    if (r.taskId() == taskId) out.add(r);
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Đọc toàn bộ file theo thứ tự (verify / export). */
+    public static void forEach(Path path, Index index, RowConsumer consumer) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int i = 0; i < index.offset.length; i++) {
+                for (Row r : decodeBlock(readFully(ch, index.offset[i], index.length[i]).array())) consumer.accept(r);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(Row row) throws IOException;
+    }
+
+    // block đầu tiên có lastTaskId >= taskId
+    private static int firstBlockFor(Index index, long taskId) {
+        int lo = 0;
+        int hi = index.lastTaskId.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (index.lastTaskId[mid] >= taskId) {
+                found = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        if (found < 0 || index.firstTaskId[found] > taskId) return -1;
+        return found;
+    }
+
+    private static List<Row> decodeBlock(byte[] bytes) throws IOException {
+        try (DataInputStream d = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            int n = (int) readVarLong(d);
+            String[] dict = new String[(int) readVarLong(d)];
+            for (int i = 0; i < dict.length; i++) dict[i] = readString(d);
+
+            long[] taskIds = new long[n];
+            long prev = 0;
+            for (int i = 0; i < n; i++) taskIds[i] = prev += readVarLong(d);
+            long[] ids = new long[n];
+            prev = 0;
+            for (int i = 0; i < n; i++) ids[i] = prev += unzigzag(readVarLong(d));
+            long[] micros = new long[n];
+            prev = 0;
+            for (int i = 0; i < n; i++) micros[i] = prev += unzigzag(readVarLong(d));
+            long[] actors = new long[n];
+            for (int i = 0; i < n; i++) actors[i] = readVarLong(d);
+            int[] actions = new int[n];
+            for (int i = 0; i < n; i++) actions[i] = (int) readVarLong(d);
+            int[] fields = new int[n];
+            for (int i = 0; i < n; i++) fields[i] = (int) readVarLong(d);
+            String[] olds = new String[n];
+            for (int i = 0; i < n; i++) olds[i] = readString(d);
+            String[] news = new String[n];
+            for (int i = 0; i < n; i++) news[i] = readString(d);
+
+            List<Row> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                out.add(new Row(ids[i], taskIds[i], actors[i], dict[actions[i]],
+                        fields[i] == 0 ? null : dict[fields[i] - 1], olds[i], news[i], fromMicros(micros[i])));
+            }
+            return out;
+        }
+    }
+
+    // ---------- encoding helpers ----------
+
+    private static ByteBuffer readFully(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, position + buf.position()) < 0) throw new EOFException();
+        }
+        return buf.flip();
+    }
+
+    private static void writeString(DataOutputStream d, String s) throws IOException {
+        if (s == null) {
+            writeVarLong(d, 0);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(d, b.length + 1L);
+        d.write(b);
+    }
+
+    private static String readString(DataInputStream d) throws IOException {
+        long len = readVarLong(d);
+        if (len == 0) return null;
+        byte[] b = new byte[(int) (len - 1)];
+        d.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream d, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            d.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        d.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream d) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = d.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long micros(Instant t) {
+        return Math.addExact(Math.multiplyExact(t.getEpochSecond(), 1_000_000L), t.getNano() / 1_000);
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
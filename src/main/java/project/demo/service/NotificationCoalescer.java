@@ -0,0 +1,190 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import project.demo.dto.NotificationDtos;
+import project.demo.enums.NotificationType;
+import project.demo.event.NotificationCreatedEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Gộp notification dồn dập cùng (recipient, task, type) trong cửa sổ window-seconds thành 1 dòng: đếm số lần
+ * (occurrences), giữ message / actor của lần mới nhất.
+ *
+ * <p>Chạy trong transaction dispatch (NotificationServiceImpl.createNotifications): gộp trong lô trước, rồi cộng vào
+ * dòng chưa đọc cùng key đã tạo trong cửa sổ bằng UPDATE theo id. Dòng đã đọc không nhận gộp — lần xảy ra mới là
+ * 1 notification chưa đọc mới. Gộp vào dòng có sẵn thì không tăng badge (vẫn chỉ 1 notification chưa đọc).
+ */
+@Component
+public class NotificationCoalescer {
+
+    static final String FIND_OPEN_SQL = """
+            SELECT id, recipient_id, task_id, type, occurrences, created_at FROM notifications
+            WHERE recipient_id IN (%s) AND task_id IN (%s) AND type IN (%s)
+              AND active = true AND read_at IS NULL AND created_at >= ?
+            """;
+
+    // điều kiện read_at IS NULL lặp lại: user vừa đọc giữa SELECT và UPDATE thì 0 dòng -> INSERT dòng mới
+    static final String MERGE_SQL = "UPDATE notifications SET occurrences = occurrences + ?, message = ?, actor_id = ?, "
+            + "version = version + 1 WHERE id = ? AND active = true AND read_at IS NULL";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /** Notification cần INSERT, đại diện cho occurrences lần xảy ra (message / actor của lần cuối). */
+    public record Pending(NotificationDtos.NewNotification notification, int occurrences) {}
+
+    /** inserts giữ thứ tự lần xảy ra đầu tiên của mỗi key; merged là event cho các dòng đã có được cập nhật. */
+    public record Result(List<Pending> inserts, List<NotificationCreatedEvent> merged) {}
+
+    private record Key(Long recipientId, Long taskId, NotificationType type) {}
+
+    private record Open(long id, int occurrences, Instant createdAt) {}
+
+    private static final class Group {
+        final Key key;
+        NotificationDtos.NewNotification latest;
+        int count = 1;
+
+        Group(Key key, NotificationDtos.NewNotification first) {
+            this.key = key;
+            this.latest = first;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration window;
+    private final Set<NotificationType> types;
+    private final Counter coalesced;
+
+    public NotificationCoalescer(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.notification.coalesce.window-seconds:300}") long windowSeconds,
+            @Value("${app.notification.coalesce.types:TASK_STATUS_CHANGED,SUBTASK_CREATED,SUBTASK_STATUS_CHANGED,COMMENT_ADDED}")
+            Set<NotificationType> types
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.window = Duration.ofSeconds(Math.max(0, windowSeconds));
+        this.types = types.isEmpty() ? EnumSet.noneOf(NotificationType.class) : EnumSet.copyOf(types);
+        this.coalesced = Counter.builder("notification.coalesced")
+                .description("Số lần xảy ra được gộp vào notification khác thay vì INSERT dòng mới")
+                .register(meterRegistry);
+    }
+
+    public Result coalesce(List<NotificationDtos.NewNotification> batch, Instant now) {
+        List<Group> groups = new ArrayList<>(batch.size());
+        Map<Key, Group> byKey = new HashMap<>();
+        for (var n : batch) {
+            Key key = coalescible(n) ? new Key(n.recipientId(), n.taskId(), n.type()) : null;
+            Group g = key == null ? null : byKey.get(key);
+            if (g == null) {
+                g = new Group(key, n);
+                groups.add(g);
+                if (key != null) byKey.put(key, g);
+            } else {
+                g.latest = n;
+                g.count++;
+            }
+        }
+
+        List<NotificationCreatedEvent> merged = new ArrayList<>();
+        Set<Group> mergedGroups = mergeIntoOpen(byKey, now, merged);
+
+        List<Pending> inserts = new ArrayList<>(groups.size() - mergedGroups.size());
+        for (Group g : groups) {
+            if (!mergedGroups.contains(g)) inserts.add(new Pending(g.latest, g.count));
+        }
+        int absorbed = batch.size() - inserts.size();
+        if (absorbed > 0) coalesced.increment(absorbed);
+        return new Result(inserts, merged);
+    }
+
+    private boolean coalescible(NotificationDtos.NewNotification n) {
+        return !window.isZero() && n.taskId() != null && types.contains(n.type());
+    }
+
+    private Set<Group> mergeIntoOpen(Map<Key, Group> byKey, Instant now, List<NotificationCreatedEvent> merged) {
+        if (byKey.isEmpty()) return Set.of();
+
+        Map<Key, Open> open = findOpen(byKey.keySet(), now.minus(window));
+        List<Group> targets = new ArrayList<>();
+        for (Group g : byKey.values()) {
+            if (open.containsKey(g.key)) targets.add(g);
+        }
+        if (targets.isEmpty()) return Set.of();
+
+        int[] counts = jdbcTemplate.batchUpdate(MERGE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Group g = targets.get(i);
+                ps.setInt(1, g.count);
+                ps.setString(2, g.latest.message());
+                ps.setObject(3, g.latest.actorId(), Types.BIGINT);
+                ps.setLong(4, open.get(g.key).id());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return targets.size();
+            }
+        });
+
+        Set<Group> done = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < targets.size(); i++) {
+            // SUCCESS_NO_INFO (-2) cũng tính là đã gộp
+            if (counts[i] == 0) continue;
+            Group g = targets.get(i);
+            Open o = open.get(g.key);
+            done.add(g);
+            merged.add(new NotificationCreatedEvent(g.key.recipientId(), new NotificationDtos.NotificationResponse(
+                    o.id(), g.key.type(), g.latest.message(), g.key.taskId(), o.createdAt(), null,
+                    o.occurrences() + g.count), true));
+        }
+        return done;
+    }
+
+    // 1 query cho cả lô: IN theo từng chiều là tập lớn hơn cần, lọc lại đúng key ở đây; nhiều dòng cùng key lấy id lớn nhất
+    private Map<Key, Open> findOpen(Set<Key> keys, Instant since) {
+        Set<Long> recipients = new LinkedHashSet<>();
+        Set<Long> tasks = new LinkedHashSet<>();
+        Set<NotificationType> keyTypes = EnumSet.noneOf(NotificationType.class);
+        for (Key k : keys) {
+            recipients.add(k.recipientId());
+            tasks.add(k.taskId());
+            keyTypes.add(k.type());
+        }
+        String sql = FIND_OPEN_SQL.formatted(placeholders(recipients.size()), placeholders(tasks.size()),
+                placeholders(keyTypes.size()));
+
+        Calendar utc = Calendar.getInstance(UTC);
+        Map<Key, Open> open = new HashMap<>();
+        jdbcTemplate.query(sql, ps -> {
+            int i = 1;
+            for (Long r : recipients) ps.setLong(i++, r);
+            for (Long t : tasks) ps.setLong(i++, t);
+            for (NotificationType t : keyTypes) ps.setString(i++, t.name());
+            ps.setTimestamp(i, Timestamp.from(since), utc);
+        }, rs -> {
+            Key key = new Key(rs.getLong(2), rs.getLong(3), NotificationType.valueOf(rs.getString(4)));
+            if (!keys.contains(key)) return;
+            Open o = new Open(rs.getLong(1), rs.getInt(5), rs.getTimestamp(6, utc).toInstant());
+            open.merge(key, o, (a, b) -> a.id() >= b.id() ? a : b);
+        });
+        return open;
+    }
+
+    private static String placeholders(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+}
@@ -0,0 +1,277 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.demo.dto.NotificationDtos;
+import project.demo.enums.NotificationType;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Drain notification_outbox: mỗi lô (theo id tăng dần) trong 1 transaction = tạo Notification bằng multi-row INSERT
+ * + đánh dấu dispatched_at. Lô fail thì rollback cả 2, tăng attempts / last_error của các record trong lô, lần poll
+ * sau làm lại (không mất, không tạo trùng). Lô đã fail max-attempts lần thì chạy lại từng record, mỗi record 1
+ * transaction; record vẫn fail (lỗi không tạm thời) bị park (parked_at) để phần còn lại của outbox tiếp tục drain.
+ *
+ * <p>SELECT ... FOR UPDATE (không SKIP LOCKED) nên nhiều instance cùng chạy vẫn drain tuần tự -> notification
+ * của mỗi recipient được tạo đúng thứ tự outbox. Outbox đã dispatch được giữ retention-hours rồi xoá theo lô.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    static final String SELECT_PENDING_SQL = "SELECT id, recipient_id, actor_id, type, message, task_id, attempts "
+            + "FROM notification_outbox WHERE dispatched_at IS NULL AND parked_at IS NULL ORDER BY id LIMIT ? FOR UPDATE";
+
+    static final String SELECT_ONE_SQL = "SELECT id, recipient_id, actor_id, type, message, task_id, attempts "
+            + "FROM notification_outbox WHERE id = ? AND dispatched_at IS NULL AND parked_at IS NULL FOR UPDATE";
+
+    static final String MARK_DISPATCHED_SQL = "UPDATE notification_outbox SET dispatched_at = ? WHERE id IN (%s)";
+
+    // auto-commit, sau khi lô đã rollback
+    static final String MARK_FAILED_SQL = "UPDATE notification_outbox SET attempts = attempts + 1, last_error = ? "
+            + "WHERE id = ?";
+
+    static final String PARK_SQL = "UPDATE notification_outbox SET attempts = attempts + 1, last_error = ?, parked_at = ? "
+            + "WHERE id = ?";
+
+    static final String PENDING_STATS_SQL = "SELECT COUNT(*), MIN(created_at) FROM notification_outbox "
+            + "WHERE dispatched_at IS NULL AND parked_at IS NULL";
+
+    static final String PURGE_SQL = "DELETE FROM notification_outbox "
+            + "WHERE dispatched_at IS NOT NULL AND dispatched_at < ? LIMIT ?";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final int PURGE_BATCH = 5000;
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private record Pending(long id, NotificationDtos.NewNotification notification, int attempts) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationService notificationService;
+    private final TransactionTemplate batchTx;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final Counter dispatched;
+    private final Counter parked;
+    // lô đang dispatch (drain synchronized), để ghi attempts khi transaction của lô rollback
+    private List<Pending> inFlight = List.of();
+    private volatile long pending;
+    private volatile Instant oldestPendingAt;
+
+    public NotificationDispatcher(
+            JdbcTemplate jdbcTemplate,
+            NotificationService notificationService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.notification.outbox.enabled:true}") boolean enabled,
+            @Value("${app.notification.outbox.batch-size:500}") int batchSize,
+            @Value("${app.notification.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${app.notification.outbox.retention-hours:24}") long retentionHours
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificationService = notificationService;
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retention = Duration.ofHours(Math.max(1, retentionHours));
+
+        this.dispatched = Counter.builder("notification.outbox.dispatched").register(meterRegistry);
+        this.parked = Counter.builder("notification.outbox.parked")
+                .description("Outbox record bị park sau max-attempts lần fail").register(meterRegistry);
+        Gauge.builder("notification.outbox.pending", this, d -> d.pending).register(meterRegistry);
+        Gauge.builder("notification.outbox.lag.seconds", this, NotificationDispatcher::lagSeconds)
+                .description("Tuổi của outbox record cũ nhất chưa dispatch")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.notification.outbox.poll-ms:500}")
+    public void scheduledDrain() {
+        if (!enabled) return;
+        try {
+            drain();
+        } catch (Exception e) {
+            log.error("Notification outbox dispatch failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.notification.outbox.purge-interval-ms:3600000}")
+    public void scheduledPurge() {
+        if (!enabled) return;
+        try {
+            purgeDispatched();
+        } catch (Exception e) {
+            log.error("Notification outbox purge failed", e);
+        }
+    }
+
+    /** @return số notification đã tạo */
+    public synchronized int drain() {
+        int total = 0;
+        try {
+            while (true) {
+                int read;
+                try {
+                    Integer n = batchTx.execute(s -> dispatchBatch());
+                    read = n == null ? 0 : n;
+                    total += read;
+                } catch (RuntimeException e) {
+                    List<Pending> failed = inFlight;
+                    // lỗi trước khi đọc được lô (vd. mất kết nối): không có record nào để ghi nhận
+                    if (failed.isEmpty()) throw e;
+                    int attempts = failed.stream().mapToInt(Pending::attempts).max().orElse(0) + 1;
+                    if (attempts < maxAttempts) {
+                        markFailed(failed, e);
+                        throw e;
+                    }
+                    log.warn("Outbox batch {}..{} failed {} times, dispatching row by row", failed.get(0).id(),
+                            failed.get(failed.size() - 1).id(), attempts, e);
+                    total += dispatchOneByOne(failed);
+                    read = failed.size();
+                } finally {
+                    inFlight = List.of();
+                }
+                if (read < batchSize) break;
+            }
+        } finally {
+            refreshStats();
+        }
+        return total;
+    }
+
+    public int purgeDispatched() {
+        Timestamp before = Timestamp.from(Instant.now().minus(retention));
+        int total = 0;
+        int n;
+        do {
+            // mỗi lô auto-commit riêng, lock ngắn
+            n = jdbcTemplate.update(PURGE_SQL, ps -> {
+                ps.setTimestamp(1, before, Calendar.getInstance(UTC));
+                ps.setInt(2, PURGE_BATCH);
+            });
+            total += n;
+        } while (n == PURGE_BATCH);
+        return total;
+    }
+
+    private int dispatchBatch() {
+        List<Pending> batch = jdbcTemplate.query(SELECT_PENDING_SQL, NotificationDispatcher::mapPending, batchSize);
+        if (batch.isEmpty()) return 0;
+        inFlight = batch;
+
+        notificationService.createNotifications(batch.stream().map(Pending::notification).toList());
+
+        Timestamp now = Timestamp.from(Instant.now());
+        String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+        jdbcTemplate.update(MARK_DISPATCHED_SQL.formatted(placeholders), ps -> {
+            ps.setTimestamp(1, now, Calendar.getInstance(UTC));
+            for (int i = 0; i < batch.size(); i++) ps.setLong(i + 2, batch.get(i).id());
+        });
+        dispatched.increment(batch.size());
+        return batch.size();
+    }
+
+    // mỗi record 1 transaction: record lỗi bị park, record khác vẫn được tạo; lỗi tạm thời thì dừng, lần poll sau làm lại
+    private int dispatchOneByOne(List<Pending> batch) {
+        int created = 0;
+        for (Pending p : batch) {
+            try {
+                Integer n = batchTx.execute(s -> dispatchOne(p.id()));
+                created += n == null ? 0 : n;
+            } catch (TransientDataAccessException e) {
+                markFailed(List.of(p), e);
+                throw e;
+            } catch (RuntimeException e) {
+                log.error("Parking notification outbox record {} after {} failed attempts", p.id(), p.attempts() + 1, e);
+                Timestamp now = Timestamp.from(Instant.now());
+                jdbcTemplate.update(PARK_SQL, ps -> {
+                    ps.setString(1, errorOf(e));
+                    ps.setTimestamp(2, now, Calendar.getInstance(UTC));
+                    ps.setLong(3, p.id());
+                });
+                parked.increment();
+            }
+        }
+        return created;
+    }
+
+    private int dispatchOne(long id) {
+        List<Pending> row = jdbcTemplate.query(SELECT_ONE_SQL, NotificationDispatcher::mapPending, id);
+        // instance khác đã dispatch / park trong lúc lô này fail
+        if (row.isEmpty()) return 0;
+
+        notificationService.createNotifications(List.of(row.get(0).notification()));
+        jdbcTemplate.update(MARK_DISPATCHED_SQL.formatted("?"), ps -> {
+            ps.setTimestamp(1, Timestamp.from(Instant.now()), Calendar.getInstance(UTC));
+            ps.setLong(2, id);
+        });
+        dispatched.increment();
+        return 1;
+    }
+
+    private void markFailed(List<Pending> batch, RuntimeException cause) {
+        String error = errorOf(cause);
+        try {
+            jdbcTemplate.batchUpdate(MARK_FAILED_SQL, batch, 500, (ps, p) -> {
+                ps.setString(1, error);
+                ps.setLong(2, p.id());
+            });
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static Pending mapPending(ResultSet rs, int rowNum) throws SQLException {
+        return new Pending(
+                rs.getLong(1),
+                new NotificationDtos.NewNotification(
+                        rs.getLong(2),
+                        rs.getObject(3, Long.class),
+                        NotificationType.valueOf(rs.getString(4)),
+                        rs.getString(5),
+                        rs.getObject(6, Long.class)),
+                rs.getInt(7));
+    }
+
+    private static String errorOf(Throwable e) {
+        String s = e.toString();
+        return s.length() <= MAX_ERROR_LENGTH ? s : s.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private void refreshStats() {
+        try {
+            jdbcTemplate.query(PENDING_STATS_SQL, rs -> {
+                pending = rs.getLong(1);
+                Timestamp oldest = rs.getTimestamp(2, Calendar.getInstance(UTC));
+                oldestPendingAt = oldest == null ? null : oldest.toInstant();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Cannot read notification outbox stats", e);
+        }
+    }
+
+    private double lagSeconds() {
+        Instant oldest = oldestPendingAt;
+        return oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis() / 1000.0);
+    }
+}
@@ -0,0 +1,199 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import project.demo.dto.NotificationDtos;
+import project.demo.event.NotificationCreatedEvent;
+import project.demo.repository.NotificationRepository;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out notification mới (sau commit) tới các SSE stream đang mở của recipient, trong cùng process.
+ *
+ * <p>Mỗi stream có 1 buffer giới hạn + 1 virtual thread ghi: thread publish chỉ offer vào buffer, không bao giờ
+ * chờ socket của client chậm. Buffer đầy thì đóng stream — client reconnect với Last-Event-ID và đọc bù từ bảng
+ * notifications. Stream rảnh chỉ tốn 1 virtual thread đang park + 1 connection NIO của Tomcat (không giữ thread
+ * servlet), heartbeat là comment SSE gửi khi không có event trong heartbeat-seconds.
+ *
+ * <p>Notification được gộp thêm lần xảy ra (NotificationCoalescer) gửi lại cùng id nhưng không kèm field id của SSE,
+ * để Last-Event-ID của client không lùi; client cập nhật theo id trong data.
+ */
+@Slf4j
+@Component
+public class NotificationHub {
+
+    static final String EVENT_NAME = "notification";
+    // bỏ lỡ nhiều hơn max-replay: client nên tải lại feed thay vì chờ replay
+    static final String RESYNC_EVENT = "resync";
+    private static final int REPLAY_PAGE = 200;
+
+    private final NotificationRepository notificationRepository;
+    private final long timeoutMillis;
+    private final long heartbeatMillis;
+    private final int bufferSize;
+    private final int maxReplay;
+
+    private final Map<Long, Set<Stream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final Counter overflows;
+
+    public NotificationHub(
+            NotificationRepository notificationRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.notification.stream.timeout-minutes:30}") long timeoutMinutes,
+            @Value("${app.notification.stream.heartbeat-seconds:25}") long heartbeatSeconds,
+            @Value("${app.notification.stream.buffer-size:256}") int bufferSize,
+            @Value("${app.notification.stream.max-replay:1000}") int maxReplay
+    ) {
+        this.notificationRepository = notificationRepository;
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(Math.max(1, timeoutMinutes));
+        this.heartbeatMillis = TimeUnit.SECONDS.toMillis(Math.max(1, heartbeatSeconds));
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxReplay = Math.max(0, maxReplay);
+
+        Gauge.builder("notification.stream.open", open, AtomicInteger::get).register(meterRegistry);
+        this.overflows = Counter.builder("notification.stream.overflows")
+                .description("Stream bị đóng vì client đọc không kịp")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Mở stream cho recipient. lastEventId != null: gửi lại các notification có id lớn hơn (tối đa max-replay)
+     * trước khi chuyển sang event live.
+     */
+    public SseEmitter subscribe(Long recipientId, Long lastEventId) {
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Stream s = new Stream(recipientId, emitter);
+        // đăng ký trước khi replay: event commit trong lúc replay nằm trong buffer, trùng id thì writer bỏ qua
+        streams.computeIfAbsent(recipientId, k -> ConcurrentHashMap.newKeySet()).add(s);
+        open.incrementAndGet();
+        emitter.onCompletion(s::close);
+        emitter.onTimeout(s::close);
+        emitter.onError(e -> s.close());
+        s.writer = Thread.ofVirtual().name("sse-" + recipientId).start(() -> s.run(lastEventId));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent e) {
+        Set<Stream> set = streams.get(e.recipientId());
+        if (set == null) return;
+        for (Stream s : set) {
+            if (!s.buffer.offer(e)) {
+                overflows.increment();
+                log.debug("SSE buffer full for recipient {}, closing stream", e.recipientId());
+                s.emitter.complete();
+                s.close();
+            }
+        }
+    }
+
+    int openStreams() {
+        return open.get();
+    }
+
+    // tách ra để test thay bằng emitter ghi lại event
+    SseEmitter newEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Set<Stream> set : streams.values()) {
+            for (Stream s : set) {
+                s.emitter.complete();
+                s.close();
+            }
+        }
+    }
+
+    private final class Stream {
+
+        final Long recipientId;
+        final SseEmitter emitter;
+        final BlockingQueue<NotificationCreatedEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        volatile Thread writer;
+        private volatile boolean closed;
+        private long lastSentId;
+
+        Stream(Long recipientId, SseEmitter emitter) {
+            this.recipientId = recipientId;
+            this.emitter = emitter;
+        }
+
+        void run(Long lastEventId) {
+            try {
+                emitter.send(SseEmitter.event().comment("connected").reconnectTime(3000));
+                if (lastEventId != null) replay(lastEventId);
+                while (!closed) {
+                    NotificationCreatedEvent e = buffer.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (e == null) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else if (e.merged()) {
+                        emitter.send(SseEmitter.event().name(EVENT_NAME).data(e.notification(), MediaType.APPLICATION_JSON));
+                    } else if (e.notification().id() == null || e.notification().id() > lastSentId) {
+                        send(e.notification());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // client đã ngắt / emitter đã complete
+                emitter.completeWithError(e);
+            } finally {
+                close();
+            }
+        }
+
+        private void replay(long afterId) throws IOException {
+            lastSentId = afterId;
+            int sent = 0;
+            while (!closed && sent < maxReplay) {
+                var page = notificationRepository.findByRecipientIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(
+                        recipientId, lastSentId, Limit.of(Math.min(REPLAY_PAGE, maxReplay - sent)));
+                for (var n : page) send(NotificationDtos.fromEntity(n));
+                sent += page.size();
+                if (page.isEmpty() || (page.size() < REPLAY_PAGE && sent < maxReplay)) return;
+            }
+            if (!closed && sent >= maxReplay) emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+        }
+
+        private void send(NotificationDtos.NotificationResponse n) throws IOException {
+            var event = SseEmitter.event().name(EVENT_NAME).data(n, MediaType.APPLICATION_JSON);
+            if (n.id() != null) {
+                event.id(String.valueOf(n.id()));
+                lastSentId = n.id();
+            }
+            emitter.send(event);
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            Set<Stream> set = streams.get(recipientId);
+            if (set != null && set.remove(this)) {
+                open.decrementAndGet();
+                streams.computeIfPresent(recipientId, (k, v) -> v.isEmpty() ? null : v);
+            }
+            Thread w = writer;
+            if (w != null && w != Thread.currentThread()) w.interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package project.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import project.demo.dto.NotificationDtos;
+import project.demo.enums.NotificationType;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Ghi notification vào notification_outbox trong transaction hiện tại của caller (JdbcTemplate dùng chung
+ * connection của transaction JPA): task commit thì notification chắc chắn được tạo sau, rollback thì không.
+ * Không lookup user, không FK — việc tạo Notification thật do {@link NotificationDispatcher} làm ngoài transaction task.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxWriter {
+
+    static final String INSERT_SQL = "INSERT INTO notification_outbox "
+            + "(recipient_id, actor_id, type, message, task_id, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void append(Long recipientId, Long actorId, NotificationType type, String message, Long taskId) {
+        appendAll(List.of(new NotificationDtos.NewNotification(recipientId, actorId, type, message, taskId)));
+    }
+
+    public void appendAll(List<NotificationDtos.NewNotification> notifications) {
+        if (notifications.isEmpty()) return;
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, notifications, 500, (ps, n) -> {
+            ps.setLong(1, n.recipientId());
+            ps.setObject(2, n.actorId(), Types.BIGINT);
+            ps.setString(3, n.type().name());
+            ps.setString(4, n.message());
+            ps.setObject(5, n.taskId(), Types.BIGINT);
+            ps.setTimestamp(6, now, Calendar.getInstance(UTC));
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.demo.event.NotificationsReadEvent;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Xoá hẳn notification hết hạn: đã đọc quá read-ttl-days (tính từ read_at), chưa đọc quá unread-ttl-days và dòng
+ * active = false quá read-ttl-days (tính từ created_at).
+ *
+ * <p>Đi theo khoảng id (PK) tăng dần, mỗi khoảng batch-size id là 1 transaction ngắn, nghỉ pause-ms giữa các lô có xoá.
+ * Notification chưa đọc bị xoá thì trừ users.unread_notifications cùng transaction. Chỉ instance giữ lease
+ * {@value #LEASE} chạy; quá max-runtime-minutes thì dừng, lần sau đi lại từ MIN(id).
+ *
+ * <p>Lịch cron chỉ chuyển việc sang thread riêng rồi trả thread scheduler ngay (pause giữa các lô có thể kéo dài
+ * tới max-runtime); lần chạy trước chưa xong thì bỏ qua lần này.
+ */
+@Slf4j
+@Component
+public class NotificationRetentionJob {
+
+    static final String LEASE = "notification-retention";
+
+    static final String MIN_ID_SQL = "SELECT MIN(id) FROM notifications";
+
+    static final String MAX_ID_SQL = "SELECT MAX(id) FROM notifications";
+
+    // id tăng theo created_at: dòng hết hạn đều có created_at < cutoff muộn nhất nên nằm trước id này (idx_notif_created)
+    static final String FIRST_ID_AFTER_SQL = "SELECT id FROM notifications WHERE created_at >= ? "
+            + "ORDER BY created_at, id LIMIT 1";
+
+    // khoá trước các dòng chưa đọc sắp xoá để đếm chính xác phần badge cần trừ
+    static final String SELECT_UNREAD_SQL = "SELECT recipient_id FROM notifications "
+            + "WHERE id >= ? AND id < ? AND active = true AND read_at IS NULL AND created_at < ? FOR UPDATE";
+
+    static final String DELETE_SQL = """
+            DELETE FROM notifications
+            WHERE id >= ? AND id < ?
+              AND ((read_at IS NOT NULL AND read_at < ?)
+                   OR (read_at IS NULL AND created_at < ?)
+                   OR (active = false AND created_at < ?))
+            """;
+
+    static final String SUB_UNREAD_SQL = "UPDATE users SET unread_notifications = GREATEST(unread_notifications - ?, 0) "
+            + "WHERE id = ?";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeases leases;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate batchTx;
+
+    private final boolean enabled;
+    private final Duration readTtl;
+    private final Duration unreadTtl;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final Duration maxRuntime;
+
+    private final Counter purgedRead;
+    private final Counter purgedUnread;
+    private final Timer duration;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("notification-retention").factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public NotificationRetentionJob(
+            JdbcTemplate jdbcTemplate,
+            JobLeases leases,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.notification.retention.enabled:true}") boolean enabled,
+            @Value("${app.notification.retention.read-ttl-days:30}") long readTtlDays,
+            @Value("${app.notification.retention.unread-ttl-days:90}") long unreadTtlDays,
+            @Value("${app.notification.retention.batch-size:1000}") int batchSize,
+            @Value("${app.notification.retention.pause-ms:100}") long pauseMillis,
+            @Value("${app.notification.retention.max-runtime-minutes:10}") long maxRuntimeMinutes
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leases = leases;
+        this.eventPublisher = eventPublisher;
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.readTtl = Duration.ofDays(Math.max(1, readTtlDays));
+        this.unreadTtl = Duration.ofDays(Math.max(1, unreadTtlDays));
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+        this.maxRuntime = Duration.ofMinutes(Math.max(1, maxRuntimeMinutes));
+
+        this.purgedRead = Counter.builder("notification.retention.purged").tag("state", "read")
+                .description("Notification đã đọc / inactive bị xoá vì hết hạn").register(meterRegistry);
+        this.purgedUnread = Counter.builder("notification.retention.purged").tag("state", "unread")
+                .description("Notification chưa đọc bị xoá vì hết hạn").register(meterRegistry);
+        this.duration = Timer.builder("notification.retention.duration")
+                .description("Thời gian 1 lần chạy purge (chỉ tính lần giữ lease)").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.notification.retention.cron:0 0 4 * * *}", zone = "UTC")
+    public void scheduledPurge() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        runner.execute(() -> {
+            try {
+                int n = purgeExpired();
+                if (n > 0) log.info("Purged {} expired notification(s)", n);
+            } catch (Exception e) {
+                log.error("Notification retention purge failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /** @return số notification đã xoá; -1 nếu instance khác đang giữ lease */
+    public synchronized int purgeExpired() {
+        // lease dài hơn thời gian chạy tối đa để không hết hạn giữa chừng
+        if (!leases.tryAcquire(LEASE, maxRuntime.plusMinutes(1))) return -1;
+        long start = System.nanoTime();
+        try {
+            return purge(Instant.now(), start);
+        } finally {
+            duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            leases.release(LEASE);
+        }
+    }
+
+    private int purge(Instant now, long startNanos) {
+        Timestamp readCutoff = Timestamp.from(now.minus(readTtl));
+        Timestamp unreadCutoff = Timestamp.from(now.minus(unreadTtl));
+        Timestamp latest = readCutoff.after(unreadCutoff) ? readCutoff : unreadCutoff;
+
+        Long minId = jdbcTemplate.queryForObject(MIN_ID_SQL, Long.class);
+        if (minId == null) return 0;
+        Long endId = jdbcTemplate.query(FIRST_ID_AFTER_SQL, ps -> ps.setTimestamp(1, latest, utc()),
+                rs -> rs.next() ? rs.getLong(1) : null);
+        if (endId == null) {
+            Long maxId = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+            endId = maxId == null ? minId : maxId + 1;
+        }
+
+        long deadline = startNanos + maxRuntime.toNanos();
+        int total = 0;
+        for (long lo = minId; lo < endId; lo += batchSize) {
+            long from = lo;
+            long to = Math.min(lo + batchSize, endId);
+            Integer n = batchTx.execute(s -> purgeRange(from, to, readCutoff, unreadCutoff));
+            total += n == null ? 0 : n;
+
+            if (System.nanoTime() - deadline > 0) {
+                log.info("Notification retention stopped at id {} after {}, continuing next run", to, maxRuntime);
+                break;
+            }
+            if (n != null && n > 0 && pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    private int purgeRange(long from, long to, Timestamp readCutoff, Timestamp unreadCutoff) {
+        Map<Long, Integer> unread = new TreeMap<>();
+        jdbcTemplate.query(SELECT_UNREAD_SQL, ps -> {
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            ps.setTimestamp(3, unreadCutoff, utc());
+        }, (RowCallbackHandler) rs -> unread.merge(rs.getLong(1), 1, Integer::sum));
+
+        int deleted = jdbcTemplate.update(DELETE_SQL, ps -> {
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            ps.setTimestamp(3, readCutoff, utc());
+            ps.setTimestamp(4, unreadCutoff, utc());
+            ps.setTimestamp(5, readCutoff, utc());
+        });
+        if (deleted == 0) return 0;
+
+        int unreadDeleted = 0;
+        if (!unread.isEmpty()) {
+            // theo thứ tự user id như createNotifications để không deadlock trên dòng users
+            jdbcTemplate.batchUpdate(SUB_UNREAD_SQL, new ArrayList<>(unread.entrySet()), 500, (ps, e) -> {
+                ps.setInt(1, e.getValue());
+                ps.setLong(2, e.getKey());
+            });
+            for (var e : unread.entrySet()) {
+                eventPublisher.publishEvent(new NotificationsReadEvent(e.getKey(), e.getValue()));
+                unreadDeleted += e.getValue();
+            }
+        }
+        purgedUnread.increment(unreadDeleted);
+        purgedRead.increment(deleted - unreadDeleted);
+        return deleted;
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(UTC);
+    }
+}
@@ -3,9 +3,11 @@ package project.demo.service;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import project.demo.dto.NotificationDtos;
+import project.demo.dto.TaskDtos;
 import project.demo.enums.NotificationType;
 
 import java.time.Instant;
+import java.util.List;
 
 public interface NotificationService {
 
@@ -15,6 +17,9 @@ public interface NotificationService {
                             String message,
                             Long taskId);
 
+    // tạo nhiều notification trong 1 JDBC batch (NotificationDispatcher drain outbox)
+    void createNotifications(List<NotificationDtos.NewNotification> notifications);
+
     Page<NotificationDtos.NotificationResponse> listMyNotifications(
             Long meId,
             Boolean unreadOnly,
@@ -24,7 +29,22 @@ public interface NotificationService {
             Pageable pageable
     );
 
+    // keyset, không COUNT: unreadFirst = chưa đọc (mới -> cũ) rồi tới đã đọc; unreadOnly = chỉ phần chưa đọc
+    TaskDtos.CursorPage<NotificationDtos.NotificationResponse> feed(
+            Long meId,
+            boolean unreadFirst,
+            boolean unreadOnly,
+            String cursor,
+            int size
+    );
+
     void markRead(Long meId, Long notificationId);
 
-    void markAllRead(Long meId);
+    // 1 UPDATE theo tập, trả về số notification vừa chuyển sang đã đọc
+    int markAllRead(Long meId);
+
+    int markReadMatching(Long meId, NotificationDtos.MarkReadRequest req);
+
+    // badge: từ counter trong process, không query
+    int unreadCount(Long meId);
 }
@@ -1,20 +1,31 @@
 package project.demo.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.demo.dto.NotificationDtos;
+import project.demo.dto.TaskDtos;
 import project.demo.entity.Notification;
 import project.demo.entity.User;
 import project.demo.enums.NotificationType;
+import project.demo.event.NotificationCreatedEvent;
+import project.demo.event.NotificationsReadEvent;
 import project.demo.repository.NotificationRepository;
 import project.demo.repository.UserRepository;
 import project.demo.spec.NotificationSpecifications;
+import project.demo.util.CursorUtil;
 
+import java.sql.*;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -22,18 +33,29 @@ public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UnreadNotificationCounter unreadCounter;
+    private final NotificationCoalescer coalescer;
+
+    private static final String INSERT_SQL = "INSERT INTO notifications "
+            + "(recipient_id, actor_id, type, message, task_id, occurrences, created_at, active, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, true, 0)";
+
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    // section đầu cursor feed: A = mọi notification, U = chưa đọc, R = đã đọc (unread-first đi U rồi R)
+    private static final String FEED_ALL = "A";
+    private static final String FEED_UNREAD = "U";
+    private static final String FEED_READ = "R";
+
+    private static final String ADD_UNREAD_SQL = "UPDATE users SET unread_notifications = unread_notifications + ? WHERE id = ?";
 
     @Override
     @Transactional
     public void createNotification(Long recipientId, Long actorId, NotificationType type, String message, Long taskId) {
-        User recipient = userRepository.findById(recipientId)
-                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
-
-        User actor = null;
-        if (actorId != null) {
-            actor = userRepository.findById(actorId)
-                    .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
-        }
+        // chỉ cần FK: reference theo id, không SELECT user (caller đã kiểm tra recipient / actor tồn tại)
+        User recipient = userRepository.getReferenceById(recipientId);
+        User actor = actorId == null ? null : userRepository.getReferenceById(actorId);
 
         Notification n = Notification.builder()
                 .recipient(recipient)
@@ -44,7 +66,66 @@ public class NotificationServiceImpl implements NotificationService {
                 .active(true)
                 .build();
 
-        notificationRepository.save(n);
+        n = notificationRepository.save(n);
+        userRepository.addUnreadNotifications(recipientId, 1);
+        eventPublisher.publishEvent(new NotificationCreatedEvent(recipientId, NotificationDtos.fromEntity(n)));
+    }
+
+    @Override
+    @Transactional
+    public void createNotifications(List<NotificationDtos.NewNotification> notifications) {
+        if (notifications.isEmpty()) return;
+        Instant now = Instant.now();
+        // burst cùng (recipient, task, type): gộp trong lô + vào dòng chưa đọc trong cửa sổ, chỉ INSERT phần còn lại
+        NotificationCoalescer.Result plan = coalescer.coalesce(notifications, now);
+        List<NotificationCoalescer.Pending> inserts = plan.inserts();
+        plan.merged().forEach(eventPublisher::publishEvent);
+        if (inserts.isEmpty()) return;
+
+        // IDENTITY nên Hibernate không batch được insert -> JDBC batch (multi-row với rewriteBatchedStatements),
+        // lấy lại id sinh ra để phát event (SSE dùng id làm Last-Event-ID)
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                Timestamp ts = Timestamp.from(now);
+                Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+                for (var p : inserts) {
+                    var n = p.notification();
+                    ps.setLong(1, n.recipientId());
+                    ps.setObject(2, n.actorId(), Types.BIGINT);
+                    ps.setString(3, n.type().name());
+                    ps.setString(4, n.message());
+                    ps.setObject(5, n.taskId(), Types.BIGINT);
+                    ps.setInt(6, p.occurrences());
+                    ps.setTimestamp(7, ts, utc);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> keys = new ArrayList<>(inserts.size());
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next()) keys.add(rs.getLong(1));
+                }
+                if (keys.size() != inserts.size()) {
+                    throw new SQLException("Expected " + inserts.size() + " generated keys, got " + keys.size());
+                }
+                return keys;
+            }
+        });
+
+        // badge: chỉ dòng mới; 1 UPDATE / recipient, theo thứ tự id để 2 batch đồng thời không deadlock trên dòng users
+        Map<Long, Integer> perRecipient = new TreeMap<>();
+        for (var p : inserts) perRecipient.merge(p.notification().recipientId(), 1, Integer::sum);
+        jdbcTemplate.batchUpdate(ADD_UNREAD_SQL, new ArrayList<>(perRecipient.entrySet()), 500, (ps, e) -> {
+            ps.setInt(1, e.getValue());
+            ps.setLong(2, e.getKey());
+        });
+
+        for (int i = 0; i < inserts.size(); i++) {
+            var p = inserts.get(i);
+            var n = p.notification();
+            eventPublisher.publishEvent(new NotificationCreatedEvent(n.recipientId(), new NotificationDtos.NotificationResponse(
+                    ids.get(i), n.type(), n.message(), n.taskId(), now, null, p.occurrences())));
+        }
     }
 
     @Override
@@ -62,6 +143,66 @@ public class NotificationServiceImpl implements NotificationService {
         return notificationRepository.findAll(spec, pageable).map(NotificationDtos::fromEntity);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public TaskDtos.CursorPage<NotificationDtos.NotificationResponse> feed(
+            Long meId, boolean unreadFirst, boolean unreadOnly, String cursor, int size
+    ) {
+        int limit = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        String firstSection = unreadFirst || unreadOnly ? FEED_UNREAD : FEED_ALL;
+        boolean thenRead = unreadFirst && !unreadOnly;
+
+        String section = firstSection;
+        Instant createdAt = null;
+        Long id = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] c = CursorUtil.decode(cursor, 3);
+            section = c[0];
+            // cursor của feed khác chế độ -> không dùng được
+            if (!section.equals(firstSection) && !(thenRead && section.equals(FEED_READ))) {
+                throw new RuntimeException("INVALID_CURSOR");
+            }
+            try {
+                createdAt = Instant.parse(c[1]);
+                id = Long.valueOf(c[2]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new RuntimeException("INVALID_CURSOR");
+            }
+        }
+
+        List<Notification> rows = new ArrayList<>(feedSection(meId, section, createdAt, id, limit + 1));
+        if (thenRead && section.equals(FEED_UNREAD) && rows.size() <= limit) {
+            // hết phần chưa đọc -> nối phần đã đọc từ đầu trong cùng trang
+            rows.addAll(feedSection(meId, FEED_READ, null, null, limit + 1 - rows.size()));
+        }
+
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) rows = rows.subList(0, limit);
+
+        String next = null;
+        if (hasNext) {
+            Notification last = rows.get(rows.size() - 1);
+            String lastSection = firstSection.equals(FEED_ALL) ? FEED_ALL : last.getReadAt() == null ? FEED_UNREAD : FEED_READ;
+            next = CursorUtil.encode(lastSection, last.getCreatedAt().toString(), String.valueOf(last.getId()));
+        }
+        return new TaskDtos.CursorPage<>(rows.stream().map(NotificationDtos::fromEntity).toList(), next, hasNext);
+    }
+
+    private List<Notification> feedSection(Long meId, String section, Instant createdAt, Long id, int limit) {
+        Limit l = Limit.of(limit);
+        return switch (section) {
+            case FEED_UNREAD -> createdAt == null
+                    ? notificationRepository.findByRecipientIdAndActiveTrueAndReadAtIsNullOrderByCreatedAtDescIdDesc(meId, l)
+                    : notificationRepository.findUnreadFeedBefore(meId, createdAt, id, l);
+            case FEED_READ -> createdAt == null
+                    ? notificationRepository.findByRecipientIdAndActiveTrueAndReadAtIsNotNullOrderByCreatedAtDescIdDesc(meId, l)
+                    : notificationRepository.findReadFeedBefore(meId, createdAt, id, l);
+            default -> createdAt == null
+                    ? notificationRepository.findByRecipientIdAndActiveTrueOrderByCreatedAtDescIdDesc(meId, l)
+                    : notificationRepository.findFeedBefore(meId, createdAt, id, l);
+        };
+    }
+
     @Override
     @Transactional
     public void markRead(Long meId, Long notificationId) {
@@ -71,15 +212,54 @@ public class NotificationServiceImpl implements NotificationService {
         if (n.getReadAt() == null) {
             n.setReadAt(Instant.now());
             notificationRepository.save(n);
+            userRepository.addUnreadNotifications(meId, -1);
+            eventPublisher.publishEvent(new NotificationsReadEvent(meId, 1));
         }
     }
 
     @Override
     @Transactional
-    public void markAllRead(Long meId) {
-        var list = notificationRepository.findAllByRecipientIdAndActiveTrueAndReadAtIsNull(meId);
+    public int markAllRead(Long meId) {
+        return afterMarkRead(meId, notificationRepository.markAllRead(meId, Instant.now()));
+    }
+
+    @Override
+    @Transactional
+    public int markReadMatching(Long meId, NotificationDtos.MarkReadRequest req) {
+        boolean byIds = req.ids() != null && !req.ids().isEmpty();
+        boolean byRange = req.from() != null || req.to() != null;
+        int criteria = (byIds ? 1 : 0) + (req.type() != null ? 1 : 0) + (req.taskId() != null ? 1 : 0) + (byRange ? 1 : 0);
+        if (criteria == 0) throw new RuntimeException("MARK_READ_CRITERIA_REQUIRED");
+        if (criteria > 1) throw new RuntimeException("MARK_READ_SINGLE_CRITERIA");
+
         Instant now = Instant.now();
-        for (var n : list) n.setReadAt(now);
-        notificationRepository.saveAll(list);
+        int updated;
+        if (byIds) {
+            updated = notificationRepository.markReadByIds(meId, new HashSet<>(req.ids()), now);
+        } else if (req.type() != null) {
+            updated = notificationRepository.markReadByType(meId, req.type(), now);
+        } else if (req.taskId() != null) {
+            updated = notificationRepository.markReadByTask(meId, req.taskId(), now);
+        } else {
+            Instant from = req.from() == null ? Instant.EPOCH : req.from();
+            Instant to = req.to() == null ? now.plusSeconds(1) : req.to();
+            if (!from.isBefore(to)) throw new RuntimeException("INVALID_TIME_RANGE");
+            updated = notificationRepository.markReadCreatedBetween(meId, from, to, now);
+        }
+        return afterMarkRead(meId, updated);
+    }
+
+    // badge trừ đúng số dòng UPDATE đổi (dòng đã đọc / không phải của mình không được tính)
+    private int afterMarkRead(Long meId, int updated) {
+        if (updated > 0) {
+            userRepository.addUnreadNotifications(meId, -updated);
+            eventPublisher.publishEvent(new NotificationsReadEvent(meId, updated));
+        }
+        return updated;
+    }
+
+    @Override
+    public int unreadCount(Long meId) {
+        return unreadCounter.get(meId);
     }
 }
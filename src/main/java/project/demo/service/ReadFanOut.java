@@ -0,0 +1,149 @@
+package project.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Chạy song song các query đọc độc lập (vd. subtasks / comments / logs của task detail) trên virtual thread.
+ * Mỗi query chạy trong transaction read-only riêng => connection riêng từ pool.
+ *
+ * <p>max-concurrency là số connection fan-out được dùng trên toàn app, tính cả connection mà thread gọi đang giữ
+ * (transaction ngoài / open-in-view) trong lúc chờ join: mỗi group giữ 1 permit cho thread gọi + 1 permit / query
+ * đang chạy. Nhờ vậy các request chờ fork không thể chiếm hết pool rồi cùng đợi connection cho fork của mình.
+ * Không lấy được permit thì chạy luôn trên thread gọi (trong transaction hiện tại, không thêm connection).
+ */
+@Component
+public class ReadFanOut {
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ReadFanOut(
+            PlatformTransactionManager transactionManager,
+            @Value("${app.fan-out.enabled:true}") boolean enabled,
+            @Value("${app.fan-out.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.fan-out.timeout-ms:3000}") long timeoutMillis
+    ) {
+        // cần ít nhất 2 permit: thread gọi + 1 query
+        this.enabled = enabled && maxConcurrency > 1;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(Math.max(0, maxConcurrency));
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis + 999)));
+    }
+
+    /** Bắt đầu 1 nhóm query; kết quả lấy bằng {@link Fork#get()} sau khi {@link Group#join()} (luôn phải join). */
+    public Group group() {
+        return new Group();
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public final class Group {
+
+        private final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        private final List<Fork<?>> pending = new ArrayList<>();
+        // null = chưa fork gì; false = không lấy được permit cho thread gọi -> mọi query chạy inline
+        private Boolean callerPermit;
+
+        public <T> Fork<T> fork(Supplier<T> query) {
+            if (callerPermit == null) callerPermit = enabled && permits.tryAcquire();
+            if (!callerPermit || !permits.tryAcquire()) {
+                return new Fork<>(CompletableFuture.completedFuture(query.get()), null);
+            }
+            // permit của query được trả đúng 1 lần: bởi query (nếu đã bắt đầu chạy) hoặc bởi cancelAll (nếu chưa)
+            AtomicBoolean claimed = new AtomicBoolean();
+            Future<T> f;
+            try {
+                f = executor.submit(() -> {
+                    if (!claimed.compareAndSet(false, true)) return null;
+                    try {
+                        return readOnlyTx.execute(status -> query.get());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                return new Fork<>(CompletableFuture.completedFuture(query.get()), null);
+            }
+            Fork<T> fork = new Fork<>(f, claimed);
+            pending.add(fork);
+            return fork;
+        }
+
+        /** Chờ tất cả query đã fork; quá timeout thì huỷ phần còn lại và báo lỗi. */
+        public void join() {
+            try {
+                for (Fork<?> fork : pending) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) throw new TimeoutException();
+                    fork.future.get(left, TimeUnit.NANOSECONDS);
+                }
+            } catch (TimeoutException e) {
+                cancelAll();
+                throw new RuntimeException("QUERY_TIMEOUT");
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("QUERY_INTERRUPTED");
+            } catch (ExecutionException e) {
+                cancelAll();
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new RuntimeException(e.getCause());
+            } finally {
+                if (Boolean.TRUE.equals(callerPermit)) {
+                    callerPermit = false;
+                    permits.release();
+                }
+            }
+        }
+
+        private void cancelAll() {
+            for (Fork<?> fork : pending) {
+                // chưa bắt đầu: query sẽ không chạy nữa (và không tự trả permit) -> trả ở đây
+                if (fork.claimed.compareAndSet(false, true)) permits.release();
+                fork.future.cancel(true);
+            }
+        }
+    }
+
+    public static final class Fork<T> {
+
+        private final Future<T> future;
+        private final AtomicBoolean claimed;
+
+        private Fork(Future<T> future, AtomicBoolean claimed) {
+            this.future = future;
+            this.claimed = claimed;
+        }
+
+        /** Chỉ gọi sau {@link Group#join()}. */
+        public T get() {
+            if (!future.isDone()) throw new IllegalStateException("Group chưa join");
+            return future.resultNow();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import project.demo.entity.Tag;
 import project.demo.entity.Task;
 import project.demo.repository.TaskRepository;
 import project.demo.spec.TaskSpecifications;
@@ -12,6 +13,7 @@ import project.demo.spec.TaskSpecifications;
 import java.io.ByteArrayOutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -46,7 +48,7 @@ public class ReportService {
                 row.createCell(2).setCellValue(String.valueOf(t.getStatus()));
                 row.createCell(3).setCellValue(String.valueOf(t.getPriority()));
                 row.createCell(4).setCellValue(t.getDueDate() == null ? "" : df.format(t.getDueDate()));
-                row.createCell(5).setCellValue(String.join(",", t.getTags()));
+                row.createCell(5).setCellValue(t.getTags().stream().map(Tag::getName).sorted().collect(Collectors.joining(",")));
             }
 
             for (int i = 0; i <= 5; i++) sheet.autoSizeColumn(i);
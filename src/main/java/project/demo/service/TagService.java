@@ -0,0 +1,76 @@
+package project.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import project.demo.dto.TaskDtos;
+import project.demo.entity.Tag;
+import project.demo.repository.TagRepository;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class TagService {
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final TagRepository tagRepository;
+
+    public static Set<String> normalizeAll(Collection<String> raw) {
+        Set<String> out = new LinkedHashSet<>();
+        if (raw == null) return out;
+        for (String r : raw) {
+            String n = Tag.normalize(r);
+            if (n != null) out.add(n);
+        }
+        return out;
+    }
+
+    // tên -> Tag, tạo mới những tên chưa có trong dictionary
+    @Transactional
+    public Set<Tag> resolveOrCreate(Collection<String> rawNames) {
+        Set<String> names = normalizeAll(rawNames);
+        if (names.isEmpty()) return new HashSet<>();
+
+        Set<Tag> tags = new HashSet<>(tagRepository.findAllByNameIn(names));
+        Set<String> missing = new HashSet<>(names);
+        for (Tag t : tags) missing.remove(t.getName());
+
+        if (!missing.isEmpty()) {
+            for (String name : missing) tagRepository.insertIgnore(name);
+            tags.addAll(tagRepository.findAllByNameIn(missing));
+        }
+        return tags;
+    }
+
+    // chỉ lookup, không tạo: tên không có trong dictionary thì không có trong map
+    @Transactional(readOnly = true)
+    public Map<String, Integer> idsByName(Collection<String> rawNames) {
+        Set<String> names = normalizeAll(rawNames);
+        if (names.isEmpty()) return Map.of();
+
+        Map<String, Integer> out = new HashMap<>();
+        for (Tag t : tagRepository.findAllByNameIn(names)) out.put(t.getName(), t.getId());
+        return out;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Integer, String> namesById(Collection<Integer> ids) {
+        if (ids.isEmpty()) return Map.of();
+
+        Map<Integer, String> out = new HashMap<>();
+        for (Tag t : tagRepository.findAllById(ids)) out.put(t.getId(), t.getName());
+        return out;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskDtos.TagResponse> autocomplete(String prefix, int limit) {
+        String p = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return tagRepository.findAllByNameStartingWithOrderByNameAsc(p, PageRequest.of(0, size)).stream()
+                .map(t -> new TaskDtos.TagResponse(t.getId(), t.getName()))
+                .toList();
+    }
+}
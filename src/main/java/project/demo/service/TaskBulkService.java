@@ -0,0 +1,264 @@
+package project.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import project.demo.dto.NotificationDtos;
+import project.demo.dto.TaskDtos;
+import project.demo.entity.Tag;
+import project.demo.entity.TaskLog;
+import project.demo.entity.User;
+import project.demo.enums.NotificationType;
+import project.demo.enums.Role;
+import project.demo.enums.TaskLogAction;
+import project.demo.event.TaskChangedEvent;
+import project.demo.repository.TaskRepository;
+import project.demo.repository.UserRepository;
+import project.demo.security.AuthenticatedUserContext;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Thao tác hàng loạt (ADMIN): chọn task theo ids hoặc filter của list, đọc before-image bằng 1 query / 1000 id,
+ * UPDATE set-based chỉ trên các task thật sự đổi, rồi ghi audit + notification theo lô.
+ * Trả kết quả theo từng id: UPDATED / UNCHANGED / NOT_FOUND.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskBulkService {
+
+    // giới hạn tham số IN (...) mỗi câu
+    private static final int CHUNK = 1000;
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final TaskService taskService;
+    private final TagService tagService;
+    private final NotificationOutboxWriter notificationOutbox;
+    private final AuditLogWriter auditLog;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.bulk.max-tasks:5000}")
+    private int maxTasks;
+
+    @Transactional
+    public TaskDtos.BulkResult assign(Long actorId, TaskDtos.BulkTaskRequest req) {
+        User actor = mustAdmin(actorId);
+        if (req.assigneeId() == null) throw new RuntimeException("ASSIGNEE_REQUIRED");
+        User assignee = userRepository.findById(req.assigneeId()).orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
+
+        Targets targets = resolve(actor, req);
+        List<TaskRepository.BulkRow> changed = targets.rows().stream()
+                .filter(r -> !Objects.equals(r.getAssigneeId(), assignee.getId()))
+                .toList();
+        Instant now = Instant.now();
+        forChunks(ids(changed), chunk -> taskRepository.bulkAssign(chunk, assignee, now));
+
+        List<NotificationDtos.NewNotification> notifications = new ArrayList<>();
+        for (var r : changed) {
+            log(r.getId(), actor, TaskLogAction.ASSIGNED, "assigneeId",
+                    r.getAssigneeId() == null ? null : String.valueOf(r.getAssigneeId()), String.valueOf(assignee.getId()));
+            notifications.add(new NotificationDtos.NewNotification(assignee.getId(), actor.getId(),
+                    NotificationType.TASK_ASSIGNED, "You were assigned to task: " + r.getTitle(), r.getId()));
+        }
+        notificationOutbox.appendAll(notifications);
+        return finish(targets, changed, true);
+    }
+
+    @Transactional
+    public TaskDtos.BulkResult status(Long actorId, TaskDtos.BulkTaskRequest req) {
+        User actor = mustAdmin(actorId);
+        if (req.status() == null) throw new RuntimeException("STATUS_REQUIRED");
+
+        Targets targets = resolve(actor, req);
+        List<TaskRepository.BulkRow> changed = targets.rows().stream()
+                .filter(r -> r.getStatus() != req.status())
+                .toList();
+        Instant now = Instant.now();
+        forChunks(ids(changed), chunk -> taskRepository.bulkStatus(chunk, req.status(), now));
+
+        List<NotificationDtos.NewNotification> notifications = new ArrayList<>();
+        for (var r : changed) {
+            log(r.getId(), actor, TaskLogAction.STATUS_CHANGED, "status",
+                    String.valueOf(r.getStatus()), String.valueOf(req.status()));
+            if (r.getAssigneeId() != null) {
+                notifications.add(new NotificationDtos.NewNotification(r.getAssigneeId(), actor.getId(),
+                        NotificationType.TASK_STATUS_CHANGED,
+                        "Task status changed: " + r.getTitle() + " -> " + req.status(), r.getId()));
+            }
+        }
+        notificationOutbox.appendAll(notifications);
+        return finish(targets, changed, true);
+    }
+
+    @Transactional
+    public TaskDtos.BulkResult priority(Long actorId, TaskDtos.BulkTaskRequest req) {
+        User actor = mustAdmin(actorId);
+        if (req.priority() == null) throw new RuntimeException("PRIORITY_REQUIRED");
+
+        Targets targets = resolve(actor, req);
+        List<TaskRepository.BulkRow> changed = targets.rows().stream()
+                .filter(r -> r.getPriority() != req.priority())
+                .toList();
+        Instant now = Instant.now();
+        forChunks(ids(changed), chunk -> taskRepository.bulkPriority(chunk, req.priority(), now));
+
+        for (var r : changed) {
+            log(r.getId(), actor, TaskLogAction.UPDATED, "priority",
+                    String.valueOf(r.getPriority()), String.valueOf(req.priority()));
+        }
+        return finish(targets, changed, true);
+    }
+
+    /** Thêm / bớt tag (không thay cả bộ): INSERT IGNORE ... SELECT và DELETE theo tập (task, tag). */
+    @Transactional
+    public TaskDtos.BulkResult tags(Long actorId, TaskDtos.BulkTaskRequest req) {
+        User actor = mustAdmin(actorId);
+        boolean hasAdd = req.addTags() != null && !req.addTags().isEmpty();
+        boolean hasRemove = req.removeTags() != null && !req.removeTags().isEmpty();
+        if (!hasAdd && !hasRemove) throw new RuntimeException("TAGS_REQUIRED");
+
+        Targets targets = resolve(actor, req);
+
+        Map<Integer, String> addTags = new HashMap<>();
+        if (hasAdd) {
+            for (Tag t : tagService.resolveOrCreate(req.addTags())) addTags.put(t.getId(), t.getName());
+        }
+        Map<Integer, String> removeTags = new HashMap<>();
+        if (hasRemove) {
+            tagService.idsByName(req.removeTags()).forEach((name, id) -> removeTags.put(id, name));
+        }
+        removeTags.keySet().removeAll(addTags.keySet());
+
+        // link hiện có của các task với các tag liên quan -> biết task nào thật sự đổi
+        Set<Integer> allTagIds = new HashSet<>(addTags.keySet());
+        allTagIds.addAll(removeTags.keySet());
+        Map<Long, Set<Integer>> existing = new HashMap<>();
+        if (!allTagIds.isEmpty()) {
+            forChunks(ids(targets.rows()), chunk -> {
+                for (var l : taskRepository.findTagLinks(chunk, allTagIds)) {
+                    existing.computeIfAbsent(l.getTaskId(), k -> new HashSet<>()).add(l.getTagId());
+                }
+                return 0;
+            });
+        }
+
+        List<TaskRepository.BulkRow> changed = new ArrayList<>();
+        for (var r : targets.rows()) {
+            Set<Integer> has = existing.getOrDefault(r.getId(), Set.of());
+            Set<String> added = new TreeSet<>();
+            addTags.forEach((id, name) -> { if (!has.contains(id)) added.add(name); });
+            Set<String> removed = new TreeSet<>();
+            removeTags.forEach((id, name) -> { if (has.contains(id)) removed.add(name); });
+            if (added.isEmpty() && removed.isEmpty()) continue;
+
+            changed.add(r);
+            if (!added.isEmpty()) log(r.getId(), actor, TaskLogAction.UPDATED, "tags.add", null, String.valueOf(added));
+            if (!removed.isEmpty()) log(r.getId(), actor, TaskLogAction.UPDATED, "tags.remove", String.valueOf(removed), null);
+        }
+
+        Instant now = Instant.now();
+        List<Long> changedIds = ids(changed);
+        if (!addTags.isEmpty()) forChunks(changedIds, chunk -> taskRepository.linkTags(chunk, addTags.keySet()));
+        if (!removeTags.isEmpty()) forChunks(changedIds, chunk -> taskRepository.unlinkTags(chunk, removeTags.keySet()));
+        forChunks(changedIds, chunk -> taskRepository.bulkTouch(chunk, now));
+        return finish(targets, changed, true);
+    }
+
+    @Transactional
+    public TaskDtos.BulkResult softDelete(Long actorId, TaskDtos.BulkTaskRequest req) {
+        User actor = mustAdmin(actorId);
+
+        Targets targets = resolve(actor, req);
+        List<TaskRepository.BulkRow> changed = targets.rows();
+        Instant now = Instant.now();
+        forChunks(ids(changed), chunk -> taskRepository.bulkSoftDelete(chunk, now));
+
+        for (var r : changed) log(r.getId(), actor, TaskLogAction.DELETED, "active", "true", "false");
+        return finish(targets, changed, false);
+    }
+
+    // ---------- helpers ----------
+
+    private record Targets(Collection<Long> requested, List<TaskRepository.BulkRow> rows) {}
+
+    private User mustAdmin(Long actorId) {
+        User actor = AuthenticatedUserContext.find(actorId)
+                .or(() -> userRepository.findById(actorId))
+                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
+        if (actor.getRole() != Role.ADMIN) throw new RuntimeException("FORBIDDEN");
+        return actor;
+    }
+
+    private Targets resolve(User actor, TaskDtos.BulkTaskRequest req) {
+        boolean byIds = req.ids() != null && !req.ids().isEmpty();
+        if (byIds == (req.filter() != null)) throw new RuntimeException("BULK_TARGET_REQUIRED");
+
+        Collection<Long> requested = byIds
+                ? new LinkedHashSet<>(req.ids())
+                : taskRepository.findIds(taskService.filterSpec(actor, req.filter()));
+        if (requested.size() > maxTasks) throw new RuntimeException("BULK_TOO_MANY");
+
+        List<TaskRepository.BulkRow> rows = new ArrayList<>(requested.size());
+        forChunks(new ArrayList<>(requested), chunk -> {
+            rows.addAll(taskRepository.findBulkRows(chunk));
+            return 0;
+        });
+        rows.sort(Comparator.comparing(TaskRepository.BulkRow::getId));
+        return new Targets(requested, rows);
+    }
+
+    private TaskDtos.BulkResult finish(Targets targets, List<TaskRepository.BulkRow> changed, boolean active) {
+        // cache summary / search index nhận event sau commit như các thao tác đơn lẻ
+        for (var r : changed) {
+            eventPublisher.publishEvent(new TaskChangedEvent(r.getId(), r.getTitle(), null, active, false));
+        }
+
+        Set<Long> found = new HashSet<>(ids(targets.rows()));
+        Set<Long> updated = new HashSet<>(ids(changed));
+        List<TaskDtos.BulkItemResult> items = new ArrayList<>(targets.requested().size());
+        int unchanged = 0;
+        int notFound = 0;
+        for (Long id : targets.requested()) {
+            String outcome;
+            if (updated.contains(id)) {
+                outcome = "UPDATED";
+            } else if (found.contains(id)) {
+                outcome = "UNCHANGED";
+                unchanged++;
+            } else {
+                outcome = "NOT_FOUND";
+                notFound++;
+            }
+            items.add(new TaskDtos.BulkItemResult(id, outcome));
+        }
+        return new TaskDtos.BulkResult(found.size(), updated.size(), unchanged, notFound, items);
+    }
+
+    private void log(Long taskId, User actor, TaskLogAction action, String fieldName, String oldVal, String newVal) {
+        auditLog.append(TaskLog.builder()
+                .task(taskRepository.getReferenceById(taskId))
+                .actor(actor)
+                .action(action)
+                .fieldName(fieldName)
+                .oldValue(oldVal)
+                .newValue(newVal)
+                .build());
+    }
+
+    private static List<Long> ids(List<TaskRepository.BulkRow> rows) {
+        List<Long> out = new ArrayList<>(rows.size());
+        for (var r : rows) out.add(r.getId());
+        return out;
+    }
+
+    private static void forChunks(List<Long> ids, Function<List<Long>, Integer> action) {
+        for (int i = 0; i < ids.size(); i += CHUNK) {
+            action.apply(ids.subList(i, Math.min(i + CHUNK, ids.size())));
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package project.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import project.demo.dto.TaskDtos;
+import project.demo.entity.Tag;
+import project.demo.entity.User;
+import project.demo.enums.Role;
+import project.demo.enums.TaskPriority;
+import project.demo.repository.UserRepository;
+import project.demo.security.AuthenticatedUserContext;
+import project.demo.util.CsvReader;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Import task hàng loạt từ CSV / XLSX (ADMIN), chạy nền và báo tiến độ qua job id.
+ *
+ * <ul>
+ *   <li>File upload được chuyển thẳng xuống file tạm rồi đọc stream: CSV từng record, XLSX bằng SAX (XSSFReader),
+ *   không dựng workbook / không giữ cả file trong heap.</li>
+ *   <li>Mỗi dòng được validate theo rule của CreateTaskRequest; dòng lỗi được ghi lại (số dòng + lý do) và bỏ qua.</li>
+ *   <li>Assignee (email) và tag được resolve theo chunk, cache trong job: mỗi email / tag chỉ query 1 lần.</li>
+ *   <li>Mỗi chunk ghi + commit riêng qua {@link TaskImportWriter}; chunk lỗi DB thì rollback riêng chunk đó.</li>
+ * </ul>
+ * Header (không phân biệt hoa thường, bỏ khoảng trắng / _): title, description, priority, dueDate, tags, assigneeEmail.
+ * tags ngăn cách bởi ';' hoặc '|'.
+ */
+@Slf4j
+@Service
+public class TaskImportService {
+
+    private static final Set<String> REQUIRED_COLUMNS = Set.of("title", "priority");
+    private static final int MAX_RECORD_CHARS = 1_000_000;
+
+    private final UserRepository userRepository;
+    private final TagService tagService;
+    private final TaskImportWriter writer;
+    private final Validator validator;
+
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Duration retention;
+    private final Semaphore slots;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public TaskImportService(
+            UserRepository userRepository,
+            TagService tagService,
+            TaskImportWriter writer,
+            Validator validator,
+            @Value("${app.import.chunk-size:1000}") int chunkSize,
+            @Value("${app.import.max-errors:1000}") int maxErrors,
+            @Value("${app.import.max-concurrent:2}") int maxConcurrent,
+            @Value("${app.import.retention-minutes:60}") long retentionMinutes
+    ) {
+        this.userRepository = userRepository;
+        this.tagService = tagService;
+        this.writer = writer;
+        this.validator = validator;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxErrors = Math.max(0, maxErrors);
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        this.slots = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public TaskDtos.ImportJobResponse submit(Long actorId, MultipartFile file) {
+        mustAdmin(actorId);
+        if (file == null || file.isEmpty()) throw new RuntimeException("IMPORT_FILE_REQUIRED");
+        Format format = Format.of(file.getOriginalFilename(), file.getContentType());
+        if (!slots.tryAcquire()) throw new RuntimeException("IMPORT_BUSY");
+
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile("task-import-", format.suffix);
+            // multipart đã nằm trên đĩa: transferTo là move / copy stream, không đọc vào heap
+            file.transferTo(tmp);
+        } catch (IOException | RuntimeException e) {
+            slots.release();
+            deleteQuietly(tmp);
+            throw new RuntimeException("IMPORT_UPLOAD_FAILED");
+        }
+
+        purgeFinished();
+        Job job = new Job(UUID.randomUUID().toString(), actorId, file.getOriginalFilename());
+        jobs.put(job.id, job);
+        Path path = tmp;
+        executor.submit(() -> {
+            try {
+                run(job, path, format);
+            } finally {
+                deleteQuietly(path);
+                slots.release();
+            }
+        });
+        return job.toResponse();
+    }
+
+    public TaskDtos.ImportJobResponse getJob(Long actorId, String jobId) {
+        mustAdmin(actorId);
+        Job job = jobs.get(jobId);
+        if (job == null) throw new RuntimeException("IMPORT_JOB_NOT_FOUND");
+        return job.toResponse();
+    }
+
+    // ---------- chạy job ----------
+
+    void run(Job job, Path file, Format format) {
+        job.status = "RUNNING";
+        Chunker chunker = new Chunker(job);
+        try {
+            if (format == Format.XLSX) readXlsx(file, chunker);
+            else readCsv(file, chunker);
+            chunker.flush();
+            job.finish("DONE", null);
+        } catch (Exception e) {
+            // lỗi đọc file giữa chừng: các chunk trước đã commit vẫn giữ, báo tới dòng nào
+            log.warn("Task import {} failed after {} rows", job.id, job.rowsRead.get(), e);
+            job.finish("FAILED", e instanceof RuntimeException && e.getMessage() != null
+                    ? e.getMessage() : "IMPORT_READ_FAILED");
+        }
+    }
+
+    private void readCsv(Path file, Chunker chunker) throws IOException {
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(r, ',', MAX_RECORD_CHARS);
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                chunker.accept(csv.recordLine(), record);
+            }
+        }
+    }
+
+    private void readXlsx(Path file, Chunker chunker) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) return;
+
+            // chỉ sheet đầu tiên
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+                        new ReadOnlySharedStringsTable(pkg, false), new SheetRows(chunker), new IsoDateFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    /** SAX callback -> list cell theo cột (cell trống ở giữa = ""). */
+    private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final Chunker chunker;
+        private final List<String> cells = new ArrayList<>();
+
+        SheetRows(Chunker chunker) {
+            this.chunker = chunker;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            chunker.accept(rowNum + 1L, new ArrayList<>(cells));
+        }
+
+        @Override
+        public void cell(String ref, String value, XSSFComment comment) {
+            int col = ref == null ? cells.size() : new CellReference(ref).getCol();
+            while (cells.size() < col) cells.add("");
+            cells.add(value == null ? "" : value);
+        }
+    }
+
+    /** Ô ngày của Excel -> yyyy-MM-dd thay vì theo format hiển thị của file. */
+    private static final class IsoDateFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+
+    /** Gom dòng hợp lệ thành chunk, resolve email / tag theo chunk rồi giao cho writer. */
+    private final class Chunker {
+
+        private final Job job;
+        private Map<String, Integer> columns;
+        private final List<Pending> pending = new ArrayList<>(chunkSize);
+
+        // cache theo job: email (lowercase) -> user id (null = không tồn tại), tag -> id
+        private final Map<String, Long> assigneeByEmail = new HashMap<>();
+        private final Map<String, Integer> tagIdByName = new HashMap<>();
+
+        Chunker(Job job) {
+            this.job = job;
+        }
+
+        void accept(long rowNum, List<String> cells) {
+            if (cells.stream().allMatch(c -> c == null || c.isBlank())) return;
+            if (columns == null) {
+                columns = header(cells);
+                return;
+            }
+            job.rowsRead.incrementAndGet();
+            Pending p = parse(rowNum, cells);
+            if (p == null) return;
+            pending.add(p);
+            if (pending.size() >= chunkSize) flush();
+        }
+
+        private Map<String, Integer> header(List<String> cells) {
+            Map<String, Integer> out = new HashMap<>();
+            for (int i = 0; i < cells.size(); i++) {
+                String key = cells.get(i).replaceAll("[\\s_]", "").toLowerCase(Locale.ROOT);
+                if (key.equals("assignee")) key = "assigneeemail";
+                out.putIfAbsent(key, i);
+            }
+            List<String> missing = REQUIRED_COLUMNS.stream().filter(c -> !out.containsKey(c)).sorted().toList();
+            if (!missing.isEmpty()) throw new RuntimeException("IMPORT_MISSING_COLUMNS: " + String.join(", ", missing));
+            return out;
+        }
+
+        private String cell(List<String> cells, String column) {
+            Integer i = columns.get(column);
+            if (i == null || i >= cells.size()) return null;
+            String v = cells.get(i).trim();
+            return v.isEmpty() ? null : v;
+        }
+
+        private Pending parse(long rowNum, List<String> cells) {
+            List<String> errors = new ArrayList<>();
+
+            TaskPriority priority = null;
+            String rawPriority = cell(cells, "priority");
+            if (rawPriority != null) {
+                try {
+                    priority = TaskPriority.valueOf(rawPriority.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    errors.add("priority: invalid value '" + rawPriority + "'");
+                }
+            }
+            LocalDate dueDate = null;
+            String rawDue = cell(cells, "duedate");
+            if (rawDue != null) {
+                try {
+                    dueDate = LocalDate.parse(rawDue);
+                } catch (DateTimeParseException e) {
+                    errors.add("dueDate: expected yyyy-MM-dd");
+                }
+            }
+            String rawTags = cell(cells, "tags");
+            Set<String> tags = Set.of();
+            if (rawTags != null) {
+                try {
+                    tags = TagService.normalizeAll(Arrays.asList(rawTags.split("[;|]")));
+                } catch (RuntimeException e) {
+                    // tag quá dài là lỗi của dòng, không làm hỏng cả job
+                    if (!"TAG_TOO_LONG".equals(e.getMessage())) throw e;
+                    errors.add("tags: TAG_TOO_LONG");
+                }
+            }
+
+            var req = new TaskDtos.CreateTaskRequest(cell(cells, "title"), cell(cells, "description"),
+                    priority, dueDate, tags, null);
+            for (ConstraintViolation<TaskDtos.CreateTaskRequest> v : validator.validate(req)) {
+                // priority sai giá trị đã báo ở trên
+                if (rawPriority != null && v.getPropertyPath().toString().equals("priority")) continue;
+                errors.add(v.getPropertyPath() + ": " + v.getMessage());
+            }
+            if (!errors.isEmpty()) {
+                errors.sort(null);
+                job.rowFailed(rowNum, String.join("; ", errors));
+                return null;
+            }
+            String email = cell(cells, "assigneeemail");
+            return new Pending(rowNum, req, email == null ? null : email.toLowerCase(Locale.ROOT));
+        }
+
+        void flush() {
+            if (pending.isEmpty()) return;
+            resolveAssignees();
+            resolveTags();
+
+            List<TaskImportWriter.Row> rows = new ArrayList<>(pending.size());
+            for (Pending p : pending) {
+                Long assigneeId = null;
+                if (p.email() != null) {
+                    assigneeId = assigneeByEmail.get(p.email());
+                    if (assigneeId == null) {
+                        job.rowFailed(p.rowNum(), "assigneeEmail: user not found");
+                        continue;
+                    }
+                }
+                Set<Integer> tagIds = new HashSet<>();
+                for (String t : p.req().tags()) tagIds.add(tagIdByName.get(t));
+                var req = p.req();
+                rows.add(new TaskImportWriter.Row(p.rowNum(), new TaskDtos.CreateTaskRequest(
+                        req.title(), req.description(), req.priority(), req.dueDate(), req.tags(), assigneeId), tagIds));
+            }
+            pending.clear();
+
+            try {
+                writer.write(job.actorId, rows);
+                job.inserted.addAndGet(rows.size());
+            } catch (RuntimeException e) {
+                log.warn("Task import {} chunk of {} rows rolled back", job.id, rows.size(), e);
+                for (var r : rows) job.rowFailed(r.rowNum(), "rolled back with its chunk: " + e.getClass().getSimpleName());
+            }
+        }
+
+        private void resolveAssignees() {
+            Set<String> unknown = new HashSet<>();
+            for (Pending p : pending) {
+                if (p.email() != null && !assigneeByEmail.containsKey(p.email())) unknown.add(p.email());
+            }
+            if (unknown.isEmpty()) return;
+            for (var u : userRepository.findActiveIdsByEmailIn(unknown)) {
+                assigneeByEmail.put(u.getEmail().toLowerCase(Locale.ROOT), u.getId());
+            }
+            // không tìm thấy cũng cache để không query lại
+            for (String e : unknown) assigneeByEmail.putIfAbsent(e, null);
+        }
+
+        private void resolveTags() {
+            Set<String> unknown = new HashSet<>();
+            for (Pending p : pending) {
+                for (String t : p.req().tags()) if (!tagIdByName.containsKey(t)) unknown.add(t);
+            }
+            if (unknown.isEmpty()) return;
+            for (Tag t : tagService.resolveOrCreate(unknown)) tagIdByName.put(t.getName(), t.getId());
+        }
+    }
+
+    private record Pending(long rowNum, TaskDtos.CreateTaskRequest req, String email) {}
+
+    // ---------- job state ----------
+
+    enum Format {
+        CSV(".csv"), XLSX(".xlsx");
+
+        final String suffix;
+
+        Format(String suffix) {
+            this.suffix = suffix;
+        }
+
+        static Format of(String fileName, String contentType) {
+            String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".xlsx")) return XLSX;
+            if (name.endsWith(".csv")) return CSV;
+            if ("text/csv".equals(contentType)) return CSV;
+            if ("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet".equals(contentType)) return XLSX;
+            throw new RuntimeException("IMPORT_UNSUPPORTED_FORMAT");
+        }
+    }
+
+    final class Job {
+        final String id;
+        final Long actorId;
+        final String fileName;
+        final Instant startedAt = Instant.now();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        private final List<TaskDtos.ImportRowError> errors = new ArrayList<>();
+        volatile String status = "QUEUED";
+        volatile String message;
+        volatile Instant finishedAt;
+
+        Job(String id, Long actorId, String fileName) {
+            this.id = id;
+            this.actorId = actorId;
+            this.fileName = fileName;
+        }
+
+        void rowFailed(long rowNum, String reason) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) errors.add(new TaskDtos.ImportRowError(rowNum, reason));
+            }
+        }
+
+        void finish(String status, String message) {
+            this.message = message;
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+
+        TaskDtos.ImportJobResponse toResponse() {
+            List<TaskDtos.ImportRowError> snapshot;
+            synchronized (errors) {
+                snapshot = List.copyOf(errors);
+            }
+            return new TaskDtos.ImportJobResponse(id, fileName, status, rowsRead.get(), inserted.get(), failed.get(),
+                    snapshot, failed.get() > snapshot.size(), message, startedAt, finishedAt);
+        }
+    }
+
+    private void purgeFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    private User mustAdmin(Long actorId) {
+        User actor = AuthenticatedUserContext.find(actorId)
+                .or(() -> userRepository.findById(actorId))
+                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
+        if (actor.getRole() != Role.ADMIN) throw new RuntimeException("FORBIDDEN");
+        return actor;
+    }
+
+    private static void deleteQuietly(Path p) {
+        if (p == null) return;
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignored) {
+            // file tạm, OS dọn sau
+        }
+    }
+}
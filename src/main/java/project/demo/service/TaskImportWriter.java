@@ -0,0 +1,147 @@
+package project.demo.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.demo.dto.NotificationDtos;
+import project.demo.dto.TaskDtos;
+import project.demo.entity.TaskLog;
+import project.demo.entity.User;
+import project.demo.enums.NotificationType;
+import project.demo.enums.TaskLogAction;
+import project.demo.event.TaskChangedEvent;
+import project.demo.repository.TaskRepository;
+import project.demo.repository.UserRepository;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Ghi 1 chunk task đã validate trong 1 transaction riêng: INSERT tasks bằng JDBC batch (lấy generated key),
+ * link tag theo batch, audit qua AuditLogWriter, notification theo lô. Lỗi thì rollback cả chunk.
+ */
+@Component
+public class TaskImportWriter {
+
+    static final String INSERT_TASK_SQL = "INSERT INTO tasks "
+            + "(title, description, status, priority, due_date, created_by, assignee_id, active, version, created_at, updated_at) "
+            + "VALUES (?, ?, 'TODO', ?, ?, ?, ?, true, 0, ?, ?)";
+
+    static final String INSERT_TAG_LINK_SQL = "INSERT INTO task_tag_links (task_id, tag_id) VALUES (?, ?)";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /** rowNum chỉ để báo lỗi; req.assigneeId() đã resolve từ email. */
+    public record Row(long rowNum, TaskDtos.CreateTaskRequest req, Set<Integer> tagIds) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final AuditLogWriter auditLog;
+    private final NotificationOutboxWriter notificationOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTx;
+
+    public TaskImportWriter(
+            JdbcTemplate jdbcTemplate,
+            TaskRepository taskRepository,
+            UserRepository userRepository,
+            AuditLogWriter auditLog,
+            NotificationOutboxWriter notificationOutbox,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.auditLog = auditLog;
+        this.notificationOutbox = notificationOutbox;
+        this.eventPublisher = eventPublisher;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** @return id các task vừa tạo, cùng thứ tự với rows */
+    public List<Long> write(Long actorId, List<Row> rows) {
+        if (rows.isEmpty()) return List.of();
+        return chunkTx.execute(status -> {
+            Instant now = Instant.now();
+            List<Long> ids = insertTasks(actorId, rows, now);
+
+            List<long[]> links = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                for (Integer tagId : rows.get(i).tagIds()) links.add(new long[]{ids.get(i), tagId});
+            }
+            if (!links.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_TAG_LINK_SQL, links, links.size(), (ps, l) -> {
+                    ps.setLong(1, l[0]);
+                    ps.setLong(2, l[1]);
+                });
+            }
+
+            User actor = userRepository.getReferenceById(actorId);
+            List<NotificationDtos.NewNotification> notifications = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                TaskDtos.CreateTaskRequest req = rows.get(i).req();
+                Long id = ids.get(i);
+                log(id, actor, TaskLogAction.CREATED, null, null, now);
+                if (req.assigneeId() != null) {
+                    log(id, actor, TaskLogAction.ASSIGNED, "assigneeId", String.valueOf(req.assigneeId()), now);
+                    notifications.add(new NotificationDtos.NewNotification(req.assigneeId(), actorId,
+                            NotificationType.TASK_ASSIGNED, "You were assigned to task: " + req.title(), id));
+                }
+                eventPublisher.publishEvent(new TaskChangedEvent(id, req.title(), req.description(), true, true));
+            }
+            notificationOutbox.appendAll(notifications);
+            return ids;
+        });
+    }
+
+    private List<Long> insertTasks(Long actorId, List<Row> rows, Instant now) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_TASK_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                Timestamp ts = Timestamp.from(now);
+                for (Row r : rows) {
+                    TaskDtos.CreateTaskRequest req = r.req();
+                    ps.setString(1, req.title());
+                    ps.setString(2, req.description());
+                    ps.setString(3, req.priority().name());
+                    if (req.dueDate() == null) ps.setNull(4, Types.DATE);
+                    else ps.setDate(4, java.sql.Date.valueOf(req.dueDate()));
+                    ps.setLong(5, actorId);
+                    ps.setObject(6, req.assigneeId(), Types.BIGINT);
+                    // giống Hibernate (Instant -> TIMESTAMP_UTC)
+                    ps.setTimestamp(7, ts, Calendar.getInstance(UTC));
+                    ps.setTimestamp(8, ts, Calendar.getInstance(UTC));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(rows.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) ids.add(keys.getLong(1));
+                }
+                if (ids.size() != rows.size()) {
+                    throw new SQLException("Expected " + rows.size() + " generated keys, got " + ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    private void log(Long taskId, User actor, TaskLogAction action, String fieldName, String newVal, Instant now) {
+        auditLog.append(TaskLog.builder()
+                .task(taskRepository.getReferenceById(taskId))
+                .actor(actor)
+                .action(action)
+                .fieldName(fieldName)
+                .newValue(newVal)
+                .createdAt(now)
+                .build());
+    }
+}
@@ -0,0 +1,113 @@
+package project.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import project.demo.entity.TaskLogSegment;
+import project.demo.repository.TaskLogSegmentRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đọc task_logs đã archive từ segment file, cùng thứ tự keyset (createdAt, id) giảm dần như bảng nóng,
+ * để endpoint logs đọc tiếp xuống phần archive mà client không cần biết.
+ * Manifest được cache ngắn (archiver gọi {@link #refresh()} sau mỗi lần đổi), index của từng file cache tới khi file bị thay.
+ */
+@Slf4j
+@Component
+public class TaskLogArchive {
+
+    private static final long MANIFEST_TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final TaskLogSegmentRepository segmentRepository;
+    private final Path dir;
+
+    private volatile List<TaskLogSegment> manifest;
+    private volatile long manifestLoadedAt;
+    private final Map<String, LogSegmentFile.Index> indexes = new ConcurrentHashMap<>();
+
+    public TaskLogArchive(
+            TaskLogSegmentRepository segmentRepository,
+            @Value("${app.log-archive.dir:./data/log-archive}") String dir
+    ) {
+        this.segmentRepository = segmentRepository;
+        this.dir = Path.of(dir);
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    public void refresh() {
+        manifest = null;
+    }
+
+    /**
+     * Tối đa limit log của taskId đứng sau vị trí (createdAt, id) theo thứ tự giảm dần.
+     * createdAt null = từ log mới nhất trong archive.
+     */
+    public List<LogSegmentFile.Row> before(Long taskId, Instant createdAt, Long id, int limit) {
+        List<TaskLogSegment> segments = segments();
+        if (segments.isEmpty() || limit <= 0) return List.of();
+
+        Comparator<LogSegmentFile.Row> newestFirst = Comparator.comparing(LogSegmentFile.Row::createdAt)
+                .thenComparingLong(LogSegmentFile.Row::id).reversed();
+        List<LogSegmentFile.Row> out = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+
+        // manifest sắp theo tháng giảm dần; các file cùng tháng gộp rồi sort chung
+        int i = 0;
+        while (i < segments.size() && out.size() < limit) {
+            String month = segments.get(i).getMonth();
+            List<LogSegmentFile.Row> monthRows = new ArrayList<>();
+            for (; i < segments.size() && segments.get(i).getMonth().equals(month); i++) {
+                TaskLogSegment s = segments.get(i);
+                if (createdAt != null && s.getMinCreatedAt().isAfter(createdAt)) continue;
+                for (LogSegmentFile.Row r : readTask(s, taskId)) {
+                    if (createdAt == null || r.createdAt().isBefore(createdAt)
+                            || (r.createdAt().equals(createdAt) && r.id() < id)) {
+                        monthRows.add(r);
+                    }
+                }
+            }
+            monthRows.sort(newestFirst);
+            for (LogSegmentFile.Row r : monthRows) {
+                if (out.size() >= limit) break;
+                if (seen.add(r.id())) out.add(r);
+            }
+        }
+        return out;
+    }
+
+    private List<LogSegmentFile.Row> readTask(TaskLogSegment s, Long taskId) {
+        Path file = dir.resolve(s.getFileName());
+        try {
+            LogSegmentFile.Index index = indexes.get(s.getFileName());
+            if (index == null) {
+                index = LogSegmentFile.readIndex(file);
+                indexes.put(s.getFileName(), index);
+            }
+            return LogSegmentFile.readTask(file, index, taskId);
+        } catch (IOException e) {
+            // file mất / hỏng: không làm hỏng cả trang log, chỉ thiếu phần archive đó
+            log.error("Cannot read log segment {}", file, e);
+            return List.of();
+        }
+    }
+
+    private List<TaskLogSegment> segments() {
+        List<TaskLogSegment> m = manifest;
+        if (m == null || System.nanoTime() - manifestLoadedAt > MANIFEST_TTL_NANOS) {
+            m = List.copyOf(segmentRepository.findAllByOrderByMonthDescIdDesc());
+            indexes.keySet().retainAll(m.stream().map(TaskLogSegment::getFileName).toList());
+            manifest = m;
+            manifestLoadedAt = System.nanoTime();
+        }
+        return m;
+    }
+}
@@ -0,0 +1,274 @@
+package project.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import project.demo.entity.TaskLogSegment;
+import project.demo.repository.TaskLogSegmentRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Giữ task_logs (bảng nóng) có kích thước giới hạn: log cũ hơn retain-months được chuyển theo từng tháng (UTC)
+ * sang segment file nén trong app.log-archive.dir rồi xoá khỏi bảng theo lô id.
+ *
+ * <p>Thứ tự cho mỗi tháng: stream các dòng (ORDER BY task_id) vào file tạm -> fsync -> rename -> verify số dòng
+ * -> manifest WRITTEN -> xoá theo lô -> ARCHIVED. Chết giữa chừng thì lần chạy sau xoá tiếp các segment WRITTEN;
+ * trong lúc đó reader bỏ trùng theo id nên không có log nào bị mất hay hiện 2 lần.
+ *
+ * <p>Chỉ instance giữ lease {@value #LEASE} (JobLeases) chạy, nên nhiều node không ghi trùng segment cho cùng tháng;
+ * lease được gia hạn trước mỗi tháng, mất lease thì dừng ngay. Cron chỉ chuyển việc sang thread riêng (ghi file +
+ * xoá theo lô có thể kéo dài) để không giữ thread scheduler; quá max-runtime-minutes thì dừng sau tháng đang làm,
+ * lần sau làm tiếp.
+ */
+@Slf4j
+@Component
+public class TaskLogArchiver {
+
+    static final String LEASE = "task-log-archive";
+
+    static final String MIN_CREATED_SQL = "SELECT MIN(created_at) FROM task_logs";
+
+    static final String SELECT_MONTH_SQL = "SELECT id, task_id, actor_id, action, field_name, old_value, new_value, created_at "
+            + "FROM task_logs WHERE created_at >= ? AND created_at < ? ORDER BY task_id, created_at, id";
+
+    // theo khoảng id (PK) để mỗi lô là 1 range scan ngắn
+    static final String DELETE_RANGE_SQL = "DELETE FROM task_logs "
+            + "WHERE id >= ? AND id < ? AND created_at >= ? AND created_at < ?";
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeases leases;
+    private final TaskLogSegmentRepository segmentRepository;
+    private final TaskLogArchive archive;
+    private final Clock clock;
+
+    private final boolean enabled;
+    private final int retainMonths;
+    private final int blockRows;
+    private final int deleteBatch;
+    private final Duration leaseTtl;
+    private final Duration maxRuntime;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("task-log-archiver").factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public TaskLogArchiver(
+            JdbcTemplate jdbcTemplate,
+            JobLeases leases,
+            TaskLogSegmentRepository segmentRepository,
+            TaskLogArchive archive,
+            @Value("${app.log-archive.enabled:true}") boolean enabled,
+            @Value("${app.log-archive.retain-months:6}") int retainMonths,
+            @Value("${app.log-archive.block-rows:2000}") int blockRows,
+            @Value("${app.log-archive.delete-batch:5000}") int deleteBatch,
+            @Value("${app.log-archive.lease-minutes:60}") long leaseMinutes,
+            @Value("${app.log-archive.max-runtime-minutes:60}") long maxRuntimeMinutes
+    ) {
+        this(jdbcTemplate, leases, segmentRepository, archive, Clock.systemUTC(), enabled, retainMonths, blockRows,
+                deleteBatch, leaseMinutes, maxRuntimeMinutes);
+    }
+
+    TaskLogArchiver(JdbcTemplate jdbcTemplate, JobLeases leases, TaskLogSegmentRepository segmentRepository,
+                    TaskLogArchive archive, Clock clock, boolean enabled, int retainMonths, int blockRows,
+                    int deleteBatch, long leaseMinutes, long maxRuntimeMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leases = leases;
+        this.segmentRepository = segmentRepository;
+        this.archive = archive;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.retainMonths = Math.max(1, retainMonths);
+        this.blockRows = Math.max(1, blockRows);
+        this.deleteBatch = Math.max(1, deleteBatch);
+        this.leaseTtl = Duration.ofMinutes(Math.max(1, leaseMinutes));
+        this.maxRuntime = Duration.ofMinutes(Math.max(1, maxRuntimeMinutes));
+    }
+
+    @Scheduled(cron = "${app.log-archive.cron:0 30 3 * * *}", zone = "UTC")
+    public void scheduledArchive() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        runner.execute(() -> {
+            try {
+                int months = archiveExpired();
+                if (months > 0) log.info("Archived {} month(s) of task_logs", months);
+            } catch (Exception e) {
+                log.error("task_logs archival failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /** @return số tháng đã archive trong lần chạy này; -1 nếu instance khác đang giữ lease */
+    public synchronized int archiveExpired() throws IOException {
+        if (!leases.tryAcquire(LEASE, leaseTtl)) return -1;
+        try {
+            return archiveLocked();
+        } finally {
+            leases.release(LEASE);
+        }
+    }
+
+    private int archiveLocked() throws IOException {
+        for (TaskLogSegment s : segmentRepository.findByStatus("WRITTEN")) deleteArchivedRows(s);
+
+        Instant cutoff = YearMonth.now(clock).minusMonths(retainMonths).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        long deadline = System.nanoTime() + maxRuntime.toNanos();
+        int months = 0;
+        YearMonth previous = null;
+        while (true) {
+            if (System.nanoTime() - deadline > 0) {
+                log.info("task_logs archival stopped after {}, continuing next run", maxRuntime);
+                break;
+            }
+            Timestamp min = jdbcTemplate.queryForObject(MIN_CREATED_SQL, (rs, n) -> rs.getTimestamp(1, utc()));
+            if (min == null || !min.toInstant().isBefore(cutoff)) break;
+
+            YearMonth month = YearMonth.from(min.toInstant().atZone(ZoneOffset.UTC));
+            if (month.equals(previous)) {
+                // vừa archive xong mà vẫn còn dòng của tháng đó -> dừng, lần chạy sau xử lý tiếp
+                log.warn("task_logs of {} still present after archival, stopping this run", month);
+                break;
+            }
+            // gia hạn trước mỗi tháng; lease đã hết và bị node khác lấy thì dừng
+            if (!leases.tryAcquire(LEASE, leaseTtl)) {
+                log.warn("Lost lease {} before archiving {}, stopping this run", LEASE, month);
+                break;
+            }
+            archiveMonth(month);
+            previous = month;
+            months++;
+        }
+        return months;
+    }
+
+    private void archiveMonth(YearMonth month) throws IOException {
+        Instant from = month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        Path dir = archive.dir();
+        Files.createDirectories(dir);
+        String fileName = "task_logs-" + month + "-" + clock.millis() + ".seg";
+        Path tmp = dir.resolve(fileName + ".tmp");
+        Path file = dir.resolve(fileName);
+
+        Stats stats = new Stats();
+        try (LogSegmentFile.Writer w = LogSegmentFile.create(tmp, blockRows)) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_MONTH_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // MySQL: stream từng dòng thay vì load cả tháng vào heap
+                ps.setFetchSize(Integer.MIN_VALUE);
+                ps.setTimestamp(1, Timestamp.from(from), utc());
+                ps.setTimestamp(2, Timestamp.from(to), utc());
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                LogSegmentFile.Row r = new LogSegmentFile.Row(
+                        rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4), rs.getString(5),
+                        rs.getString(6), rs.getString(7), rs.getTimestamp(8, utc()).toInstant());
+                try {
+                    w.add(r);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                stats.accept(r);
+            });
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (stats.rows == 0) {
+            Files.deleteIfExists(tmp);
+            return;
+        }
+
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        long written = LogSegmentFile.readIndex(file).rowCount();
+        if (written != stats.rows) {
+            throw new IOException("Segment " + file + " has " + written + " rows, expected " + stats.rows);
+        }
+
+        TaskLogSegment segment = segmentRepository.save(TaskLogSegment.builder()
+                .month(month.toString())
+                .fileName(fileName)
+                .status("WRITTEN")
+                .rowCount(stats.rows)
+                .minLogId(stats.minId)
+                .maxLogId(stats.maxId)
+                .minCreatedAt(stats.minCreatedAt)
+                .maxCreatedAt(stats.maxCreatedAt)
+                .build());
+        archive.refresh();
+        deleteArchivedRows(segment);
+    }
+
+    private void deleteArchivedRows(TaskLogSegment s) {
+        YearMonth month = YearMonth.parse(s.getMonth());
+        Timestamp from = Timestamp.from(month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        Timestamp to = Timestamp.from(month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+        long deleted = 0;
+        for (long lo = s.getMinLogId(); lo <= s.getMaxLogId(); lo += deleteBatch) {
+            long hi = Math.min(lo + deleteBatch, s.getMaxLogId() + 1);
+            long start = lo;
+            // mỗi lô auto-commit riêng: lock ngắn, không phình undo log
+            deleted += jdbcTemplate.update(DELETE_RANGE_SQL, ps -> {
+                ps.setLong(1, start);
+                ps.setLong(2, hi);
+                ps.setTimestamp(3, from, utc());
+                ps.setTimestamp(4, to, utc());
+            });
+        }
+        s.setStatus("ARCHIVED");
+        segmentRepository.save(s);
+        archive.refresh();
+        log.info("task_logs {}: {} rows moved to {}", s.getMonth(), deleted, s.getFileName());
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(UTC);
+    }
+
+    private static final class Stats {
+        long rows;
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        Instant minCreatedAt;
+        Instant maxCreatedAt;
+
+        void accept(LogSegmentFile.Row r) {
+            rows++;
+            minId = Math.min(minId, r.id());
+            maxId = Math.max(maxId, r.id());
+            if (minCreatedAt == null || r.createdAt().isBefore(minCreatedAt)) minCreatedAt = r.createdAt();
+            if (maxCreatedAt == null || r.createdAt().isAfter(maxCreatedAt)) maxCreatedAt = r.createdAt();
+        }
+    }
+}
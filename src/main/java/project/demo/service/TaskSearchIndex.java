@@ -0,0 +1,216 @@
+package project.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import project.demo.entity.Task;
+import project.demo.event.TaskChangedEvent;
+import project.demo.repository.TaskRepository;
+import project.demo.spec.TaskSpecifications;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index in-process cho title + description của task active.
+ * token -> (taskId -> weight). Query: AND giữa các token, token cuối match theo prefix (search-as-you-type).
+ * Chi phí query tỉ lệ với độ dài posting list nhỏ nhất, không phụ thuộc kích thước bảng tasks.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskSearchIndex {
+
+    private static final Pattern SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_PREFIX_EXPANSION = 100;
+    private static final int REBUILD_BATCH = 1000;
+
+    private final TaskRepository taskRepository;
+
+    @Value("${app.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.max-hits:1000}")
+    private int maxHits;
+
+    @Value("${app.search.max-filter-ids:20000}")
+    private int maxFilterIds;
+
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, Set<String>> docTokens = new ConcurrentHashMap<>();
+
+    // id được event cập nhật trong lúc rebuild -> rebuild bỏ qua (event luôn mới hơn snapshot)
+    private final Set<Long> touchedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAsync() {
+        if (!enabled) return;
+        Thread.ofVirtual().name("task-search-index").start(this::rebuild);
+    }
+
+    public void rebuild() {
+        building = true;
+        touchedDuringBuild.clear();
+        try {
+            Long lastId = 0L;
+            while (true) {
+                var spec = TaskSpecifications.activeOnly()
+                        .and(TaskSpecifications.keysetAfter("id", Sort.Direction.ASC, lastId, lastId));
+                List<Task> batch = taskRepository.findBy(spec,
+                        q -> q.sortBy(Sort.by("id")).limit(REBUILD_BATCH).all());
+                for (Task t : batch) indexIfUntouched(t);
+                if (batch.size() < REBUILD_BATCH) break;
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            ready = true;
+        } finally {
+            building = false;
+            touchedDuringBuild.clear();
+        }
+    }
+
+    // check + index cùng monitor với onTaskChanged: event chen giữa 2 bước sẽ bị snapshot cũ của rebuild ghi đè
+    private synchronized void indexIfUntouched(Task t) {
+        if (!touchedDuringBuild.contains(t.getId())) index(t.getId(), t.getTitle(), t.getDescription());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent e) {
+        if (!enabled) return;
+        // chỉ đổi status / assignee / priority / tags: token không đổi, snapshot của rebuild vẫn đúng.
+        // Event loại này (vd. từ bulk update) có thể không mang description nên không được index lại.
+        if (e.active() && !e.contentChanged()) return;
+        synchronized (this) {
+            if (building) touchedDuringBuild.add(e.taskId());
+            if (e.active()) {
+                index(e.taskId(), e.title(), e.description());
+            } else {
+                remove(e.taskId());
+            }
+        }
+    }
+
+    public synchronized void index(Long taskId, String title, String description) {
+        remove(taskId);
+
+        Map<String, Integer> weights = new HashMap<>();
+        for (String tok : tokenize(title)) weights.merge(tok, TITLE_WEIGHT, Integer::sum);
+        for (String tok : tokenize(description)) weights.merge(tok, DESCRIPTION_WEIGHT, Integer::sum);
+
+        weights.forEach((tok, w) ->
+                postings.computeIfAbsent(tok, k -> new ConcurrentHashMap<>()).put(taskId, w));
+        docTokens.put(taskId, weights.keySet());
+    }
+
+    public synchronized void remove(Long taskId) {
+        Set<String> old = docTokens.remove(taskId);
+        if (old == null) return;
+        for (String tok : old) {
+            postings.computeIfPresent(tok, (k, docs) -> {
+                docs.remove(taskId);
+                return docs.isEmpty() ? null : docs;
+            });
+        }
+    }
+
+    /**
+     * Dùng cho sort theo relevance: chỉ cần những hit đầu nên cắt ở app.search.max-hits.
+     * Không dùng làm filter cho list sort theo cột khác (sẽ mất kết quả, sai totalElements) -> {@link #matchAll}.
+     *
+     * @return taskId sắp theo relevance giảm dần (tie-break id giảm dần), tối đa app.search.max-hits phần tử
+     */
+    public List<Long> search(String query) {
+        Map<Long, Integer> scores = scores(query, false);
+        if (scores == null) return List.of();
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed()))
+                .limit(maxHits)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Tập đầy đủ taskId match query, dùng làm filter id cho list / scroll / facets / bulk theo filter.
+     *
+     * @return null nếu index không trả được đủ: quá app.search.max-filter-ids id (IN quá dài) hoặc token cuối là
+     * prefix quá rộng (bị cắt ở MAX_PREFIX_EXPANSION) -> caller fallback LIKE trên DB
+     */
+    public Set<Long> matchAll(String query) {
+        if (tokenize(query).isEmpty()) return Set.of();
+        Map<Long, Integer> scores = scores(query, true);
+        if (scores == null || scores.size() > maxFilterIds) return null;
+        return scores.keySet();
+    }
+
+    // null: không có kết quả (hoặc exhaustive mà prefix bị cắt)
+    private Map<Long, Integer> scores(String query, boolean exhaustive) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) return null;
+
+        List<Map<Long, Integer>> lists = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean last = i == tokens.size() - 1;
+            if (last && exhaustive && prefixTooWide(tokens.get(i))) return null;
+            Map<Long, Integer> docs = last ? prefixPostings(tokens.get(i)) : postings.get(tokens.get(i));
+            if (docs == null || docs.isEmpty()) return exhaustive ? Map.of() : null;
+            lists.add(docs);
+        }
+
+        // intersect bắt đầu từ posting list ngắn nhất
+        lists.sort(Comparator.comparingInt(Map::size));
+        Map<Long, Integer> scores = new HashMap<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !scores.isEmpty(); i++) {
+            Map<Long, Integer> other = lists.get(i);
+            scores.keySet().retainAll(other.keySet());
+            scores.replaceAll((id, s) -> s + other.getOrDefault(id, 0));
+        }
+        return scores;
+    }
+
+    private boolean prefixTooWide(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet().stream()
+                .skip(MAX_PREFIX_EXPANSION).findAny().isPresent();
+    }
+
+    private Map<Long, Integer> prefixPostings(String prefix) {
+        var range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+
+        Map<Long, Integer> merged = new HashMap<>();
+        int expanded = 0;
+        for (var e : range.entrySet()) {
+            if (expanded++ >= MAX_PREFIX_EXPANSION) break;
+            e.getValue().forEach((id, w) -> merged.merge(id, w, Math::max));
+        }
+        return merged;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        // bỏ dấu để "tiến độ" match "tien do"
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd').replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        for (String tok : SPLIT.split(folded)) {
+            if (!tok.isEmpty()) out.add(tok);
+        }
+        return out;
+    }
+}
@@ -1,6 +1,8 @@
 package project.demo.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -8,11 +10,16 @@ import org.springframework.transaction.annotation.Transactional;
 import project.demo.dto.TaskDtos;
 import project.demo.entity.*;
 import project.demo.enums.*;
+import project.demo.event.TaskChangedEvent;
 import project.demo.repository.*;
+import project.demo.security.AuthenticatedUserContext;
 import project.demo.spec.TaskSpecifications;
+import project.demo.util.CursorUtil;
+import project.demo.util.VersionTag;
+import project.demo.util.TextDelta;
 
 import java.time.Instant;
-import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @Service
@@ -24,7 +31,29 @@ public class TaskService {
     private final SubTaskRepository subTaskRepository;
     private final TaskCommentRepository taskCommentRepository;
     private final TaskLogRepository taskLogRepository;
-    private final NotificationService notificationService;
+    private final TaskLogArchive logArchive;
+    private final AuditLogWriter auditLog;
+    private final NotificationOutboxWriter notificationOutbox;
+    private final TaskSearchIndex searchIndex;
+    private final TagService tagService;
+    private final TaskSummaryCache summaryCache;
+    private final ReadFanOut fanOut;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // cột được phép làm keyset: NOT NULL để (sortKey, id) luôn so sánh được
+    private static final Set<String> KEYSET_SORTS = Set.of("id", "createdAt", "updatedAt", "title");
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final String RELEVANCE = "relevance";
+    private static final int MAX_ASSIGNEE_FACETS = 50;
+    // detail chỉ nhúng trang đầu của comments/logs, phần còn lại đi qua /comments và /logs
+    private static final int DETAIL_PAGE_SIZE = 20;
+    private static final int MAX_THREAD_PAGE_SIZE = 100;
+    private static final int MAX_TAG_FACETS = 50;
+    // description từ ngưỡng này: audit log chỉ lưu delta (TextDelta), old / new dựng lại khi đọc log
+    private static final int DESCRIPTION_DELTA_MIN_CHARS = 1024;
+    private static final String DESCRIPTION_DELTA = "description.delta";
+    private static final List<String> DESCRIPTION_FIELDS = List.of("description", DESCRIPTION_DELTA);
+    private static final int ARCHIVE_HISTORY_CHUNK = 200;
 
     // ---------- Task CRUD ----------
 
@@ -44,7 +73,7 @@ public class TaskService {
                 .priority(req.priority())
                 .status(TaskStatus.TODO)
                 .dueDate(req.dueDate())
-                .tags(req.tags() == null ? new HashSet<>() : new HashSet<>(req.tags()))
+                .tags(tagService.resolveOrCreate(req.tags()))
                 .createdBy(actor)
                 .assignee(assignee)
                 .active(true)
@@ -52,9 +81,10 @@ public class TaskService {
 
         task = taskRepository.save(task);
         log(task, actor, TaskLogAction.CREATED, null, null, null);
+        publishChanged(task, true);
 
         if (assignee != null) {
-            notificationService.createNotification(
+            notificationOutbox.append(
                     assignee.getId(),
                     actor.getId(),
                     NotificationType.TASK_ASSIGNED,
@@ -68,103 +98,342 @@ public class TaskService {
     }
 
     @Transactional(readOnly = true)
-    public Page<TaskDtos.TaskSummaryResponse> listTasks(
+    public Page<TaskDtos.TaskSummaryResponse> listTasks(Long actorId, TaskDtos.TaskFilter filter, Pageable pageable) {
+        long cacheToken = summaryCache.readToken();
+        User actor = mustUser(actorId);
+
+        if (pageable.getSort().getOrderFor(RELEVANCE) != null) {
+            if (filter.q() != null && !filter.q().isBlank() && searchIndex.isReady()) {
+                return listByRelevance(actor, filter, pageable, cacheToken);
+            }
+            // không có keyword thì relevance vô nghĩa -> sort mặc định
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                    Sort.by(Sort.Direction.DESC, "updatedAt"));
+        }
+
+        Specification<Task> spec = filterSpec(actor, filter).and(TaskSpecifications.fetchAssignee());
+
+        Page<Task> page = taskRepository.findAll(spec, pageable);
+        return new PageImpl<>(toSummaries(page.getContent(), cacheToken), pageable, page.getTotalElements());
+    }
+
+    // index trả id theo thứ tự relevance; DB chỉ lọc id theo các filter còn lại rồi load đúng 1 trang
+    private Page<TaskDtos.TaskSummaryResponse> listByRelevance(
+            User actor, TaskDtos.TaskFilter filter, Pageable pageable, long cacheToken) {
+        List<Long> ranked = searchIndex.search(filter.q());
+        if (ranked.isEmpty()) return Page.empty(pageable);
+
+        Specification<Task> spec = baseSpec(actor, filter).and(TaskSpecifications.idIn(ranked));
+        Set<Long> allowed = new HashSet<>(taskRepository.findIds(spec));
+        List<Long> hits = ranked.stream().filter(allowed::contains).toList();
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<Long> pageIds = hits.subList(from, to);
+
+        Map<Long, Task> byId = new HashMap<>();
+        for (Task t : taskRepository.findAll(TaskSpecifications.idIn(pageIds).and(TaskSpecifications.fetchAssignee()))) {
+            byId.put(t.getId(), t);
+        }
+
+        List<Task> ordered = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(toSummaries(ordered, cacheToken), pageable, hits.size());
+    }
+
+    /**
+     * Keyset pagination: lọc theo (sortKey, id) của phần tử cuối trang trước thay vì OFFSET,
+     * lấy size + 1 dòng để biết hasNext, không chạy COUNT.
+     */
+    @Transactional(readOnly = true)
+    public TaskDtos.CursorPage<TaskDtos.TaskSummaryResponse> scrollTasks(
             Long actorId,
-            String q,
-            TaskStatus status,
-            TaskPriority priority,
-            Long assigneeId,
-            LocalDate dueFrom,
-            LocalDate dueTo,
-            String tag,
-            Pageable pageable
+            TaskDtos.TaskFilter filter,
+            String cursor,
+            int size,
+            Sort.Order order
     ) {
+        long cacheToken = summaryCache.readToken();
         User actor = mustUser(actorId);
-
-        // CUSTOMER chỉ được thấy task assigned cho mình
-        if (actor.getRole() != Role.ADMIN) {
-            assigneeId = actor.getId();
+        if (!KEYSET_SORTS.contains(order.getProperty())) throw new RuntimeException("UNSUPPORTED_SORT");
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        Specification<Task> spec = filterSpec(actor, filter).and(TaskSpecifications.fetchAssignee());
+        if (cursor != null && !cursor.isBlank()) {
+            String[] c = CursorUtil.decode(cursor, 4);
+            if (!c[0].equals(order.getProperty()) || !c[1].equals(order.getDirection().name())) {
+                throw new RuntimeException("INVALID_CURSOR");
+            }
+            spec = spec.and(TaskSpecifications.keysetAfter(
+                    order.getProperty(), order.getDirection(), parseSortKey(order.getProperty(), c[2]), parseId(c[3])));
         }
 
-        Specification<Task> spec = TaskSpecifications.activeOnly()
-                .and(TaskSpecifications.keyword(q))
-                .and(TaskSpecifications.status(status))
-                .and(TaskSpecifications.priority(priority))
-                .and(TaskSpecifications.assigneeId(assigneeId))
-                .and(TaskSpecifications.dueFrom(dueFrom))
-                .and(TaskSpecifications.dueTo(dueTo))
-                .and(TaskSpecifications.tag(tag));
+        Sort sort = "id".equals(order.getProperty())
+                ? Sort.by(order.getDirection(), "id")
+                : Sort.by(order.getDirection(), order.getProperty()).and(Sort.by(order.getDirection(), "id"));
 
-        return taskRepository.findAll(spec, pageable).map(this::toSummary);
+        List<Task> rows = taskRepository.findBy(spec, query -> query.sortBy(sort).limit(limit + 1).all());
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) rows = rows.subList(0, limit);
+
+        String next = null;
+        if (hasNext) {
+            Task last = rows.get(rows.size() - 1);
+            next = CursorUtil.encode(order.getProperty(), order.getDirection().name(),
+                    sortKeyOf(last, order.getProperty()), String.valueOf(last.getId()));
+        }
+        return new TaskDtos.CursorPage<>(toSummaries(rows, cacheToken), next, hasNext);
+    }
+
+    /**
+     * Counter cho board: mỗi dimension là 1 query GROUP BY trên cùng filter với listTasks.
+     * Facet của dimension nào thì bỏ filter của chính dimension đó (chọn status=TODO vẫn thấy số DONE),
+     * riêng CUSTOMER luôn bị ép assigneeId = chính mình.
+     */
+    @Transactional(readOnly = true)
+    public TaskDtos.TaskFacetsResponse facets(Long actorId, TaskDtos.TaskFilter filter, int topTags) {
+        User actor = mustUser(actorId);
+        Specification<Task> keyword = keywordSpec(filter.q());
+
+        Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus st : TaskStatus.values()) byStatus.put(st, 0L);
+        taskRepository.countGroupedBy(baseSpec(actor, filter.withStatus(null)).and(keyword), "status")
+                .forEach((k, v) -> byStatus.put((TaskStatus) k, v));
+
+        Map<TaskPriority, Long> byPriority = new EnumMap<>(TaskPriority.class);
+        for (TaskPriority p : TaskPriority.values()) byPriority.put(p, 0L);
+        taskRepository.countGroupedBy(baseSpec(actor, filter.withPriority(null)).and(keyword), "priority")
+                .forEach((k, v) -> byPriority.put((TaskPriority) k, v));
+
+        Map<Object, Long> byAssignee = taskRepository.countGroupedBy(
+                baseSpec(actor, filter.withAssigneeId(null)).and(keyword), "assignee.id");
+        Map<Long, User> users = new HashMap<>();
+        List<Long> assigneeIds = byAssignee.keySet().stream()
+                .filter(Objects::nonNull).map(Long.class::cast).limit(MAX_ASSIGNEE_FACETS).toList();
+        for (User u : userRepository.findAllById(assigneeIds)) users.put(u.getId(), u);
+
+        List<TaskDtos.AssigneeCount> assignees = new ArrayList<>();
+        byAssignee.forEach((id, count) -> {
+            if (id == null) {
+                assignees.add(new TaskDtos.AssigneeCount(null, count));
+            } else if (users.containsKey(id)) {
+                User u = users.get(id);
+                assignees.add(new TaskDtos.AssigneeCount(new TaskDtos.UserBrief(u.getId(), u.getEmail(), u.getFullName()), count));
+            }
+        });
+
+        Map<Integer, Long> byTag = taskRepository.countTopTags(
+                filterSpec(actor, filter), Math.max(1, Math.min(topTags, MAX_TAG_FACETS)));
+        Map<Integer, String> tagNames = tagService.namesById(byTag.keySet());
+        List<TaskDtos.TagCount> tags = new ArrayList<>();
+        byTag.forEach((id, count) -> {
+            if (tagNames.containsKey(id)) tags.add(new TaskDtos.TagCount(tagNames.get(id), count));
+        });
+
+        // total theo đủ filter = tổng các status đang được chọn, không cần thêm COUNT
+        long total = byStatus.entrySet().stream()
+                .filter(e -> filter.status() == null || filter.status().isEmpty() || filter.status().contains(e.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+
+        return new TaskDtos.TaskFacetsResponse(total, byStatus, byPriority, assignees, tags);
     }
 
     @Transactional(readOnly = true)
     public TaskDtos.TaskDetailResponse getTaskDetail(Long actorId, Long taskId) {
+        long cacheToken = summaryCache.readToken();
         User actor = mustUser(actorId);
-        Task task = mustActiveTask(taskId);
-        assertCanAccessTask(actor, task);
 
-        List<TaskDtos.SubTaskResponse> subs = subTaskRepository.findAllByTaskIdAndActiveTrue(taskId)
-                .stream().map(this::toSub).toList();
+        // cache hit: không cần load Task / assignee / tags, quyền truy cập kiểm tra trên summary
+        TaskDtos.TaskSummaryResponse summary = summaryCache.get(taskId);
+        if (summary == null) {
+            Task task = mustActiveTask(taskId);
+            assertCanAccessTask(actor, task);
+            summary = toSummary(task);
+            summaryCache.put(taskId, summary, cacheToken);
+        } else {
+            if (!summary.active()) throw new RuntimeException("TASK_NOT_FOUND");
+            assertCanAccess(actor, summary.assignee() == null ? null : summary.assignee().id());
+        }
+
+        // 3 query con độc lập, chỉ chạy sau khi đã kiểm tra quyền
+        ReadFanOut.Group group = fanOut.group();
+        var subs = group.fork(() -> subTaskRepository.findAllByTaskIdAndActiveTrue(taskId)
+                .stream().map(this::toSub).toList());
+        var comments = group.fork(() -> commentPage(taskId, null, DETAIL_PAGE_SIZE));
+        var logs = group.fork(() -> logPage(taskId, null, DETAIL_PAGE_SIZE));
+        group.join();
 
-        List<TaskDtos.CommentResponse> comments = taskCommentRepository.findAllByTaskIdOrderByCreatedAtAsc(taskId)
-                .stream().map(this::toComment).toList();
+        return new TaskDtos.TaskDetailResponse(summary, subs.get(), comments.get(), logs.get());
+    }
 
-        List<TaskDtos.LogResponse> logs = taskLogRepository.findAllByTaskIdOrderByCreatedAtDesc(taskId)
-                .stream().map(this::toLog).toList();
+    /**
+     * ETag của task detail, tính bằng 1 query nhẹ trước khi load detail: version + updatedAt của task (tag đổi cũng
+     * tăng version), comment mới nhất, updatedAt subtask mới nhất và id TaskLog mới nhất (cho trang log nhúng trong
+     * detail). Dấu vết comment / subtask lấy từ chính bảng con nên không phụ thuộc audit log ghi async.
+     * Kiểm tra quyền trước để 304 không lộ task của người khác.
+     */
+    @Transactional(readOnly = true)
+    public String detailETag(Long actorId, Long taskId) {
+        User actor = mustUser(actorId);
+        var v = taskRepository.findVersionRow(taskId).orElseThrow(() -> new RuntimeException("TASK_NOT_FOUND"));
+        if (!v.isActive()) throw new RuntimeException("TASK_NOT_FOUND");
+        assertCanAccess(actor, v.getAssigneeId());
+
+        long lastLogId = v.getLastLogId() == null ? 0 : v.getLastLogId();
+        long lastCommentId = v.getLastCommentId() == null ? 0 : v.getLastCommentId();
+        long lastSubTask = v.getLastSubTaskUpdatedAt() == null ? 0 : micros(v.getLastSubTaskUpdatedAt());
+        // cùng validator với PATCH: client GET rồi gửi lại ETag này trong If-Match
+        return VersionTag.withFingerprint(v.getVersion(), micros(v.getUpdatedAt()), lastCommentId, lastSubTask, lastLogId);
+    }
 
-        return new TaskDtos.TaskDetailResponse(toSummary(task), subs, comments, logs);
+    // ETag của list: count + max(updatedAt) trên cùng filter (task thêm / sửa / xoá mềm đều làm đổi 1 trong 2)
+    @Transactional(readOnly = true)
+    public String listETag(Long actorId, TaskDtos.TaskFilter filter) {
+        User actor = mustUser(actorId);
+        var fp = taskRepository.fingerprint(filterSpec(actor, filter));
+        return etag("l" + actor.getId(), fp.count(), micros(fp.maxUpdatedAt()));
+    }
+
+    // Comments cũ -> mới, cursor lấy từ nextCursor của detail hoặc trang trước
+    @Transactional(readOnly = true)
+    public TaskDtos.CursorPage<TaskDtos.CommentResponse> listComments(Long actorId, Long taskId, String cursor, int size) {
+        User actor = mustUser(actorId);
+        Task task = mustActiveTask(taskId);
+        assertCanAccessTask(actor, task);
+        return commentPage(taskId, cursor, Math.max(1, Math.min(size, MAX_THREAD_PAGE_SIZE)));
+    }
+
+    // Audit log mới -> cũ
+    @Transactional(readOnly = true)
+    public TaskDtos.CursorPage<TaskDtos.LogResponse> listLogs(Long actorId, Long taskId, String cursor, int size) {
+        User actor = mustUser(actorId);
+        Task task = mustActiveTask(taskId);
+        assertCanAccessTask(actor, task);
+        return logPage(taskId, cursor, Math.max(1, Math.min(size, MAX_THREAD_PAGE_SIZE)));
     }
 
     @Transactional
-    public TaskDtos.TaskSummaryResponse patchTask(Long actorId, Long taskId, TaskDtos.PatchTaskRequest req) {
+    public TaskDtos.TaskSummaryResponse patchTask(Long actorId, Long taskId, TaskDtos.PatchTaskRequest req, Long expectedVersion) {
         User actor = mustUser(actorId);
         mustAdmin(actor);
 
         Task task = mustActiveTask(taskId);
+        assertVersion(task.getVersion(), expectedVersion);
 
+        boolean changed = false;
         if (req.title() != null && !req.title().isBlank() && !req.title().equals(task.getTitle())) {
             log(task, actor, TaskLogAction.UPDATED, "title", task.getTitle(), req.title());
             task.setTitle(req.title());
+            changed = true;
         }
         if (req.description() != null && !Objects.equals(req.description(), task.getDescription())) {
-            log(task, actor, TaskLogAction.UPDATED, "description", task.getDescription(), req.description());
+            logDescription(task, actor, task.getDescription(), req.description());
             task.setDescription(req.description());
+            changed = true;
         }
         if (req.priority() != null && req.priority() != task.getPriority()) {
             log(task, actor, TaskLogAction.UPDATED, "priority", String.valueOf(task.getPriority()), String.valueOf(req.priority()));
             task.setPriority(req.priority());
+            changed = true;
         }
         if (req.dueDate() != null && !Objects.equals(req.dueDate(), task.getDueDate())) {
             log(task, actor, TaskLogAction.UPDATED, "dueDate", String.valueOf(task.getDueDate()), String.valueOf(req.dueDate()));
             task.setDueDate(req.dueDate());
+            changed = true;
         }
         if (req.tags() != null) {
-            log(task, actor, TaskLogAction.UPDATED, "tags", String.valueOf(task.getTags()), String.valueOf(req.tags()));
-            task.setTags(new HashSet<>(req.tags()));
+            // tags trong PATCH là bộ đầy đủ mong muốn -> chỉ áp phần chênh lệch
+            Set<String> desired = TagService.normalizeAll(req.tags());
+            Set<String> current = tagNames(task);
+            Set<String> add = new TreeSet<>(desired);
+            add.removeAll(current);
+            Set<String> remove = new TreeSet<>(current);
+            remove.removeAll(desired);
+            changed |= applyTagDelta(task, actor, add, remove);
         }
 
+        // không có gì đổi: không UPDATE, không bump version, không re-index
+        if (!changed) return toSummary(task);
+
         task = taskRepository.save(task);
+        taskRepository.flush(); // version mới có sau flush, response / ETag phải mang version đó
+        publishChanged(task, true);
         return toSummary(task);
     }
 
+    // thêm 1 tag; đã có thì trả về nguyên trạng (không ghi)
     @Transactional
-    public TaskDtos.TaskSummaryResponse assignTask(Long actorId, Long taskId, Long assigneeId) {
+    public TaskDtos.TaskSummaryResponse addTag(Long actorId, Long taskId, String tag, Long expectedVersion) {
+        return changeTag(actorId, taskId, tag, true, expectedVersion);
+    }
+
+    // bỏ 1 tag; không có thì trả về nguyên trạng (không ghi)
+    @Transactional
+    public TaskDtos.TaskSummaryResponse removeTag(Long actorId, Long taskId, String tag, Long expectedVersion) {
+        return changeTag(actorId, taskId, tag, false, expectedVersion);
+    }
+
+    private TaskDtos.TaskSummaryResponse changeTag(Long actorId, Long taskId, String tag, boolean add, Long expectedVersion) {
         User actor = mustUser(actorId);
         mustAdmin(actor);
 
+        String name = Tag.normalize(tag);
+        if (name == null) throw new RuntimeException("INVALID_TAG");
+
         Task task = mustActiveTask(taskId);
+        assertVersion(task.getVersion(), expectedVersion);
+
+        boolean present = tagNames(task).contains(name);
+        boolean changed = add
+                ? !present && applyTagDelta(task, actor, Set.of(name), Set.of())
+                : present && applyTagDelta(task, actor, Set.of(), Set.of(name));
+        if (!changed) return toSummary(task);
+
+        task = taskRepository.save(task);
+        taskRepository.flush();
+        publishChanged(task, false);
+        return toSummary(task);
+    }
+
+    /**
+     * Sửa tại chỗ collection đang managed (không thay bằng Set mới) để Hibernate chỉ INSERT / DELETE
+     * đúng các dòng task_tag_links thay đổi; audit chỉ ghi phần delta.
+     */
+    private boolean applyTagDelta(Task task, User actor, Set<String> add, Set<String> remove) {
+        if (add.isEmpty() && remove.isEmpty()) return false;
+        if (!remove.isEmpty()) {
+            task.getTags().removeIf(t -> remove.contains(t.getName()));
+            log(task, actor, TaskLogAction.UPDATED, "tags.remove", String.valueOf(remove), null);
+        }
+        if (!add.isEmpty()) {
+            task.getTags().addAll(tagService.resolveOrCreate(add));
+            log(task, actor, TaskLogAction.UPDATED, "tags.add", null, String.valueOf(add));
+        }
+        // đổi collection không kích hoạt @PreUpdate; updatedAt là validator của cache / ETag
+        task.setUpdatedAt(Instant.now());
+        return true;
+    }
+
+    @Transactional
+    public TaskDtos.TaskSummaryResponse assignTask(Long actorId, Long taskId, Long assigneeId, Long expectedVersion) {
+        User actor = mustUser(actorId);
+        mustAdmin(actor);
+
+        Task task = mustActiveTask(taskId);
+        assertVersion(task.getVersion(), expectedVersion);
         User assignee = mustUser(assigneeId);
 
         Long old = task.getAssignee() == null ? null : task.getAssignee().getId();
         task.setAssignee(assignee);
         taskRepository.save(task);
+        taskRepository.flush();
+        publishChanged(task, false);
 
         log(task, actor, TaskLogAction.ASSIGNED, "assigneeId",
                 old == null ? null : String.valueOf(old),
                 String.valueOf(assigneeId));
 
-        notificationService.createNotification(
+        notificationOutbox.append(
                 assignee.getId(),
                 actor.getId(),
                 NotificationType.TASK_ASSIGNED,
@@ -176,20 +445,23 @@ public class TaskService {
     }
 
     @Transactional
-    public TaskDtos.TaskSummaryResponse updateStatus(Long actorId, Long taskId, TaskStatus status) {
+    public TaskDtos.TaskSummaryResponse updateStatus(Long actorId, Long taskId, TaskStatus status, Long expectedVersion) {
         User actor = mustUser(actorId);
         Task task = mustActiveTask(taskId);
         assertCanAccessTask(actor, task);
+        assertVersion(task.getVersion(), expectedVersion);
 
         TaskStatus old = task.getStatus();
         if (old != status) {
             task.setStatus(status);
             taskRepository.save(task);
+            taskRepository.flush();
+            publishChanged(task, false);
 
             log(task, actor, TaskLogAction.STATUS_CHANGED, "status", String.valueOf(old), String.valueOf(status));
 
             if (task.getAssignee() != null) {
-                notificationService.createNotification(
+                notificationOutbox.append(
                         task.getAssignee().getId(),
                         actor.getId(),
                         NotificationType.TASK_STATUS_CHANGED,
@@ -213,6 +485,7 @@ public class TaskService {
         taskRepository.save(task);
 
         log(task, actor, TaskLogAction.DELETED, "active", "true", "false");
+        publishChanged(task, false);
     }
 
     // ---------- Subtasks ----------
@@ -236,13 +509,15 @@ public class TaskService {
     }
 
     @Transactional
-    public TaskDtos.SubTaskResponse patchSubTask(Long actorId, Long taskId, Long subTaskId, TaskDtos.PatchSubTaskRequest req) {
+    public TaskDtos.SubTaskResponse patchSubTask(
+            Long actorId, Long taskId, Long subTaskId, TaskDtos.PatchSubTaskRequest req, Long expectedVersion) {
         User actor = mustUser(actorId);
         Task task = mustActiveTask(taskId);
         assertCanAccessTask(actor, task);
 
         SubTask st = subTaskRepository.findById(subTaskId).orElseThrow(() -> new RuntimeException("SUBTASK_NOT_FOUND"));
         if (!Objects.equals(st.getTask().getId(), taskId) || !st.isActive()) throw new RuntimeException("SUBTASK_NOT_FOUND");
+        assertVersion(st.getVersion(), expectedVersion);
 
         if (req.title() != null && !req.title().isBlank() && !req.title().equals(st.getTitle())) {
             log(task, actor, TaskLogAction.SUBTASK_UPDATED, "subtask.title", st.getTitle(), req.title());
@@ -255,7 +530,7 @@ public class TaskService {
             st.setDone(req.done());
         }
 
-        st = subTaskRepository.save(st);
+        st = subTaskRepository.saveAndFlush(st);
         return toSub(st);
     }
 
@@ -307,7 +582,7 @@ public class TaskService {
         log(task, actor, TaskLogAction.COMMENTED, "comment", null, "(added)");
 
         if (task.getAssignee() != null && !Objects.equals(task.getAssignee().getId(), actorId)) {
-            notificationService.createNotification(
+            notificationOutbox.append(
                     task.getAssignee().getId(),
                     actor.getId(),
                     NotificationType.COMMENT_ADDED,
@@ -325,16 +600,307 @@ public class TaskService {
     }
 
     private void assertCanAccessTask(User actor, Task task) {
+        assertCanAccess(actor, task.getAssignee() == null ? null : task.getAssignee().getId());
+    }
+
+    private void assertCanAccess(User actor, Long assigneeId) {
         if (actor.getRole() == Role.ADMIN) return;
 
         // CUSTOMER chỉ được thao tác trên task assigned cho mình
-        if (task.getAssignee() == null || !Objects.equals(task.getAssignee().getId(), actor.getId())) {
+        if (assigneeId == null || !Objects.equals(assigneeId, actor.getId())) {
             throw new RuntimeException("FORBIDDEN");
         }
     }
 
+    // dùng chung với TaskBulkService (bulk theo filter phải chọn đúng tập task mà list hiển thị)
+    public Specification<Task> filterSpec(User actor, TaskDtos.TaskFilter f) {
+        return baseSpec(actor, f).and(keywordSpec(f.q()));
+    }
+
+    // mọi filter trừ keyword
+    private Specification<Task> baseSpec(User actor, TaskDtos.TaskFilter f) {
+        Set<Long> assigneeIds = f.assigneeId();
+
+        // CUSTOMER chỉ được thấy task assigned cho mình
+        if (actor.getRole() != Role.ADMIN) {
+            assigneeIds = Set.of(actor.getId());
+        }
+
+        return TaskSpecifications.activeOnly()
+                .and(TaskSpecifications.status(f.status()))
+                .and(TaskSpecifications.priority(f.priority()))
+                .and(TaskSpecifications.assigneeIds(assigneeIds))
+                .and(TaskSpecifications.dueFrom(f.dueFrom()))
+                .and(TaskSpecifications.dueTo(f.dueTo()))
+                .and(tagSpec(f));
+    }
+
+    // tên tag -> id qua dictionary; tên không tồn tại: AND/OR không match gì, NOT bỏ qua
+    private Specification<Task> tagSpec(TaskDtos.TaskFilter f) {
+        Set<String> all = TagService.normalizeAll(f.tagsAll());
+        if (f.tag() != null) all.addAll(TagService.normalizeAll(List.of(f.tag())));
+        Set<String> any = TagService.normalizeAll(f.tagsAny());
+        Set<String> none = TagService.normalizeAll(f.tagsNone());
+
+        Specification<Task> spec = Specification.where(null);
+        if (!all.isEmpty()) {
+            Map<String, Integer> ids = tagService.idsByName(all);
+            if (ids.size() < all.size()) return TaskSpecifications.none();
+            spec = spec.and(TaskSpecifications.tagsAll(ids.values()));
+        }
+        if (!any.isEmpty()) {
+            Map<String, Integer> ids = tagService.idsByName(any);
+            if (ids.isEmpty()) return TaskSpecifications.none();
+            spec = spec.and(TaskSpecifications.tagsAny(ids.values()));
+        }
+        if (!none.isEmpty()) {
+            spec = spec.and(TaskSpecifications.tagsNone(tagService.idsByName(none).values()));
+        }
+        return spec;
+    }
+
+    // filter cần đủ mọi id match (không cắt theo max-hits); index chưa build xong hoặc không trả đủ thì fallback LIKE
+    private Specification<Task> keywordSpec(String q) {
+        if (q == null || q.isBlank() || !searchIndex.isReady()) return TaskSpecifications.keyword(q);
+        Set<Long> ids = searchIndex.matchAll(q);
+        return ids == null ? TaskSpecifications.keyword(q) : TaskSpecifications.idIn(ids);
+    }
+
+    // sau commit: search index re-index (nếu contentChanged), TaskSummaryCache invalidate
+    private void publishChanged(Task t, boolean contentChanged) {
+        eventPublisher.publishEvent(new TaskChangedEvent(
+                t.getId(), t.getTitle(), t.getDescription(), t.isActive(), contentChanged));
+    }
+
+    private String sortKeyOf(Task t, String property) {
+        return switch (property) {
+            case "id" -> String.valueOf(t.getId());
+            case "createdAt" -> t.getCreatedAt().toString();
+            case "updatedAt" -> t.getUpdatedAt().toString();
+            case "title" -> t.getTitle();
+            default -> throw new RuntimeException("UNSUPPORTED_SORT");
+        };
+    }
+
+    private Comparable<?> parseSortKey(String property, String raw) {
+        try {
+            return switch (property) {
+                case "id" -> Long.valueOf(raw);
+                case "createdAt", "updatedAt" -> Instant.parse(raw);
+                case "title" -> raw;
+                default -> throw new RuntimeException("UNSUPPORTED_SORT");
+            };
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new RuntimeException("INVALID_CURSOR");
+        }
+    }
+
+    private Long parseId(String raw) {
+        try {
+            return Long.valueOf(raw);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("INVALID_CURSOR");
+        }
+    }
+
+    private TaskDtos.CursorPage<TaskDtos.CommentResponse> commentPage(Long taskId, String cursor, int limit) {
+        List<TaskComment> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = taskCommentRepository.findByTaskIdOrderByCreatedAtAscIdAsc(taskId, Limit.of(limit + 1));
+        } else {
+            String[] c = CursorUtil.decode(cursor, 2);
+            rows = taskCommentRepository.findPageAfter(taskId, parseInstant(c[0]), parseId(c[1]), Limit.of(limit + 1));
+        }
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) rows = rows.subList(0, limit);
+
+        String next = null;
+        if (hasNext) {
+            TaskComment last = rows.get(rows.size() - 1);
+            next = CursorUtil.encode(last.getCreatedAt().toString(), String.valueOf(last.getId()));
+        }
+        return new TaskDtos.CursorPage<>(rows.stream().map(this::toComment).toList(), next, hasNext);
+    }
+
+    private TaskDtos.CursorPage<TaskDtos.LogResponse> logPage(Long taskId, String cursor, int limit) {
+        List<TaskLog> rows;
+        Instant afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor == null || cursor.isBlank()) {
+            rows = taskLogRepository.findByTaskIdOrderByCreatedAtDescIdDesc(taskId, Limit.of(limit + 1));
+        } else {
+            String[] c = CursorUtil.decode(cursor, 2);
+            afterCreatedAt = parseInstant(c[0]);
+            afterId = parseId(c[1]);
+            rows = taskLogRepository.findPageBefore(taskId, afterCreatedAt, afterId, Limit.of(limit + 1));
+        }
+
+        List<TaskDtos.LogResponse> items = new ArrayList<>(rows.stream().map(this::toLog).toList());
+        if (rows.size() <= limit) {
+            // bảng nóng đã hết -> đọc tiếp phần cũ hơn trong segment đã archive, cùng cursor (createdAt, id)
+            if (!rows.isEmpty()) {
+                TaskLog last = rows.get(rows.size() - 1);
+                afterCreatedAt = last.getCreatedAt();
+                afterId = last.getId();
+            }
+            items.addAll(toArchivedLogs(logArchive.before(taskId, afterCreatedAt, afterId, limit + 1 - rows.size())));
+        }
+
+        boolean hasNext = items.size() > limit;
+        if (hasNext) items = items.subList(0, limit);
+        items = resolveDescriptionDeltas(taskId, items, rows.size());
+
+        String next = null;
+        if (hasNext) {
+            TaskDtos.LogResponse last = items.get(items.size() - 1);
+            next = CursorUtil.encode(last.createdAt().toString(), String.valueOf(last.id()));
+        }
+        return new TaskDtos.CursorPage<>(items, next, hasNext);
+    }
+
+    /**
+     * Dựng lại old / new của các log description.delta trong trang: replay ngược (mới -> cũ) các thay đổi description
+     * từ điểm đồng bộ lại gần nhất phía trên delta mới nhất của trang (log viết lại toàn bộ, oldValue là full text;
+     * không có thì từ description hiện tại) xuống tới delta cũ nhất của trang.
+     * Chuỗi lệch (vd. log async chưa kịp ghi) thì trả old / new = null chứ không trả text sai.
+     */
+    private List<TaskDtos.LogResponse> resolveDescriptionDeltas(Long taskId, List<TaskDtos.LogResponse> items, int hotCount) {
+        int newest = -1;
+        int oldest = -1;
+        for (int i = 0; i < items.size(); i++) {
+            if (!DESCRIPTION_DELTA.equals(items.get(i).fieldName())) continue;
+            if (newest < 0) newest = i;
+            oldest = i;
+        }
+        if (oldest < 0) return items;
+
+        // log archive luôn cũ hơn bảng nóng: delta nằm trong archive thì cần cả lịch sử nóng + phần archive mới hơn nó
+        TaskDtos.LogResponse o = items.get(oldest);
+        TaskDtos.LogResponse n = items.get(newest);
+        boolean archived = oldest >= hotCount;
+        boolean newestArchived = newest >= hotCount;
+        Instant fromAt = archived ? Instant.EPOCH : o.createdAt();
+        long fromId = archived ? 0L : o.id();
+
+        var resync = taskLogRepository.findFieldChangesAfter(taskId, "description",
+                newestArchived ? Instant.EPOCH : n.createdAt(), newestArchived ? 0L : n.id(), Limit.of(1));
+        var hot = resync.isEmpty()
+                ? taskLogRepository.findFieldHistorySince(taskId, DESCRIPTION_FIELDS, fromAt, fromId)
+                : taskLogRepository.findFieldHistoryBetween(taskId, DESCRIPTION_FIELDS, fromAt, fromId,
+                        resync.get(0).getCreatedAt(), resync.get(0).getId());
+        List<FieldChange> history = new ArrayList<>();
+        for (var r : hot) {
+            history.add(new FieldChange(r.getId(), r.getFieldName(), r.getOldValue(), r.getNewValue()));
+        }
+        if (archived) history.addAll(archivedDescriptionHistory(taskId, o));
+
+        Map<Long, String[]> resolved = new HashMap<>();
+        String current = taskRepository.findDescriptionById(taskId).orElse(null);
+        boolean known = true;
+        for (FieldChange h : history) {
+            if (DESCRIPTION_DELTA.equals(h.fieldName())) {
+                String before = known ? TextDelta.revert(current, h.newValue()) : null;
+                resolved.put(h.id(), new String[]{before, before == null ? null : current});
+                current = before;
+                known = before != null;
+            } else {
+                // log full value: điểm đồng bộ lại của chuỗi
+                current = h.oldValue();
+                known = true;
+            }
+        }
+
+        List<TaskDtos.LogResponse> out = new ArrayList<>(items.size());
+        for (var l : items) {
+            if (!DESCRIPTION_DELTA.equals(l.fieldName())) {
+                out.add(l);
+                continue;
+            }
+            String[] v = resolved.getOrDefault(l.id(), new String[2]);
+            out.add(new TaskDtos.LogResponse(l.id(), l.action(), "description", v[0], v[1], l.actor(), l.createdAt()));
+        }
+        return out;
+    }
+
+    // thay đổi description trong archive từ mới nhất xuống tới delta o, đọc từng lô thay vì cả archive của task
+    private List<FieldChange> archivedDescriptionHistory(Long taskId, TaskDtos.LogResponse o) {
+        List<FieldChange> out = new ArrayList<>();
+        Instant at = null;
+        Long id = null;
+        while (true) {
+            List<LogSegmentFile.Row> chunk = logArchive.before(taskId, at, id, ARCHIVE_HISTORY_CHUNK);
+            for (var r : chunk) {
+                if (r.createdAt().isBefore(o.createdAt()) || (r.createdAt().equals(o.createdAt()) && r.id() < o.id())) {
+                    return out;
+                }
+                if (DESCRIPTION_FIELDS.contains(r.fieldName())) {
+                    out.add(new FieldChange(r.id(), r.fieldName(), r.oldValue(), r.newValue()));
+                }
+            }
+            if (chunk.size() < ARCHIVE_HISTORY_CHUNK) return out;
+            LogSegmentFile.Row last = chunk.get(chunk.size() - 1);
+            at = last.createdAt();
+            id = last.id();
+        }
+    }
+
+    private record FieldChange(Long id, String fieldName, String oldValue, String newValue) {}
+
+    private List<TaskDtos.LogResponse> toArchivedLogs(List<LogSegmentFile.Row> rows) {
+        if (rows.isEmpty()) return List.of();
+        Set<Long> actorIds = new HashSet<>();
+        for (var r : rows) actorIds.add(r.actorId());
+        Map<Long, User> actors = new HashMap<>();
+        for (User u : userRepository.findAllById(actorIds)) actors.put(u.getId(), u);
+
+        List<TaskDtos.LogResponse> out = new ArrayList<>(rows.size());
+        for (var r : rows) {
+            User a = actors.get(r.actorId());
+            out.add(new TaskDtos.LogResponse(
+                    r.id(),
+                    r.action(),
+                    r.fieldName(),
+                    r.oldValue(),
+                    r.newValue(),
+                    new TaskDtos.UserBrief(r.actorId(), a == null ? null : a.getEmail(), a == null ? null : a.getFullName()),
+                    r.createdAt()
+            ));
+        }
+        return out;
+    }
+
+    /**
+     * If-Match: client gửi version đã đọc; khác version hiện tại -> 412, không lock row.
+     * Ghi đè đồng thời giữa lúc check và commit vẫn bị chặn bởi @Version khi flush.
+     */
+    private void assertVersion(long current, Long expected) {
+        if (expected != null && expected != current) {
+            throw new OptimisticLockingFailureException("VERSION_CONFLICT");
+        }
+    }
+
+    private static String etag(String scope, long a, long b) {
+        return "\"" + scope + "-" + Long.toHexString(a) + "-" + Long.toHexString(b) + "\"";
+    }
+
+    // updatedAt lưu tới micro giây (DATETIME(6)), dùng milli sẽ trùng khi 2 lần sửa sát nhau
+    private static long micros(Instant t) {
+        return t == null ? 0 : t.getEpochSecond() * 1_000_000 + t.getNano() / 1_000;
+    }
+
+    private Instant parseInstant(String raw) {
+        try {
+            return Instant.parse(raw);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("INVALID_CURSOR");
+        }
+    }
+
+    // actor của request đã được filter load sẵn -> không query lại
     private User mustUser(Long id) {
-        return userRepository.findById(id).orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
+        return AuthenticatedUserContext.find(id)
+                .or(() -> userRepository.findById(id))
+                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
     }
 
     private Task mustActiveTask(Long id) {
@@ -343,6 +909,18 @@ public class TaskService {
         return t;
     }
 
+    private void logDescription(Task task, User actor, String oldVal, String newVal) {
+        if (oldVal != null && newVal != null
+                && Math.max(oldVal.length(), newVal.length()) >= DESCRIPTION_DELTA_MIN_CHARS) {
+            String delta = TextDelta.encode(oldVal, newVal);
+            if (delta != null) {
+                log(task, actor, TaskLogAction.UPDATED, DESCRIPTION_DELTA, null, delta);
+                return;
+            }
+        }
+        log(task, actor, TaskLogAction.UPDATED, "description", oldVal, newVal);
+    }
+
     private void log(Task task, User actor, TaskLogAction action, String fieldName, String oldVal, String newVal) {
         TaskLog l = TaskLog.builder()
                 .task(task)
@@ -352,10 +930,58 @@ public class TaskService {
                 .oldValue(oldVal)
                 .newValue(newVal)
                 .build();
-        taskLogRepository.save(l);
+        auditLog.append(l);
+    }
+
+    /**
+     * Read path cho list: assignee đã được join fetch cùng rows, tags của cả trang lấy bằng 1 query IN.
+     * Tổng cộng số query / trang là hằng số, không phụ thuộc số dòng.
+     */
+    private List<TaskDtos.TaskSummaryResponse> toSummaries(List<Task> tasks, long cacheToken) {
+        if (tasks.isEmpty()) return List.of();
+
+        // summary trong cache chỉ dùng khi khớp updatedAt của row vừa đọc
+        Map<Long, TaskDtos.TaskSummaryResponse> cached = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Task t : tasks) {
+            TaskDtos.TaskSummaryResponse c = summaryCache.get(t.getId());
+            if (c != null && Objects.equals(c.updatedAt(), t.getUpdatedAt())) {
+                cached.put(t.getId(), c);
+            } else {
+                missing.add(t.getId());
+            }
+        }
+
+        Map<Long, Set<String>> tags = new HashMap<>();
+        if (!missing.isEmpty()) {
+            for (var row : taskRepository.findTagRows(missing)) {
+                tags.computeIfAbsent(row.getTaskId(), k -> new HashSet<>()).add(row.getTag());
+            }
+        }
+
+        List<TaskDtos.TaskSummaryResponse> out = new ArrayList<>(tasks.size());
+        for (Task t : tasks) {
+            TaskDtos.TaskSummaryResponse s = cached.get(t.getId());
+            if (s == null) {
+                s = toSummary(t, tags.getOrDefault(t.getId(), Set.of()));
+                summaryCache.put(t.getId(), s, cacheToken);
+            }
+            out.add(s);
+        }
+        return out;
     }
 
     private TaskDtos.TaskSummaryResponse toSummary(Task t) {
+        return toSummary(t, tagNames(t));
+    }
+
+    private Set<String> tagNames(Task t) {
+        Set<String> names = new HashSet<>();
+        for (Tag tag : t.getTags()) names.add(tag.getName());
+        return names;
+    }
+
+    private TaskDtos.TaskSummaryResponse toSummary(Task t, Set<String> tags) {
         TaskDtos.UserBrief assignee = null;
         if (t.getAssignee() != null) {
             var a = t.getAssignee();
@@ -367,16 +993,17 @@ public class TaskService {
                 t.getStatus(),
                 t.getPriority(),
                 t.getDueDate(),
-                t.getTags(),
+                tags,
                 assignee,
                 t.isActive(),
                 t.getCreatedAt(),
-                t.getUpdatedAt()
+                t.getUpdatedAt(),
+                t.getVersion()
         );
     }
 
     private TaskDtos.SubTaskResponse toSub(SubTask s) {
-        return new TaskDtos.SubTaskResponse(s.getId(), s.getTitle(), s.isDone(), s.isActive(), s.getCreatedAt());
+        return new TaskDtos.SubTaskResponse(s.getId(), s.getTitle(), s.isDone(), s.isActive(), s.getCreatedAt(), s.getVersion());
     }
 
     private TaskDtos.CommentResponse toComment(TaskComment c) {
@@ -0,0 +1,127 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import project.demo.dto.TaskDtos;
+import project.demo.event.TaskChangedEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache read-through TaskSummaryResponse theo taskId: LRU giới hạn size + TTL.
+ *
+ * Invalidate sau khi transaction ghi commit (TaskChangedEvent, AFTER_COMMIT) nên khi API ghi trả về thì cache đã sạch.
+ * Reader lấy readToken() trước lần đọc DB đầu tiên; invalidate để lại tombstone mang seq mới hơn.
+ * put bị bỏ khi token nhỏ hơn seq của entry hiện tại (tombstone, hoặc giá trị mới do reader bắt đầu sau invalidate)
+ * hoặc nhỏ hơn seq lớn nhất từng bị evict khỏi map — nên reader chậm đọc snapshot cũ không thể put đè giá trị cũ,
+ * kể cả khi tombstone đã bị thay hay bị LRU đẩy ra. Đổi lại thỉnh thoảng bỏ nhầm 1 put (chỉ là cache miss).
+ */
+@Component
+public class TaskSummaryCache {
+
+    private record Entry(TaskDtos.TaskSummaryResponse value, long seq, long expiresAtNanos) {
+        boolean tombstone() {
+            return value == null;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final AtomicLong seq = new AtomicLong();
+    // seq lớn nhất trong các entry đã rời map (LRU / hết TTL); guard bằng lock của entries
+    private long evictedSeq;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LinkedHashMap<Long, Entry> entries;
+
+    public TaskSummaryCache(
+            @Value("${app.cache.task-summary.max-size:10000}") int maxSize,
+            @Value("${app.cache.task-summary.ttl-seconds:60}") long ttlSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= TaskSummaryCache.this.maxSize) return false;
+                evictions.increment();
+                evictedSeq = Math.max(evictedSeq, eldest.getValue().seq());
+                return true;
+            }
+        };
+
+        FunctionCounter.builder("task.summary.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("task.summary.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("task.summary.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("task.summary.cache.size", this, TaskSummaryCache::size).register(meterRegistry);
+    }
+
+    // gọi trước khi đọc DB; truyền lại vào put()
+    public long readToken() {
+        return seq.get();
+    }
+
+    public TaskDtos.TaskSummaryResponse get(Long taskId) {
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(taskId);
+            if (e != null && !e.tombstone() && e.expiresAtNanos() - System.nanoTime() <= 0) {
+                entries.remove(taskId);
+                evictions.increment();
+                evictedSeq = Math.max(evictedSeq, e.seq());
+                e = null;
+            }
+        }
+        if (e == null || e.tombstone()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.value();
+    }
+
+    public void put(Long taskId, TaskDtos.TaskSummaryResponse value, long token) {
+        synchronized (entries) {
+            Entry cur = entries.get(taskId);
+            // có invalidate (hoặc reader mới hơn đã put) sau thời điểm reader này bắt đầu -> giá trị có thể cũ, bỏ
+            if (cur != null ? cur.seq() > token : evictedSeq > token) return;
+            entries.put(taskId, new Entry(value, token, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public void invalidate(Long taskId) {
+        synchronized (entries) {
+            entries.put(taskId, new Entry(null, seq.incrementAndGet(), 0L));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent e) {
+        invalidate(e.taskId());
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+}
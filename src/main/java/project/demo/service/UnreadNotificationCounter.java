@@ -0,0 +1,178 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import project.demo.entity.User;
+import project.demo.event.NotificationCreatedEvent;
+import project.demo.event.NotificationsReadEvent;
+import project.demo.repository.UserRepository;
+import project.demo.security.AuthenticatedUserContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Badge số notification chưa đọc: map trong process chia stripe (mỗi stripe 1 LRU + lock riêng) đứng trước cột
+ * users.unread_notifications.
+ *
+ * <p>Cột được +/- cùng transaction với thay đổi notification; map cộng / trừ theo event sau commit nên không bao giờ
+ * đếm notification của transaction rollback. Miss / hết TTL thì lấy giá trị cột từ User mà JwtAuthenticationFilter đã
+ * load cho request (không thêm query); TTL cũng giới hạn độ lệch khi chạy nhiều instance.
+ * Job reconcile đếm lại từ bảng notifications theo lô user id và sửa cột nào bị lệch.
+ */
+@Slf4j
+@Component
+public class UnreadNotificationCounter {
+
+    static final String RECONCILE_SQL = """
+            UPDATE users u
+            LEFT JOIN (SELECT recipient_id, COUNT(*) AS c FROM notifications
+                       WHERE active = true AND read_at IS NULL AND recipient_id >= ? AND recipient_id < ?
+                       GROUP BY recipient_id) x ON x.recipient_id = u.id
+            SET u.unread_notifications = COALESCE(x.c, 0)
+            WHERE u.id >= ? AND u.id < ? AND u.unread_notifications <> COALESCE(x.c, 0)
+            """;
+
+    private static final int STRIPES = 64;
+    private static final int RECONCILE_BATCH = 1000;
+
+    private static final class Entry {
+        int value;
+        final long expiresAtNanos;
+
+        Entry(int value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlNanos;
+    private final boolean reconcileEnabled;
+    private final LinkedHashMap<Long, Entry>[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Counter drift;
+
+    @SuppressWarnings("unchecked")
+    public UnreadNotificationCounter(
+            UserRepository userRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.notification.unread.max-size:100000}") int maxSize,
+            @Value("${app.notification.unread.ttl-seconds:30}") long ttlSeconds,
+            @Value("${app.notification.unread.reconcile-enabled:true}") boolean reconcileEnabled
+    ) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlNanos = Math.max(1, ttlSeconds) * 1_000_000_000L;
+        this.reconcileEnabled = reconcileEnabled;
+
+        int perStripe = Math.max(1, maxSize / STRIPES);
+        this.stripes = new LinkedHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    return size() > perStripe;
+                }
+            };
+        }
+
+        FunctionCounter.builder("notification.unread.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("notification.unread.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        this.drift = Counter.builder("notification.unread.drift")
+                .description("Số user có unread_notifications lệch, đã được reconcile sửa")
+                .register(meterRegistry);
+    }
+
+    public int get(Long userId) {
+        LinkedHashMap<Long, Entry> stripe = stripe(userId);
+        synchronized (stripe) {
+            Entry e = stripe.get(userId);
+            if (e != null && e.expiresAtNanos - System.nanoTime() > 0) {
+                hits.increment();
+                return e.value;
+            }
+        }
+        misses.increment();
+        int value = AuthenticatedUserContext.find(userId)
+                .map(User::getUnreadNotifications)
+                .orElseGet(() -> userRepository.findUnreadNotifications(userId).orElse(0));
+        synchronized (stripe) {
+            stripe.put(userId, new Entry(value, System.nanoTime() + ttlNanos));
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCreated(NotificationCreatedEvent e) {
+        if (!e.merged()) add(e.recipientId(), 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRead(NotificationsReadEvent e) {
+        add(e.recipientId(), -e.count());
+    }
+
+    // user chưa có trong map thì bỏ qua: lần get sau đọc giá trị cột (đã gồm thay đổi này)
+    private void add(Long userId, int delta) {
+        LinkedHashMap<Long, Entry> stripe = stripe(userId);
+        synchronized (stripe) {
+            Entry e = stripe.get(userId);
+            if (e != null) e.value = Math.max(0, e.value + delta);
+        }
+    }
+
+    public void invalidateAll() {
+        for (LinkedHashMap<Long, Entry> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.notification.unread.reconcile-cron:0 15 * * * *}", zone = "UTC")
+    public void scheduledReconcile() {
+        if (!reconcileEnabled) return;
+        try {
+            int fixed = reconcile();
+            if (fixed > 0) log.warn("Reconciled unread_notifications for {} user(s)", fixed);
+        } catch (Exception e) {
+            log.error("unread_notifications reconciliation failed", e);
+        }
+    }
+
+    /** @return số user bị lệch đã sửa */
+    public int reconcile() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        if (maxId == null) return 0;
+        int fixed = 0;
+        // mỗi lô 1 statement auto-commit: lock ngắn trên 1 khoảng user id
+        for (long lo = 1; lo <= maxId; lo += RECONCILE_BATCH) {
+            long hi = lo + RECONCILE_BATCH;
+            fixed += jdbcTemplate.update(RECONCILE_SQL, lo, hi, lo, hi);
+        }
+        if (fixed > 0) {
+            drift.increment(fixed);
+            invalidateAll();
+        }
+        return fixed;
+    }
+
+    private LinkedHashMap<Long, Entry> stripe(Long userId) {
+        return stripes[(Long.hashCode(userId) * 0x9E3779B9 >>> 26) & (STRIPES - 1)];
+    }
+}
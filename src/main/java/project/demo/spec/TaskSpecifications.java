@@ -1,11 +1,16 @@
 package project.demo.spec;
 
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import project.demo.entity.Task;
+import project.demo.entity.TaskTagLink;
 import project.demo.enums.TaskPriority;
 import project.demo.enums.TaskStatus;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
 
 public class TaskSpecifications {
 
@@ -13,18 +18,40 @@ public class TaskSpecifications {
         return (root, q, cb) -> cb.isTrue(root.get("active"));
     }
 
-    public static Specification<Task> status(TaskStatus status) {
-        return (root, q, cb) -> status == null ? cb.conjunction() : cb.equal(root.get("status"), status);
+    // join fetch assignee cho query lấy rows; count query (resultType Long) thì bỏ qua
+    public static Specification<Task> fetchAssignee() {
+        return (root, q, cb) -> {
+            Class<?> type = q.getResultType();
+            if (type != Long.class && type != long.class) {
+                root.fetch("assignee", JoinType.LEFT);
+            }
+            return cb.conjunction();
+        };
+    }
+
+    // null / rỗng = không lọc; 1 giá trị = equal; nhiều giá trị = IN (vẫn dùng được index của cột)
+    public static Specification<Task> status(Collection<TaskStatus> status) {
+        return (root, q, cb) -> in(cb, root.get("status"), status);
     }
 
-    public static Specification<Task> priority(TaskPriority priority) {
-        return (root, q, cb) -> priority == null ? cb.conjunction() : cb.equal(root.get("priority"), priority);
+    public static Specification<Task> priority(Collection<TaskPriority> priority) {
+        return (root, q, cb) -> in(cb, root.get("priority"), priority);
     }
 
     public static Specification<Task> assigneeId(Long assigneeId) {
         return (root, q, cb) -> assigneeId == null ? cb.conjunction() : cb.equal(root.get("assignee").get("id"), assigneeId);
     }
 
+    public static Specification<Task> assigneeIds(Collection<Long> assigneeIds) {
+        return (root, q, cb) -> in(cb, root.get("assignee").get("id"), assigneeIds);
+    }
+
+    private static <V> Predicate in(CriteriaBuilder cb, Path<V> path, Collection<V> values) {
+        if (values == null || values.isEmpty()) return cb.conjunction();
+        if (values.size() == 1) return cb.equal(path, values.iterator().next());
+        return path.in(values);
+    }
+
     public static Specification<Task> dueFrom(LocalDate from) {
         return (root, q, cb) -> from == null ? cb.conjunction() : cb.greaterThanOrEqualTo(root.get("dueDate"), from);
     }
@@ -33,14 +60,52 @@ public class TaskSpecifications {
         return (root, q, cb) -> to == null ? cb.conjunction() : cb.lessThanOrEqualTo(root.get("dueDate"), to);
     }
 
-    public static Specification<Task> tag(String tag) {
+    // AND: task có đủ mọi tag — 1 lần quét posting list (tag_id, task_id), group by task having count = n
+    public static Specification<Task> tagsAll(Collection<Integer> tagIds) {
+        return (root, q, cb) -> {
+            if (tagIds == null || tagIds.isEmpty()) return cb.conjunction();
+            Subquery<Long> sq = q.subquery(Long.class);
+            Root<TaskTagLink> l = sq.from(TaskTagLink.class);
+            Path<Long> taskId = l.get("id").get("taskId");
+            sq.select(taskId)
+                    .where(l.get("id").get("tagId").in(tagIds))
+                    .groupBy(taskId)
+                    .having(cb.equal(cb.count(l.get("id").get("tagId")), (long) new HashSet<>(tagIds).size()));
+            return root.get("id").in(sq);
+        };
+    }
+
+    // OR: có ít nhất 1 tag
+    public static Specification<Task> tagsAny(Collection<Integer> tagIds) {
+        return (root, q, cb) -> {
+            if (tagIds == null || tagIds.isEmpty()) return cb.conjunction();
+            return root.get("id").in(taskIdsWithTags(q, tagIds));
+        };
+    }
+
+    // NOT: không có tag nào trong danh sách
+    public static Specification<Task> tagsNone(Collection<Integer> tagIds) {
         return (root, q, cb) -> {
-            if (tag == null || tag.isBlank()) return cb.conjunction();
-            var join = root.joinSet("tags"); // ElementCollection join
-            return cb.equal(join, tag.trim());
+            if (tagIds == null || tagIds.isEmpty()) return cb.conjunction();
+            return cb.not(root.get("id").in(taskIdsWithTags(q, tagIds)));
         };
     }
 
+    private static Subquery<Long> taskIdsWithTags(CommonAbstractCriteria q, Collection<Integer> tagIds) {
+        Subquery<Long> sq = q.subquery(Long.class);
+        Root<TaskTagLink> l = sq.from(TaskTagLink.class);
+        return sq.select(l.get("id").get("taskId")).where(l.get("id").get("tagId").in(tagIds));
+    }
+
+    public static Specification<Task> none() {
+        return (root, q, cb) -> cb.disjunction();
+    }
+
+    // kết quả từ TaskSearchIndex: rỗng nghĩa là không match gì
+    public static Specification<Task> idIn(Collection<Long> ids) {
+        return (root, q, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
     public static Specification<Task> keyword(String qStr) {
         return (root, q, cb) -> {
             if (qStr == null || qStr.isBlank()) return cb.conjunction();
@@ -51,4 +116,24 @@ public class TaskSpecifications {
             );
         };
     }
+
+    // keyset: (sortKey, id) đứng sau phần tử cuối trang trước theo đúng chiều sort
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Task> keysetAfter(String property, Sort.Direction dir, Comparable lastKey, Long lastId) {
+        return (root, q, cb) -> {
+            if (lastKey == null || lastId == null) return cb.conjunction();
+            Path key = root.get(property);
+            Path<Long> id = root.get("id");
+            if (dir.isAscending()) {
+                return cb.or(
+                        cb.greaterThan(key, lastKey),
+                        cb.and(cb.equal(key, lastKey), cb.greaterThan(id, lastId))
+                );
+            }
+            return cb.or(
+                    cb.lessThan(key, lastKey),
+                    cb.and(cb.equal(key, lastKey), cb.lessThan(id, lastId))
+            );
+        };
+    }
 }
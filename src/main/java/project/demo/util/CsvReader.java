@@ -0,0 +1,100 @@
+package project.demo.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc CSV (RFC 4180) từng record từ Reader, không load cả file.
+ * Hỗ trợ field trong "..." (có dấu phẩy, xuống dòng, "" = dấu nháy), CRLF / LF, BOM UTF-8 ở đầu file.
+ * Record dài quá maxRecordChars (vd. thiếu dấu nháy đóng) -> lỗi CSV_RECORD_TOO_LONG thay vì ăn hết heap.
+ */
+public final class CsvReader {
+
+    private final Reader in;
+    private final char delimiter;
+    private final int maxRecordChars;
+
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int len;
+    private boolean started;
+
+    // số dòng vật lý đã đọc, và dòng bắt đầu của record vừa trả về
+    private long linesRead;
+    private long recordLine;
+
+    public CsvReader(Reader in, char delimiter, int maxRecordChars) {
+        this.in = in;
+        this.delimiter = delimiter;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /** Dòng bắt đầu (1-based) của record vừa trả về bởi {@link #next()}. */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    /** Record tiếp theo, null khi hết file. */
+    public List<String> next() throws IOException {
+        if (!started) {
+            started = true;
+            if (peek() == '\uFEFF') pos++;
+        }
+        if (peek() < 0) return null;
+
+        recordLine = linesRead + 1;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int recordChars = 0;
+
+        while (true) {
+            int c = read();
+            if (++recordChars > maxRecordChars) throw new RuntimeException("CSV_RECORD_TOO_LONG");
+            if (quoted) {
+                if (c < 0) throw new RuntimeException("CSV_UNTERMINATED_QUOTE");
+                if (c == '"') {
+                    if (peek() == '"') {
+                        pos++;
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') linesRead++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r' && peek() == '\n') pos++;
+                linesRead++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private int read() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return buf[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        len = Math.max(0, in.read(buf, 0, buf.length));
+        pos = 0;
+        return len > 0;
+    }
+}
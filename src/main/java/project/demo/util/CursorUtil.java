@@ -0,0 +1,39 @@
+package project.demo.util;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token cho keyset pagination.
+ * Token = base64url("part1|part2|...") — mỗi part được URL-encode nên không vỡ khi giá trị chứa '|'.
+ */
+public final class CursorUtil {
+
+    private CursorUtil() {}
+
+    public static String encode(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) sb.append('|');
+            sb.append(URLEncoder.encode(parts[i] == null ? "" : parts[i], StandardCharsets.UTF_8));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != expectedParts) throw new IllegalArgumentException();
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = URLDecoder.decode(parts[i], StandardCharsets.UTF_8);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("INVALID_CURSOR");
+        }
+    }
+}
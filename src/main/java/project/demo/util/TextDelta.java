@@ -0,0 +1,60 @@
+package project.demo.util;
+
+/**
+ * Diff gọn cho audit log của field text lớn (description): chỉ lưu vùng bị sửa thay vì cả old + new.
+ *
+ * <pre>
+ * "&lt;prefixLen&gt;,&lt;removedLen&gt;,&lt;hash(new) hex&gt;:" + removed + inserted
+ * </pre>
+ * prefix / suffix chung giữa old và new bị bỏ đi; old được dựng lại từ new (giá trị ngay sau lần sửa) bằng
+ * {@link #revert}. hash(new) dùng để phát hiện chuỗi replay bị lệch (thiếu log...) thay vì trả về text sai.
+ */
+public final class TextDelta {
+
+    private TextDelta() {}
+
+    /** null khi diff không nhỏ hơn đáng kể so với lưu nguyên (vd. viết lại toàn bộ) -> nên log full value. */
+    public static String encode(String oldValue, String newValue) {
+        if (oldValue == null || newValue == null) return null;
+        int max = Math.min(oldValue.length(), newValue.length());
+
+        int prefix = 0;
+        while (prefix < max && oldValue.charAt(prefix) == newValue.charAt(prefix)) prefix++;
+        // không cắt giữa surrogate pair: removed / inserted phải là chuỗi UTF-16 hợp lệ để lưu được vào DB
+        if (prefix > 0 && Character.isHighSurrogate(oldValue.charAt(prefix - 1))) prefix--;
+
+        int suffix = 0;
+        while (suffix < max - prefix
+                && oldValue.charAt(oldValue.length() - 1 - suffix) == newValue.charAt(newValue.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(oldValue.charAt(oldValue.length() - suffix))) suffix--;
+
+        String removed = oldValue.substring(prefix, oldValue.length() - suffix);
+        String inserted = newValue.substring(prefix, newValue.length() - suffix);
+        String delta = prefix + "," + removed.length() + "," + Integer.toHexString(newValue.hashCode()) + ":"
+                + removed + inserted;
+        return delta.length() < (oldValue.length() + newValue.length()) / 2 ? delta : null;
+    }
+
+    /** Giá trị trước lần sửa, dựng từ giá trị ngay sau lần sửa. null khi delta không khớp với newValue. */
+    public static String revert(String newValue, String delta) {
+        if (newValue == null || delta == null) return null;
+        int colon = delta.indexOf(':');
+        if (colon < 0) return null;
+        String[] head = delta.substring(0, colon).split(",");
+        if (head.length != 3) return null;
+        try {
+            int prefix = Integer.parseInt(head[0]);
+            int removedLen = Integer.parseInt(head[1]);
+            if (Integer.parseUnsignedInt(head[2], 16) != newValue.hashCode()) return null;
+
+            String removed = delta.substring(colon + 1, colon + 1 + removedLen);
+            int insertedLen = delta.length() - colon - 1 - removedLen;
+            if (prefix + insertedLen > newValue.length()) return null;
+            return newValue.substring(0, prefix) + removed + newValue.substring(prefix + insertedLen);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package project.demo.util;
+
+/**
+ * ETag cho @Version của entity: "v<version>", hoặc "v<version>.<hex>..." cho representation có thêm dấu vết
+ * ngoài version (task detail: updatedAt, comment / subtask / TaskLog mới nhất, để If-None-Match đổi khi chúng đổi).
+ * Client gửi lại đúng ETag đã nhận (từ GET hay PATCH) trong If-Match; server chỉ so phần version.
+ */
+public final class VersionTag {
+
+    // không khớp với version nào (version luôn >= 0) -> 412
+    private static final long NO_MATCH = -1L;
+
+    private VersionTag() {}
+
+    public static String of(long version) {
+        return "\"v" + version + "\"";
+    }
+
+    public static String withFingerprint(long version, long... parts) {
+        StringBuilder sb = new StringBuilder("\"v").append(version);
+        for (long p : parts) sb.append('.').append(Long.toHexString(p));
+        return sb.append('"').toString();
+    }
+
+    /** null khi không có If-Match hoặc "*" (không ràng buộc version). */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) return null;
+        String v = ifMatch.trim();
+        if (v.equals("*")) return null;
+        // If-Match dùng so sánh strong: ETag weak (W/"...") không bao giờ khớp
+        if (v.length() < 4 || !v.startsWith("\"v") || !v.endsWith("\"")) return NO_MATCH;
+        String body = v.substring(2, v.length() - 1);
+        int dot = body.indexOf('.');
+        try {
+            return Long.parseLong(dot < 0 ? body : body.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return NO_MATCH;
+        }
+    }
+}
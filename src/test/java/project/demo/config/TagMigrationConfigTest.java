@@ -0,0 +1,37 @@
+package project.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TagMigrationConfigTest {
+
+    @Mock JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrateLegacyTags_whenNoLegacyTable_shouldDoNothing() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(0);
+
+        new TagMigrationConfig(jdbcTemplate).migrateLegacyTags().run(new DefaultApplicationArguments());
+
+        verify(jdbcTemplate, never()).update(anyString());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void migrateLegacyTags_whenLegacyTable_shouldCopyThenRename() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(1);
+
+        new TagMigrationConfig(jdbcTemplate).migrateLegacyTags().run(new DefaultApplicationArguments());
+
+        verify(jdbcTemplate, times(2)).update(anyString());
+        verify(jdbcTemplate).execute("RENAME TABLE task_tags TO task_tags_legacy");
+    }
+}
@@ -0,0 +1,37 @@
+package project.demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.test.util.ReflectionTestUtils;
+import project.demo.service.UnreadNotificationCounter;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadCounterBackfillConfigTest {
+
+    @Mock UnreadNotificationCounter unreadCounter;
+
+    @Test
+    void backfill_onStartup_shouldReconcileOnce() throws Exception {
+        UnreadCounterBackfillConfig config = new UnreadCounterBackfillConfig(unreadCounter);
+        ReflectionTestUtils.setField(config, "enabled", true);
+        when(unreadCounter.reconcile()).thenReturn(3);
+
+        config.backfillUnreadNotifications().run(new DefaultApplicationArguments());
+
+        verify(unreadCounter).reconcile();
+    }
+
+    @Test
+    void backfill_disabled_shouldDoNothing() throws Exception {
+        UnreadCounterBackfillConfig config = new UnreadCounterBackfillConfig(unreadCounter);
+
+        config.backfillUnreadNotifications().run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(unreadCounter);
+    }
+}
@@ -5,12 +5,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import project.demo.dto.TaskDtos;
+import project.demo.enums.NotificationType;
 import project.demo.repository.UserRepository;
 import project.demo.security.JwtProvider;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import project.demo.service.NotificationHub;
 import project.demo.service.NotificationService;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -35,6 +42,9 @@ class NotificationControllerTest {
 
     @MockitoBean
     UserRepository userRepository;
+
+    @MockitoBean
+    NotificationHub notificationHub;
     @Test
     void myNotifications_shouldReturnOk() throws Exception {
         when(notificationService.listMyNotifications(
@@ -62,10 +72,69 @@ class NotificationControllerTest {
 
     @Test
     void markAllRead_shouldReturnOk() throws Exception {
-        doNothing().when(notificationService).markAllRead(1L);
+        when(notificationService.markAllRead(1L)).thenReturn(3);
 
         mockMvc.perform(patch("/notifications/read-all")
                         .with(user()))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(3));
+    }
+
+    @Test
+    void markReadByType_shouldReturnUpdatedCount() throws Exception {
+        when(notificationService.markReadMatching(eq(1L), argThat(r -> r.type() == NotificationType.COMMENT_ADDED && r.ids() == null)))
+                .thenReturn(5);
+
+        mockMvc.perform(patch("/notifications/read")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\":\"COMMENT_ADDED\"}")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(5));
+    }
+
+    @Test
+    void stream_shouldOpenSseWithLastEventId() throws Exception {
+        when(notificationHub.subscribe(1L, 41L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/notifications/stream")
+                        .header("Last-Event-ID", "41")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(notificationHub).subscribe(1L, 41L);
+    }
+
+    @Test
+    void stream_unauthenticated_shouldBeRejected() throws Exception {
+        mockMvc.perform(get("/notifications/stream"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(notificationHub);
+    }
+
+    @Test
+    void unreadCount_shouldReturnBadgeValue() throws Exception {
+        when(notificationService.unreadCount(1L)).thenReturn(7);
+
+        mockMvc.perform(get("/notifications/unread-count")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unread").value(7));
+    }
+
+    @Test
+    void feed_shouldPassCursorAndReturnNextCursor() throws Exception {
+        when(notificationService.feed(1L, true, false, "abc", 20))
+                .thenReturn(new TaskDtos.CursorPage<>(List.of(), "def", true));
+
+        mockMvc.perform(get("/notifications/feed")
+                        .param("unreadFirst", "true")
+                        .param("cursor", "abc")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("def"))
+                .andExpect(jsonPath("$.hasNext").value(true));
     }
 }
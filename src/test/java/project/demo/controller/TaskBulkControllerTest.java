@@ -0,0 +1,91 @@
+package project.demo.controller;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import project.demo.dto.TaskDtos;
+import project.demo.enums.TaskStatus;
+import project.demo.repository.UserRepository;
+import project.demo.security.JwtProvider;
+import project.demo.service.TaskBulkService;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static project.demo.support.TestSecurity.admin;
+import static project.demo.support.TestSecurity.user;
+
+@WebMvcTest(TaskBulkController.class)
+@Import(project.demo.security.SecurityConfig.class)
+class TaskBulkControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockitoBean
+    TaskBulkService taskBulkService;
+
+    @MockitoBean
+    JwtProvider jwtProvider;
+
+    @MockitoBean
+    UserRepository userRepository;
+
+    @Test
+    void status_shouldBindBodyAndReturnPerIdResult() throws Exception {
+        when(taskBulkService.status(eq(1L), any())).thenReturn(new TaskDtos.BulkResult(1, 1, 0, 1, List.of(
+                new TaskDtos.BulkItemResult(10L, "UPDATED"),
+                new TaskDtos.BulkItemResult(11L, "NOT_FOUND"))));
+
+        mockMvc.perform(post("/api/v1/tasks/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[10,11],\"status\":\"DONE\"}")
+                        .with(admin()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.items[1].outcome").value("NOT_FOUND"));
+
+        ArgumentCaptor<TaskDtos.BulkTaskRequest> req = ArgumentCaptor.forClass(TaskDtos.BulkTaskRequest.class);
+        verify(taskBulkService).status(eq(1L), req.capture());
+        assertEquals(List.of(10L, 11L), req.getValue().ids());
+        assertEquals(TaskStatus.DONE, req.getValue().status());
+    }
+
+    @Test
+    void tags_shouldBindFilterAndTagSets() throws Exception {
+        when(taskBulkService.tags(eq(1L), any())).thenReturn(new TaskDtos.BulkResult(0, 0, 0, 0, List.of()));
+
+        mockMvc.perform(post("/api/v1/tasks/bulk/tags")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filter\":{\"status\":[\"TODO\"]},\"addTags\":[\"urgent\"],\"removeTags\":[\"blocked\"]}")
+                        .with(admin()))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<TaskDtos.BulkTaskRequest> req = ArgumentCaptor.forClass(TaskDtos.BulkTaskRequest.class);
+        verify(taskBulkService).tags(eq(1L), req.capture());
+        assertEquals(Set.of(TaskStatus.TODO), req.getValue().filter().status());
+        assertEquals(Set.of("urgent"), req.getValue().addTags());
+        assertEquals(Set.of("blocked"), req.getValue().removeTags());
+    }
+
+    @Test
+    void customer_shouldBeForbidden() throws Exception {
+        mockMvc.perform(post("/api/v1/tasks/bulk/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[10]}")
+                        .with(user()))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(taskBulkService);
+    }
+}
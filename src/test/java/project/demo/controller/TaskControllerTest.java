@@ -0,0 +1,201 @@
+package project.demo.controller;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import project.demo.dto.TaskDtos;
+import project.demo.enums.TaskPriority;
+import project.demo.enums.TaskStatus;
+import project.demo.repository.UserRepository;
+import project.demo.security.JwtProvider;
+import project.demo.service.TaskService;
+import project.demo.util.VersionTag;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static project.demo.support.TestSecurity.user;
+
+@WebMvcTest(TaskController.class)
+@Import(project.demo.security.SecurityConfig.class)
+class TaskControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockitoBean
+    TaskService taskService;
+
+    @MockitoBean
+    JwtProvider jwtProvider;
+
+    @MockitoBean
+    UserRepository userRepository;
+
+    @Test
+    void list_shouldBindFilterParams() throws Exception {
+        when(taskService.listTasks(eq(1L), any(), any())).thenReturn(Page.empty());
+
+        mockMvc.perform(get("/api/v1/tasks")
+                        .param("status", "TODO,IN_PROGRESS")
+                        .param("priority", "HIGH", "URGENT")
+                        .param("assigneeId", "2,3")
+                        .param("dueFrom", "2026-01-01")
+                        .param("tagsAll", "backend,urgent")
+                        .param("tagsNone", "blocked")
+                        .param("sort", "createdAt,asc")
+                        .with(user()))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<TaskDtos.TaskFilter> filter = ArgumentCaptor.forClass(TaskDtos.TaskFilter.class);
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(taskService).listTasks(eq(1L), filter.capture(), pageable.capture());
+
+        assertEquals(Set.of(TaskStatus.TODO, TaskStatus.IN_PROGRESS), filter.getValue().status());
+        assertEquals(Set.of(TaskPriority.HIGH, TaskPriority.URGENT), filter.getValue().priority());
+        assertEquals(Set.of(2L, 3L), filter.getValue().assigneeId());
+        assertEquals(LocalDate.of(2026, 1, 1), filter.getValue().dueFrom());
+        assertEquals(Set.of("backend", "urgent"), filter.getValue().tagsAll());
+        assertEquals(Set.of("blocked"), filter.getValue().tagsNone());
+        assertEquals(Sort.Direction.ASC, pageable.getValue().getSort().getOrderFor("createdAt").getDirection());
+    }
+
+    @Test
+    void scroll_shouldPassCursorAndOrder() throws Exception {
+        when(taskService.scrollTasks(eq(1L), any(), eq("abc"), eq(20), eq(Sort.Order.desc("updatedAt"))))
+                .thenReturn(new TaskDtos.CursorPage<>(List.of(), null, false));
+
+        mockMvc.perform(get("/api/v1/tasks/scroll")
+                        .param("cursor", "abc")
+                        .param("size", "20")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void facets_shouldReturnCounts() throws Exception {
+        var res = new TaskDtos.TaskFacetsResponse(3L, Map.of(TaskStatus.TODO, 3L), Map.of(), List.of(), List.of());
+        when(taskService.facets(eq(1L), any(), eq(5))).thenReturn(res);
+
+        mockMvc.perform(get("/api/v1/tasks/facets")
+                        .param("topTags", "5")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.status.TODO").value(3));
+    }
+
+    @Test
+    void list_unauthenticated_shouldBeRejected() throws Exception {
+        mockMvc.perform(get("/api/v1/tasks"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void logs_shouldPassCursorAndSize() throws Exception {
+        when(taskService.listLogs(1L, 10L, "abc", 50))
+                .thenReturn(new TaskDtos.CursorPage<>(List.of(), null, false));
+
+        mockMvc.perform(get("/api/v1/tasks/10/logs")
+                        .param("cursor", "abc")
+                        .param("size", "50")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void detail_ifNoneMatchHit_shouldReturn304WithoutLoading() throws Exception {
+        when(taskService.detailETag(1L, 10L)).thenReturn("\"t10-1-2\"");
+
+        mockMvc.perform(get("/api/v1/tasks/10")
+                        .header("If-None-Match", "\"t10-1-2\"")
+                        .with(user()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"t10-1-2\""));
+
+        verify(taskService, never()).getTaskDetail(any(), any());
+    }
+
+    @Test
+    void list_ifNoneMatchMiss_shouldReturnBodyWithETag() throws Exception {
+        when(taskService.listETag(eq(1L), any())).thenReturn("\"l1-5-9\"");
+        when(taskService.listTasks(eq(1L), any(), any())).thenReturn(Page.empty());
+
+        mockMvc.perform(get("/api/v1/tasks")
+                        .header("If-None-Match", "\"l1-4-9\"")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"l1-5-9\""));
+    }
+
+    @Test
+    void status_shouldPassIfMatchAndReturnVersionETag() throws Exception {
+        when(taskService.updateStatus(1L, 10L, TaskStatus.DONE, 4L)).thenReturn(summary(5));
+
+        mockMvc.perform(patch("/api/v1/tasks/10/status")
+                        .header("If-Match", "\"v4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"DONE\"}")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v5\""))
+                .andExpect(jsonPath("$.version").value(5));
+    }
+
+    @Test
+    void detailETag_sentBackAsIfMatch_shouldReachPatchAsVersion() throws Exception {
+        when(taskService.detailETag(1L, 10L)).thenReturn(VersionTag.withFingerprint(4, 1, 2));
+        String etag = mockMvc.perform(get("/api/v1/tasks/10").with(user()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        when(taskService.updateStatus(1L, 10L, TaskStatus.DONE, 4L)).thenReturn(summary(5));
+
+        mockMvc.perform(patch("/api/v1/tasks/10/status")
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"DONE\"}")
+                        .with(user()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v5\""));
+    }
+
+    @Test
+    void status_versionConflict_shouldReturn412() throws Exception {
+        when(taskService.updateStatus(1L, 10L, TaskStatus.DONE, 3L))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Task", 10L));
+
+        mockMvc.perform(patch("/api/v1/tasks/10/status")
+                        .header("If-Match", "\"v3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"DONE\"}")
+                        .with(user()))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("VERSION_CONFLICT"));
+    }
+
+    private static TaskDtos.TaskSummaryResponse summary(long version) {
+        Instant now = Instant.now();
+        return new TaskDtos.TaskSummaryResponse(10L, "Task", TaskStatus.DONE, TaskPriority.MEDIUM, null, Set.of(),
+                null, true, now, now, version);
+    }
+}
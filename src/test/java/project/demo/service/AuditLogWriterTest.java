@@ -0,0 +1,217 @@
+package project.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import project.demo.entity.Task;
+import project.demo.entity.TaskLog;
+import project.demo.entity.User;
+import project.demo.enums.TaskLogAction;
+import project.demo.repository.TaskLogRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogWriterTest {
+
+    private final TaskLogRepository taskLogRepository = mock(TaskLogRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    // mỗi lần batchUpdate = 1 lô ghi xuống DB
+    private final List<Integer> batches = new ArrayList<>();
+
+    @TempDir
+    Path tmp;
+
+    @AfterEach
+    void clearTx() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void strict_shouldSaveInCallerTransaction() {
+        AuditLogWriter writer = writer("strict", 10, null);
+        TaskLog l = taskLog("title");
+
+        writer.append(l);
+
+        verify(taskLogRepository).save(l);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void async_shouldWriteTransactionLogsAfterCommitInOneBatch() {
+        stubBatchUpdate();
+        AuditLogWriter writer = writer("async", 10, null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        for (String f : List.of("title", "description", "priority", "dueDate", "tags")) writer.append(taskLog(f));
+
+        // chưa commit: không có gì vào queue
+        assertEquals(0, writer.queueSize());
+        commit();
+        writer.drain();
+
+        assertEquals(List.of(5), batches);
+    }
+
+    @Test
+    void async_rollback_shouldDropLogs() {
+        AuditLogWriter writer = writer("async", 10, null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        writer.append(taskLog("title"));
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        writer.drain();
+
+        assertEquals(0, writer.queueSize());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void async_fullQueue_shouldMakeCallerWriteItsOwnBatch() {
+        stubBatchUpdate();
+        AuditLogWriter writer = writer("async", 1, null);
+
+        writer.append(taskLog("title"));        // vào queue
+        writer.append(taskLog("description"));  // queue đầy -> thread gọi tự ghi
+
+        assertEquals(List.of(1), batches);
+        assertEquals(1, writer.queueSize());
+    }
+
+    @Test
+    void wal_shouldBeTruncatedAfterFlushAndReplayedOnStart() throws Exception {
+        Path wal = tmp.resolve("audit.wal");
+        AuditLogWriter crashed = writer("async", 10, wal);
+        crashed.append(taskLog("title"));
+        crashed.append(taskLog("description"));
+        assertEquals(2, Files.readAllLines(wal).size());
+
+        // process chết trước khi flush -> lần khởi động sau replay từ WAL
+        stubBatchUpdate();
+        AuditLogWriter restarted = writer("async", 10, wal);
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(2, batches.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(0, Files.size(wal));
+    }
+
+    @Test
+    void poisonEntry_shouldGoToDeadLetterWithoutBlockingTheRestOfTheBatch() throws Exception {
+        Path dead = tmp.resolve("audit.dead");
+        stubBatchUpdate(inv -> {
+            Collection<AuditLogWriter.Entry> entries = inv.getArgument(1);
+            if (entries.stream().anyMatch(e -> "bad".equals(e.fieldName()))) {
+                throw new DataIntegrityViolationException("Data too long");
+            }
+            batches.add(entries.size());
+            return new int[0][];
+        });
+        AuditLogWriter writer = writer("async", 10, 100, null, dead);
+
+        writer.append(taskLog("title"));
+        writer.append(taskLog("bad"));
+        writer.append(taskLog("priority"));
+        writer.drain();
+
+        // lô 3 fail -> ghi lại từng entry: 2 entry tốt vào DB, entry hỏng ra dead-letter (không retry)
+        assertEquals(List.of(1, 1), batches);
+        List<String> deadLines = Files.readAllLines(dead);
+        assertEquals(1, deadLines.size());
+        assertEquals("bad", objectMapper.readValue(deadLines.get(0), AuditLogWriter.Entry.class).fieldName());
+        verifyBatchUpdates(4);
+    }
+
+    @Test
+    void entryMissingFromWal_shouldNotCountTowardsWalTruncation() throws Exception {
+        Path wal = tmp.resolve("later").resolve("audit.wal");
+        List<Integer> walLinesAtWrite = new ArrayList<>();
+        stubBatchUpdate(inv -> {
+            walLinesAtWrite.add(Files.readAllLines(wal).size());
+            return new int[0][];
+        });
+        AuditLogWriter writer = writer("async", 10, 1, wal, null);
+
+        writer.append(taskLog("title"));          // thư mục WAL chưa có -> append WAL lỗi, entry vẫn vào queue
+        Files.createDirectories(wal.getParent());
+        writer.append(taskLog("description"));    // vào WAL
+        writer.drain();
+
+        // flush entry đầu không được truncate WAL khi entry thứ 2 chưa ghi
+        assertEquals(List.of(1, 1), walLinesAtWrite);
+        assertEquals(0, Files.size(wal));
+    }
+
+    private AuditLogWriter writer(String mode, int capacity, Path wal) {
+        return writer(mode, capacity, 100, wal, null);
+    }
+
+    private AuditLogWriter writer(String mode, int capacity, int batchSize, Path wal, Path deadLetter) {
+        return new AuditLogWriter(taskLogRepository, jdbcTemplate, txManager, objectMapper, new SimpleMeterRegistry(),
+                mode, capacity, batchSize, 10, 0, 3, wal == null ? "" : wal.toString(),
+                deadLetter == null ? "" : deadLetter.toString());
+    }
+
+    private void stubBatchUpdate() {
+        stubBatchUpdate(inv -> {
+            batches.add(((Collection<?>) inv.getArgument(1)).size());
+            return new int[0][];
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubBatchUpdate(Answer<int[][]> answer) {
+        when(jdbcTemplate.batchUpdate(eq(AuditLogWriter.INSERT_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(answer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyBatchUpdates(int times) {
+        verify(jdbcTemplate, times(times)).batchUpdate(eq(AuditLogWriter.INSERT_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) s.afterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static TaskLog taskLog(String field) {
+        User actor = new User();
+        actor.setId(1L);
+        return TaskLog.builder()
+                .task(Task.builder().id(10L).build())
+                .actor(actor)
+                .action(TaskLogAction.UPDATED)
+                .fieldName(field)
+                .oldValue("a")
+                .newValue("b")
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import project.demo.dto.NotificationDtos.NewNotification;
+import project.demo.enums.NotificationType;
+import project.demo.event.NotificationCreatedEvent;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static project.demo.enums.NotificationType.*;
+
+class NotificationCoalescerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Instant now = Instant.parse("2026-10-18T10:00:00Z");
+
+    @Test
+    void coalesce_shouldMergeBurstInBatchAndIntoOpenUnreadRow() throws Exception {
+        NotificationCoalescer coalescer = coalescer(300);
+        stubOpen(50L, 1L, 10L, COMMENT_ADDED, 2, now.minusSeconds(60));
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.MERGE_SQL), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{1});
+
+        var result = coalescer.coalesce(List.of(
+                new NewNotification(1L, 7L, COMMENT_ADDED, "a", 10L),
+                new NewNotification(1L, 7L, TASK_ASSIGNED, "x", 10L),
+                new NewNotification(1L, 8L, COMMENT_ADDED, "b", 10L),
+                new NewNotification(1L, 7L, COMMENT_ADDED, "c", 11L),
+                new NewNotification(1L, 8L, COMMENT_ADDED, "d", 11L)), now);
+
+        // TASK_ASSIGNED không gộp; task 11 chưa có dòng mở -> INSERT 1 dòng cho 2 lần
+        assertEquals(List.of(
+                new NotificationCoalescer.Pending(new NewNotification(1L, 7L, TASK_ASSIGNED, "x", 10L), 1),
+                new NotificationCoalescer.Pending(new NewNotification(1L, 8L, COMMENT_ADDED, "d", 11L), 2)),
+                result.inserts());
+        assertEquals(1, result.merged().size());
+        NotificationCreatedEvent merged = result.merged().get(0);
+        assertTrue(merged.merged());
+        assertEquals(50L, merged.notification().id());
+        assertEquals("b", merged.notification().message());
+        assertEquals(4, merged.notification().occurrences());
+        assertEquals(3, meterRegistry.get("notification.coalesced").counter().count());
+    }
+
+    @Test
+    void coalesce_openRowReadMeanwhile_shouldInsertInstead() throws Exception {
+        NotificationCoalescer coalescer = coalescer(300);
+        stubOpen(50L, 1L, 10L, COMMENT_ADDED, 1, now.minusSeconds(10));
+        when(jdbcTemplate.batchUpdate(eq(NotificationCoalescer.MERGE_SQL), any(BatchPreparedStatementSetter.class)))
+                .thenReturn(new int[]{0});
+
+        var result = coalescer.coalesce(List.of(
+                new NewNotification(1L, 7L, COMMENT_ADDED, "a", 10L),
+                new NewNotification(1L, 7L, COMMENT_ADDED, "b", 10L)), now);
+
+        assertEquals(List.of(new NotificationCoalescer.Pending(new NewNotification(1L, 7L, COMMENT_ADDED, "b", 10L), 2)),
+                result.inserts());
+        assertTrue(result.merged().isEmpty());
+    }
+
+    @Test
+    void coalesce_windowDisabled_shouldPassThroughWithoutQueries() {
+        NotificationCoalescer coalescer = coalescer(0);
+        var batch = List.of(
+                new NewNotification(1L, 7L, COMMENT_ADDED, "a", 10L),
+                new NewNotification(1L, 7L, COMMENT_ADDED, "b", 10L));
+
+        var result = coalescer.coalesce(batch, now);
+
+        assertEquals(2, result.inserts().size());
+        assertTrue(result.inserts().stream().allMatch(p -> p.occurrences() == 1));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private NotificationCoalescer coalescer(long windowSeconds) {
+        return new NotificationCoalescer(jdbcTemplate, meterRegistry, windowSeconds,
+                EnumSet.of(TASK_STATUS_CHANGED, COMMENT_ADDED));
+    }
+
+    private void stubOpen(Long id, Long recipientId, Long taskId, NotificationType type, int occurrences, Instant createdAt)
+            throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(id);
+        when(rs.getLong(2)).thenReturn(recipientId);
+        when(rs.getLong(3)).thenReturn(taskId);
+        when(rs.getString(4)).thenReturn(type.name());
+        when(rs.getInt(5)).thenReturn(occurrences);
+        when(rs.getTimestamp(eq(6), any(Calendar.class))).thenReturn(Timestamp.from(createdAt));
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(2);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id, recipient_id"), any(PreparedStatementSetter.class),
+                any(RowCallbackHandler.class));
+    }
+}
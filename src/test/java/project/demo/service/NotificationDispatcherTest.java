@@ -0,0 +1,139 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import project.demo.dto.NotificationDtos;
+import project.demo.enums.NotificationType;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDispatcherTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new NotificationDispatcher(jdbcTemplate, notificationService, transactionManager, meterRegistry,
+                true, 500, 5, 24);
+    }
+
+    @Test
+    void drain_shouldCreateNotificationsInOutboxOrderAndMarkThemDispatched() throws Exception {
+        stubPending(List.of(
+                new Object[]{11L, 1L, 9L, "TASK_ASSIGNED", "a", 100L},
+                new Object[]{12L, 1L, null, "COMMENT_ADDED", "b", null}));
+
+        int n = dispatcher.drain();
+
+        assertEquals(2, n);
+        ArgumentCaptor<List<NotificationDtos.NewNotification>> created = ArgumentCaptor.captor();
+        verify(notificationService).createNotifications(created.capture());
+        assertEquals(List.of(
+                new NotificationDtos.NewNotification(1L, 9L, NotificationType.TASK_ASSIGNED, "a", 100L),
+                new NotificationDtos.NewNotification(1L, null, NotificationType.COMMENT_ADDED, "b", null)),
+                created.getValue());
+        verify(jdbcTemplate).update(eq(NotificationDispatcher.MARK_DISPATCHED_SQL.formatted("?, ?")),
+                any(PreparedStatementSetter.class));
+        verify(transactionManager).commit(any());
+        assertEquals(2, meterRegistry.get("notification.outbox.dispatched").counter().count());
+    }
+
+    @Test
+    void drain_createFails_shouldRollbackWithoutMarkingDispatched() throws Exception {
+        stubPending(List.<Object[]>of(new Object[]{11L, 1L, 9L, "TASK_ASSIGNED", "a", 100L}));
+        doThrow(new RuntimeException("DB")).when(notificationService).createNotifications(any());
+
+        assertThrows(RuntimeException.class, () -> dispatcher.drain());
+
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE notification_outbox"), any(PreparedStatementSetter.class));
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void drain_createFailsBelowMaxAttempts_shouldRecordAttemptAndRetryWholeBatchLater() throws Exception {
+        stubPending(List.<Object[]>of(new Object[]{11L, 1L, 9L, "TASK_ASSIGNED", "a", 100L, 1}));
+        doThrow(new RuntimeException("DB")).when(notificationService).createNotifications(any());
+
+        assertThrows(RuntimeException.class, () -> dispatcher.drain());
+
+        verify(jdbcTemplate).batchUpdate(eq(NotificationDispatcher.MARK_FAILED_SQL), anyList(), eq(500), any());
+        verify(jdbcTemplate, never()).query(eq(NotificationDispatcher.SELECT_ONE_SQL), ArgumentMatchers.<RowMapper<Object>>any(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_batchFailedMaxAttempts_shouldParkPoisonRowAndDispatchTheRest() throws Exception {
+        Object[] ok = {11L, 1L, 9L, "TASK_ASSIGNED", "a", 100L, 4};
+        Object[] poison = {12L, 2L, 9L, "TASK_ASSIGNED", "b", 100L, 4};
+        stubPending(List.of(ok, poison));
+        when(jdbcTemplate.query(eq(NotificationDispatcher.SELECT_ONE_SQL), any(RowMapper.class), eq(11L)))
+                .thenAnswer(inv -> List.of(((RowMapper<Object>) inv.getArgument(1)).mapRow(resultSet(ok), 0)));
+        when(jdbcTemplate.query(eq(NotificationDispatcher.SELECT_ONE_SQL), any(RowMapper.class), eq(12L)))
+                .thenAnswer(inv -> List.of(((RowMapper<Object>) inv.getArgument(1)).mapRow(resultSet(poison), 0)));
+        doAnswer(inv -> {
+            List<NotificationDtos.NewNotification> batch = inv.getArgument(0);
+            if (batch.stream().anyMatch(n -> n.recipientId() == 2L)) throw new IllegalStateException("recipient gone");
+            return null;
+        }).when(notificationService).createNotifications(any());
+
+        assertEquals(1, dispatcher.drain());
+
+        verify(notificationService).createNotifications(
+                List.of(new NotificationDtos.NewNotification(1L, 9L, NotificationType.TASK_ASSIGNED, "a", 100L)));
+        verify(jdbcTemplate).update(eq(NotificationDispatcher.MARK_DISPATCHED_SQL.formatted("?")),
+                any(PreparedStatementSetter.class));
+        verify(jdbcTemplate).update(eq(NotificationDispatcher.PARK_SQL), any(PreparedStatementSetter.class));
+        assertEquals(1, meterRegistry.get("notification.outbox.parked").counter().count());
+        assertEquals(1, meterRegistry.get("notification.outbox.dispatched").counter().count());
+    }
+
+    @Test
+    void drain_emptyOutbox_shouldNotCreateAnything() {
+        when(jdbcTemplate.query(eq(NotificationDispatcher.SELECT_PENDING_SQL), ArgumentMatchers.<RowMapper<Object>>any(), eq(500)))
+                .thenReturn(List.of());
+
+        assertEquals(0, dispatcher.drain());
+        verifyNoInteractions(notificationService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubPending(List<Object[]> rows) throws Exception {
+        when(jdbcTemplate.query(eq(NotificationDispatcher.SELECT_PENDING_SQL), any(RowMapper.class), eq(500)))
+                .thenAnswer(inv -> {
+                    RowMapper<Object> mapper = inv.getArgument(1);
+                    List<Object> out = new ArrayList<>();
+                    for (Object[] r : rows) out.add(mapper.mapRow(resultSet(r), out.size()));
+                    return out;
+                });
+    }
+
+    private static ResultSet resultSet(Object[] r) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn((Long) r[0]);
+        when(rs.getLong(2)).thenReturn((Long) r[1]);
+        when(rs.getObject(3, Long.class)).thenReturn((Long) r[2]);
+        when(rs.getString(4)).thenReturn((String) r[3]);
+        when(rs.getString(5)).thenReturn((String) r[4]);
+        when(rs.getObject(6, Long.class)).thenReturn((Long) r[5]);
+        if (r.length > 6) when(rs.getInt(7)).thenReturn((Integer) r[6]);
+        return rs;
+    }
+}
@@ -0,0 +1,135 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import project.demo.dto.NotificationDtos;
+import project.demo.entity.Notification;
+import project.demo.enums.NotificationType;
+import project.demo.event.NotificationCreatedEvent;
+import project.demo.repository.NotificationRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationHubTest {
+
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private NotificationHub hub;
+
+    @AfterEach
+    void tearDown() {
+        if (hub != null) hub.shutdown();
+    }
+
+    @Test
+    void subscribe_withLastEventId_shouldReplayThenPushLiveEventsOfRecipientOnly() throws Exception {
+        hub = hub(16);
+        when(notificationRepository.findByRecipientIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(eq(1L), eq(100L), any(Limit.class)))
+                .thenReturn(List.of(notification(101L), notification(102L)));
+
+        hub.subscribe(1L, 100L);
+        RecordingEmitter e = emitters.get(0);
+        await(() -> e.ids.size() == 2);
+
+        hub.onNotificationCreated(new NotificationCreatedEvent(2L, response(900L)));
+        // đã gửi trong replay -> bỏ qua
+        hub.onNotificationCreated(new NotificationCreatedEvent(1L, response(102L)));
+        hub.onNotificationCreated(new NotificationCreatedEvent(1L, response(103L)));
+        await(() -> e.ids.size() == 3);
+
+        assertEquals(List.of("101", "102", "103"), e.ids);
+    }
+
+    @Test
+    void slowClient_bufferFull_shouldCloseOnlyThatStream() throws Exception {
+        hub = hub(1);
+        hub.subscribe(1L, null);
+        RecordingEmitter slow = emitters.get(0);
+        slow.block = new CountDownLatch(1);
+        hub.onNotificationCreated(new NotificationCreatedEvent(1L, response(1L)));
+        await(() -> slow.sending);
+
+        // writer đang kẹt ở socket: 1 event vào buffer, event tiếp theo làm tràn
+        hub.onNotificationCreated(new NotificationCreatedEvent(1L, response(2L)));
+        hub.onNotificationCreated(new NotificationCreatedEvent(1L, response(3L)));
+
+        assertTrue(slow.completed);
+        assertEquals(0, hub.openStreams());
+        slow.block.countDown();
+    }
+
+    private NotificationHub hub(int bufferSize) {
+        return new NotificationHub(notificationRepository, new SimpleMeterRegistry(), 30, 60, bufferSize, 1000) {
+            @Override
+            SseEmitter newEmitter(long timeout) {
+                RecordingEmitter e = new RecordingEmitter();
+                emitters.add(e);
+                return e;
+            }
+        };
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("timeout");
+            Thread.sleep(5);
+        }
+    }
+
+    private static Notification notification(Long id) {
+        Notification n = new Notification();
+        n.setId(id);
+        n.setType(NotificationType.COMMENT_ADDED);
+        n.setMessage("m" + id);
+        n.setActive(true);
+        n.setCreatedAt(Instant.now());
+        return n;
+    }
+
+    private static NotificationDtos.NotificationResponse response(Long id) {
+        return new NotificationDtos.NotificationResponse(id, NotificationType.COMMENT_ADDED, "m" + id, 10L, Instant.now(), null, 1);
+    }
+
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch block;
+        volatile boolean sending;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String text = builder.build().stream().map(d -> String.valueOf(d.getData())).reduce("", String::concat);
+            if (!text.contains("event:notification")) return;
+            sending = true;
+            CountDownLatch b = block;
+            if (b != null) {
+                try {
+                    b.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (String line : text.split("\n")) {
+                if (line.startsWith("id:")) ids.add(line.substring(3));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import project.demo.event.NotificationsReadEvent;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationRetentionJobTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final JobLeases leases = mock(JobLeases.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final NotificationRetentionJob job = new NotificationRetentionJob(jdbcTemplate, leases, eventPublisher,
+            transactionManager, meterRegistry, true, 30, 90, 100, 0, 10);
+
+    @Test
+    void purgeExpired_shouldDeleteByIdRangesAndSubtractPurgedUnreadFromBadge() throws Exception {
+        when(leases.tryAcquire(eq(NotificationRetentionJob.LEASE), any(Duration.class))).thenReturn(true);
+        when(jdbcTemplate.queryForObject(NotificationRetentionJob.MIN_ID_SQL, Long.class)).thenReturn(1L);
+        when(jdbcTemplate.query(eq(NotificationRetentionJob.FIRST_ID_AFTER_SQL), any(PreparedStatementSetter.class),
+                ArgumentMatchers.<ResultSetExtractor<Long>>any())).thenReturn(251L);
+        // lô đầu có 2 notification chưa đọc hết hạn của user 7
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(7L);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(2);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).doNothing().when(jdbcTemplate).query(eq(NotificationRetentionJob.SELECT_UNREAD_SQL),
+                any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        when(jdbcTemplate.update(eq(NotificationRetentionJob.DELETE_SQL), any(PreparedStatementSetter.class)))
+                .thenReturn(5, 0, 3);
+
+        assertEquals(8, job.purgeExpired());
+
+        // [1,101) [101,201) [201,251)
+        verify(jdbcTemplate, times(3)).update(eq(NotificationRetentionJob.DELETE_SQL), any(PreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(eq(NotificationRetentionJob.SUB_UNREAD_SQL), anyList(), eq(500),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object>>any());
+        verify(eventPublisher).publishEvent(new NotificationsReadEvent(7L, 2));
+        verify(leases).release(NotificationRetentionJob.LEASE);
+        assertEquals(2, meterRegistry.get("notification.retention.purged").tag("state", "unread").counter().count());
+        assertEquals(6, meterRegistry.get("notification.retention.purged").tag("state", "read").counter().count());
+        assertEquals(1, meterRegistry.get("notification.retention.duration").timer().count());
+    }
+
+    @Test
+    void scheduledPurge_shouldReturnImmediatelyAndRunOnItsOwnThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Thread[] worker = new Thread[1];
+        when(leases.tryAcquire(eq(NotificationRetentionJob.LEASE), any(Duration.class))).thenAnswer(inv -> {
+            worker[0] = Thread.currentThread();
+            started.countDown();
+            release.await();
+            return false;
+        });
+
+        job.scheduledPurge();
+        // lần chạy trước chưa xong -> bỏ qua, không xếp hàng
+        job.scheduledPurge();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), worker[0]);
+        release.countDown();
+        verify(leases, timeout(5000).times(1)).tryAcquire(eq(NotificationRetentionJob.LEASE), any(Duration.class));
+        job.shutdown();
+    }
+
+    @Test
+    void purgeExpired_leaseHeldByOtherNode_shouldNotTouchNotifications() {
+        when(leases.tryAcquire(eq(NotificationRetentionJob.LEASE), any(Duration.class))).thenReturn(false);
+
+        assertEquals(-1, job.purgeExpired());
+
+        verifyNoInteractions(jdbcTemplate);
+        verify(leases, never()).release(any());
+    }
+}
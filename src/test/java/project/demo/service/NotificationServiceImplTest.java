@@ -5,18 +5,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import project.demo.dto.NotificationDtos;
 import project.demo.entity.Notification;
 import project.demo.entity.User;
 import project.demo.enums.NotificationType;
+import project.demo.event.NotificationCreatedEvent;
+import project.demo.event.NotificationsReadEvent;
 import project.demo.repository.NotificationRepository;
 import project.demo.repository.UserRepository;
+import project.demo.util.CursorUtil;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -27,6 +32,8 @@ class NotificationServiceImplTest {
 
     @Mock NotificationRepository notificationRepository;
     @Mock UserRepository userRepository;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock UnreadNotificationCounter unreadCounter;
 
     @InjectMocks NotificationServiceImpl service;
 
@@ -49,7 +56,7 @@ class NotificationServiceImplTest {
     @Test
     void createNotification_actorNull_shouldSaveWithNullActor() {
         User recipient = user(1L);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(recipient));
+        when(userRepository.getReferenceById(1L)).thenReturn(recipient);
 
         service.createNotification(1L, null, NotificationType.TASK_ASSIGNED, "msg", 10L);
 
@@ -63,6 +70,12 @@ class NotificationServiceImplTest {
         assertEquals("msg", n.getMessage());
         assertEquals(10L, n.getTaskId());
         assertTrue(n.isActive());
+
+        ArgumentCaptor<NotificationCreatedEvent> event = ArgumentCaptor.forClass(NotificationCreatedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(1L, event.getValue().recipientId());
+        verify(userRepository).addUnreadNotifications(1L, 1);
+        assertEquals("msg", event.getValue().notification().message());
     }
 
     @Test
@@ -70,8 +83,8 @@ class NotificationServiceImplTest {
         User recipient = user(1L);
         User actor = user(2L);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(recipient));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(actor));
+        when(userRepository.getReferenceById(1L)).thenReturn(recipient);
+        when(userRepository.getReferenceById(2L)).thenReturn(actor);
 
         service.createNotification(1L, 2L, NotificationType.COMMENT_ADDED, "hello", 99L);
 
@@ -79,9 +92,12 @@ class NotificationServiceImplTest {
         verify(notificationRepository).save(cap.capture());
         assertNotNull(cap.getValue().getActor());
         assertEquals(2L, cap.getValue().getActor().getId());
+        // chỉ reference theo id, không SELECT users
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void listMyNotifications_nullFilters_shouldNotThrow() {
         Pageable pageable = PageRequest.of(0, 20, Sort.by("createdAt").descending());
         when(notificationRepository.findAll(any(Specification.class), eq(pageable)))
@@ -109,6 +125,7 @@ class NotificationServiceImplTest {
 
         assertNotNull(n.getReadAt());
         verify(notificationRepository).save(n);
+        verify(userRepository).addUnreadNotifications(1L, -1);
     }
 
     @Test
@@ -128,22 +145,105 @@ class NotificationServiceImplTest {
     }
 
     @Test
-    void markAllRead_shouldSetReadAtForAllUnread() {
-        User recipient = user(1L);
+    @SuppressWarnings("unchecked")
+    void markAllRead_shouldRunSingleUpdateAndDecrementBadgeByAffectedRows() {
+        when(notificationRepository.markAllRead(eq(1L), any())).thenReturn(2);
+
+        assertEquals(2, service.markAllRead(1L));
+
+        verify(notificationRepository, never()).findAll(any(Specification.class));
+        verify(notificationRepository, never()).saveAll(anyList());
+        verify(userRepository).addUnreadNotifications(1L, -2);
+        verify(eventPublisher).publishEvent(new NotificationsReadEvent(1L, 2));
+    }
+
+    @Test
+    void markAllRead_nothingUnread_shouldNotTouchBadge() {
+        when(notificationRepository.markAllRead(eq(1L), any())).thenReturn(0);
+
+        assertEquals(0, service.markAllRead(1L));
+
+        verify(userRepository, never()).addUnreadNotifications(any(), anyInt());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void markRead_byIds_shouldUseSingleSetBasedUpdate() {
+        when(notificationRepository.markReadByIds(eq(1L), eq(Set.of(5L, 6L)), any())).thenReturn(1);
+
+        int n = service.markReadMatching(1L, new NotificationDtos.MarkReadRequest(List.of(5L, 6L, 6L), null, null, null, null));
+
+        assertEquals(1, n);
+        verify(notificationRepository, never()).findById(any());
+        verify(userRepository).addUnreadNotifications(1L, -1);
+    }
+
+    @Test
+    void markRead_byRange_openEnd_shouldBoundToNow() {
+        Instant from = Instant.parse("2026-01-01T00:00:00Z");
+        when(notificationRepository.markReadCreatedBetween(eq(1L), eq(from), any(), any())).thenReturn(4);
+
+        assertEquals(4, service.markReadMatching(1L, new NotificationDtos.MarkReadRequest(null, null, null, from, null)));
+    }
+
+    @Test
+    void markRead_criteria_shouldBeExactlyOne() {
+        var none = new NotificationDtos.MarkReadRequest(List.of(), null, null, null, null);
+        var two = new NotificationDtos.MarkReadRequest(null, NotificationType.COMMENT_ADDED, 10L, null, null);
+
+        assertEquals("MARK_READ_CRITERIA_REQUIRED",
+                assertThrows(RuntimeException.class, () -> service.markReadMatching(1L, none)).getMessage());
+        assertEquals("MARK_READ_SINGLE_CRITERIA",
+                assertThrows(RuntimeException.class, () -> service.markReadMatching(1L, two)).getMessage());
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void feed_shouldSeekPastCursorAndEncodeLastRow() {
+        Instant at = Instant.parse("2026-10-01T00:00:00Z");
+        when(notificationRepository.findFeedBefore(eq(1L), eq(at), eq(9L), any(Limit.class)))
+                .thenReturn(List.of(notification(8L, at, null), notification(7L, at.minusSeconds(1), at), notification(6L, at.minusSeconds(2), null)));
+
+        var page = service.feed(1L, false, false, CursorUtil.encode("A", at.toString(), "9"), 2);
+
+        assertEquals(List.of(8L, 7L), page.items().stream().map(NotificationDtos.NotificationResponse::id).toList());
+        assertTrue(page.hasNext());
+        assertArrayEquals(new String[]{"A", at.minusSeconds(1).toString(), "7"}, CursorUtil.decode(page.nextCursor(), 3));
+        verify(notificationRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void feed_unreadFirst_unreadExhausted_shouldContinueWithReadSection() {
+        Instant at = Instant.parse("2026-10-01T00:00:00Z");
+        when(notificationRepository.findByRecipientIdAndActiveTrueAndReadAtIsNullOrderByCreatedAtDescIdDesc(eq(1L), any(Limit.class)))
+                .thenReturn(List.of(notification(5L, at, null)));
+        when(notificationRepository.findByRecipientIdAndActiveTrueAndReadAtIsNotNullOrderByCreatedAtDescIdDesc(1L, Limit.of(2)))
+                .thenReturn(List.of(notification(9L, at.plusSeconds(5), at), notification(4L, at.minusSeconds(5), at)));
 
-        Notification n1 = new Notification();
-        n1.setId(1L); n1.setRecipient(recipient); n1.setActive(true); n1.setReadAt(null);
+        var page = service.feed(1L, true, false, null, 2);
 
-        Notification n2 = new Notification();
-        n2.setId(2L); n2.setRecipient(recipient); n2.setActive(true); n2.setReadAt(null);
+        assertEquals(List.of(5L, 9L), page.items().stream().map(NotificationDtos.NotificationResponse::id).toList());
+        assertArrayEquals(new String[]{"R", at.plusSeconds(5).toString(), "9"}, CursorUtil.decode(page.nextCursor(), 3));
+    }
 
-        when(notificationRepository.findAllByRecipientIdAndActiveTrueAndReadAtIsNull(1L))
-                .thenReturn(List.of(n1, n2));
+    @Test
+    void feed_cursorFromOtherMode_shouldBeRejected() {
+        String readCursor = CursorUtil.encode("R", Instant.now().toString(), "1");
 
-        service.markAllRead(1L);
+        assertEquals("INVALID_CURSOR",
+                assertThrows(RuntimeException.class, () -> service.feed(1L, false, true, readCursor, 20)).getMessage());
+        verifyNoInteractions(notificationRepository);
+    }
 
-        assertNotNull(n1.getReadAt());
-        assertNotNull(n2.getReadAt());
-        verify(notificationRepository).saveAll(anyList());
+    private static Notification notification(Long id, Instant createdAt, Instant readAt) {
+        Notification n = new Notification();
+        n.setId(id);
+        n.setType(NotificationType.COMMENT_ADDED);
+        n.setMessage("m" + id);
+        n.setActive(true);
+        n.setCreatedAt(createdAt);
+        n.setReadAt(readAt);
+        return n;
     }
 }
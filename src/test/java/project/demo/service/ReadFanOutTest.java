@@ -0,0 +1,171 @@
+package project.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReadFanOutTest {
+
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private ReadFanOut fanOut;
+
+    @AfterEach
+    void tearDown() {
+        if (fanOut != null) fanOut.shutdown();
+    }
+
+    @Test
+    void fork_detailQueries_shouldRunConcurrently() {
+        fanOut = new ReadFanOut(txManager, true, 8, 5000);
+        // chạy tuần tự thì query đầu tiên không bao giờ qua được barrier
+        CyclicBarrier allStarted = new CyclicBarrier(3);
+
+        ReadFanOut.Group group = fanOut.group();
+        List<ReadFanOut.Fork<String>> forks = List.of(
+                group.fork(barrierQuery(allStarted, "subtasks")),
+                group.fork(barrierQuery(allStarted, "comments")),
+                group.fork(barrierQuery(allStarted, "logs")));
+        group.join();
+
+        assertEquals(List.of("subtasks", "comments", "logs"), forks.stream().map(ReadFanOut.Fork::get).toList());
+        assertEquals(8, fanOut.availablePermits());
+    }
+
+    @Test
+    void fork_shouldRunEachQueryInOwnReadOnlyTransaction() {
+        fanOut = new ReadFanOut(txManager, true, 8, 1000);
+
+        ReadFanOut.Group group = fanOut.group();
+        var a = group.fork(() -> 1);
+        var b = group.fork(() -> 2);
+        group.join();
+
+        assertEquals(3, a.get() + b.get());
+        verify(txManager, times(2)).getTransaction(argThat((TransactionDefinition d) ->
+                d.isReadOnly() && d.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    void fork_withoutPermit_shouldRunOnCallerThread() throws Exception {
+        // 1 permit cho thread gọi + 1 cho query
+        fanOut = new ReadFanOut(txManager, true, 2, 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+
+        ReadFanOut.Group group = fanOut.group();
+        var blocking = group.fork(() -> {
+            await(release);
+            return Thread.currentThread();
+        });
+        var inline = group.fork(Thread::currentThread);
+        release.countDown();
+        group.join();
+
+        assertNotSame(caller, blocking.get());
+        assertSame(caller, inline.get());
+    }
+
+    @Test
+    void join_afterTimeout_shouldThrow() {
+        fanOut = new ReadFanOut(txManager, true, 8, 50);
+
+        ReadFanOut.Group group = fanOut.group();
+        group.fork(() -> {
+            await(new CountDownLatch(1));
+            return null;
+        });
+
+        RuntimeException ex = assertThrows(RuntimeException.class, group::join);
+        assertEquals("QUERY_TIMEOUT", ex.getMessage());
+    }
+
+    @Test
+    void groupWithoutCallerPermit_shouldRunEverythingInline() throws Exception {
+        fanOut = new ReadFanOut(txManager, true, 2, 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        // group 1 giữ cả 2 permit (thread gọi + 1 query)
+        ReadFanOut.Group busy = fanOut.group();
+        busy.fork(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread caller = Thread.currentThread();
+        ReadFanOut.Group other = fanOut.group();
+        var inline = other.fork(Thread::currentThread);
+        other.join();
+
+        assertSame(caller, inline.get());
+        release.countDown();
+        busy.join();
+        assertEquals(2, fanOut.availablePermits());
+    }
+
+    @Test
+    void join_afterTimeout_shouldReturnAllPermits() {
+        fanOut = new ReadFanOut(txManager, true, 3, 50);
+
+        ReadFanOut.Group group = fanOut.group();
+        group.fork(() -> {
+            await(new CountDownLatch(1));
+            return null;
+        });
+        group.fork(() -> {
+            await(new CountDownLatch(1));
+            return null;
+        });
+
+        assertThrows(RuntimeException.class, group::join);
+        // query bị interrupt trả permit trong finally, thread gọi trả ở join
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (fanOut.availablePermits() < 3 && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertEquals(3, fanOut.availablePermits());
+    }
+
+    @Test
+    void join_shouldRethrowQueryError() {
+        fanOut = new ReadFanOut(txManager, true, 8, 1000);
+
+        ReadFanOut.Group group = fanOut.group();
+        group.fork(() -> {
+            throw new RuntimeException("TASK_NOT_FOUND");
+        });
+
+        RuntimeException ex = assertThrows(RuntimeException.class, group::join);
+        assertEquals("TASK_NOT_FOUND", ex.getMessage());
+    }
+
+    private static Supplier<String> barrierQuery(CyclicBarrier barrier, String name) {
+        return () -> {
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new RuntimeException("NOT_CONCURRENT", e);
+            }
+            return name;
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package project.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import project.demo.entity.Tag;
+import project.demo.repository.TagRepository;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TagServiceTest {
+
+    @Mock TagRepository tagRepository;
+
+    @InjectMocks TagService tagService;
+
+    @Test
+    void resolveOrCreate_shouldInsertOnlyMissingNames() {
+        Tag backend = Tag.builder().id(1).name("backend").build();
+        Tag urgent = Tag.builder().id(2).name("urgent").build();
+        when(tagRepository.findAllByNameIn(Set.of("backend", "urgent"))).thenReturn(List.of(backend));
+        when(tagRepository.findAllByNameIn(Set.of("urgent"))).thenReturn(List.of(urgent));
+
+        Set<Tag> tags = tagService.resolveOrCreate(List.of(" Backend", "urgent", "  "));
+
+        assertEquals(Set.of(backend, urgent), tags);
+        verify(tagRepository).insertIgnore("urgent");
+        verify(tagRepository, never()).insertIgnore("backend");
+    }
+
+    @Test
+    void resolveOrCreate_tooLong_shouldThrow() {
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> tagService.resolveOrCreate(List.of("x".repeat(Tag.MAX_LENGTH + 1))));
+
+        assertEquals("TAG_TOO_LONG", ex.getMessage());
+    }
+
+    @Test
+    void autocomplete_shouldQueryByNormalizedPrefixAndClampLimit() {
+        when(tagRepository.findAllByNameStartingWithOrderByNameAsc(eq("ba"), any(Pageable.class)))
+                .thenReturn(List.of(Tag.builder().id(1).name("backend").build()));
+
+        var res = tagService.autocomplete(" BA", 500);
+
+        assertEquals("backend", res.get(0).name());
+        verify(tagRepository).findAllByNameStartingWithOrderByNameAsc(eq("ba"), argThat(p -> p.getPageSize() == 50));
+    }
+}
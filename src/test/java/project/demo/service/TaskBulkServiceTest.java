@@ -0,0 +1,192 @@
+package project.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import project.demo.dto.NotificationDtos;
+import project.demo.dto.TaskDtos;
+import project.demo.entity.Tag;
+import project.demo.entity.Task;
+import project.demo.entity.TaskLog;
+import project.demo.entity.User;
+import project.demo.enums.*;
+import project.demo.event.TaskChangedEvent;
+import project.demo.repository.TaskRepository;
+import project.demo.repository.UserRepository;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskBulkServiceTest {
+
+    @Mock TaskRepository taskRepository;
+    @Mock UserRepository userRepository;
+    @Mock TaskService taskService;
+    @Mock TagService tagService;
+    @Mock NotificationOutboxWriter notificationOutbox;
+    @Mock AuditLogWriter auditLog;
+    @Mock ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks TaskBulkService bulkService;
+
+    private final User admin = user(1L, Role.ADMIN);
+
+    record Row(Long getId, String getTitle, TaskStatus getStatus, TaskPriority getPriority, Long getAssigneeId)
+            implements TaskRepository.BulkRow {}
+
+    record Link(Long getTaskId, Integer getTagId) implements TaskRepository.TagLinkRow {}
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkService, "maxTasks", 5000);
+    }
+
+    @Test
+    void status_shouldUpdateOnlyChangedTasksAndReportEachId() {
+        stubUser(admin);
+        when(taskRepository.findBulkRows(any())).thenReturn(List.of(
+                new Row(10L, "A", TaskStatus.TODO, TaskPriority.LOW, 2L),
+                new Row(11L, "B", TaskStatus.DONE, TaskPriority.LOW, null)));
+        when(taskRepository.getReferenceById(anyLong())).thenAnswer(inv -> Task.builder().id(inv.getArgument(0)).build());
+
+        var res = bulkService.status(1L, request(List.of(10L, 11L, 12L), TaskStatus.DONE));
+
+        verify(taskRepository).bulkStatus(eq(List.of(10L)), eq(TaskStatus.DONE), any());
+        assertEquals(2, res.matched());
+        assertEquals(1, res.updated());
+        assertEquals(1, res.unchanged());
+        assertEquals(1, res.notFound());
+        assertEquals(List.of("UPDATED", "UNCHANGED", "NOT_FOUND"),
+                res.items().stream().map(TaskDtos.BulkItemResult::outcome).toList());
+
+        ArgumentCaptor<TaskLog> log = ArgumentCaptor.forClass(TaskLog.class);
+        verify(auditLog).append(log.capture());
+        assertEquals("TODO", log.getValue().getOldValue());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationDtos.NewNotification>> notes = ArgumentCaptor.forClass(List.class);
+        verify(notificationOutbox).appendAll(notes.capture());
+        assertEquals(1, notes.getValue().size());
+        assertEquals(2L, notes.getValue().getFirst().recipientId());
+        verify(eventPublisher).publishEvent(any(TaskChangedEvent.class));
+    }
+
+    @Test
+    void assign_shouldChunkInListsOf1000() {
+        stubUser(admin);
+        User assignee = user(2L, Role.CUSTOMER);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(assignee));
+        when(taskRepository.findBulkRows(any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(id -> (TaskRepository.BulkRow) new Row(id, "T" + id, TaskStatus.TODO, TaskPriority.LOW, null)).toList();
+        });
+        when(taskRepository.getReferenceById(anyLong())).thenAnswer(inv -> Task.builder().id(inv.getArgument(0)).build());
+
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().toList();
+        var req = new TaskDtos.BulkTaskRequest(ids, null, 2L, null, null, null, null);
+        var res = bulkService.assign(1L, req);
+
+        assertEquals(2500, res.updated());
+        verify(taskRepository, times(3)).findBulkRows(any());
+        verify(taskRepository, times(3)).bulkAssign(any(), eq(assignee), any());
+        verify(auditLog, times(2500)).append(any());
+        verify(notificationOutbox).appendAll(argThat(l -> l.size() == 2500));
+    }
+
+    @Test
+    void tags_shouldLinkOnlyTasksMissingTheTag() {
+        stubUser(admin);
+        when(taskRepository.findBulkRows(any())).thenReturn(List.of(
+                new Row(10L, "A", TaskStatus.TODO, TaskPriority.LOW, null),
+                new Row(11L, "B", TaskStatus.TODO, TaskPriority.LOW, null)));
+        Tag urgent = Tag.builder().id(5).name("urgent").build();
+        when(tagService.resolveOrCreate(Set.of("urgent"))).thenReturn(Set.of(urgent));
+        when(taskRepository.findTagLinks(any(), any())).thenReturn(List.of(new Link(11L, 5)));
+        when(taskRepository.getReferenceById(anyLong())).thenAnswer(inv -> Task.builder().id(inv.getArgument(0)).build());
+
+        var req = new TaskDtos.BulkTaskRequest(List.of(10L, 11L), null, null, null, null, Set.of("urgent"), null);
+        var res = bulkService.tags(1L, req);
+
+        assertEquals(1, res.updated());
+        assertEquals(1, res.unchanged());
+        verify(taskRepository).linkTags(List.of(10L), Set.of(5));
+        verify(taskRepository).bulkTouch(eq(List.of(10L)), any());
+        verify(taskRepository, never()).unlinkTags(any(), any());
+    }
+
+    @Test
+    void filter_shouldResolveIdsFromListSpec() {
+        stubUser(admin);
+        var filter = new TaskDtos.TaskFilter(null, Set.of(TaskStatus.TODO), null, null, null, null, null, null, null, null);
+        Specification<Task> spec = (root, q, cb) -> null;
+        when(taskService.filterSpec(admin, filter)).thenReturn(spec);
+        when(taskRepository.findIds(spec)).thenReturn(List.of(10L));
+        when(taskRepository.findBulkRows(any())).thenReturn(List.of(
+                new Row(10L, "A", TaskStatus.TODO, TaskPriority.LOW, null)));
+        when(taskRepository.getReferenceById(10L)).thenReturn(Task.builder().id(10L).build());
+
+        var res = bulkService.softDelete(1L, new TaskDtos.BulkTaskRequest(null, filter, null, null, null, null, null));
+
+        assertEquals(1, res.updated());
+        verify(taskRepository).bulkSoftDelete(eq(List.of(10L)), any());
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof TaskChangedEvent c && !c.active()));
+    }
+
+    @Test
+    void bothIdsAndFilter_shouldThrow() {
+        stubUser(admin);
+        var filter = new TaskDtos.TaskFilter(null, null, null, null, null, null, null, null, null, null);
+        var req = new TaskDtos.BulkTaskRequest(List.of(1L), filter, null, TaskStatus.DONE, null, null, null);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> bulkService.status(1L, req));
+        assertEquals("BULK_TARGET_REQUIRED", ex.getMessage());
+    }
+
+    @Test
+    void tooManyTasks_shouldThrow() {
+        stubUser(admin);
+        ReflectionTestUtils.setField(bulkService, "maxTasks", 2);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> bulkService.status(1L, request(List.of(1L, 2L, 3L), TaskStatus.DONE)));
+        assertEquals("BULK_TOO_MANY", ex.getMessage());
+        verify(taskRepository, never()).findBulkRows(any());
+    }
+
+    @Test
+    void customer_shouldBeForbidden() {
+        stubUser(user(2L, Role.CUSTOMER));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> bulkService.status(2L, request(List.of(1L), TaskStatus.DONE)));
+        assertEquals("FORBIDDEN", ex.getMessage());
+    }
+
+    private static TaskDtos.BulkTaskRequest request(List<Long> ids, TaskStatus status) {
+        return new TaskDtos.BulkTaskRequest(ids, null, null, status, null, null, null);
+    }
+
+    private void stubUser(User u) {
+        when(userRepository.findById(u.getId())).thenReturn(Optional.of(u));
+    }
+
+    private static User user(Long id, Role role) {
+        User u = new User();
+        u.setId(id);
+        u.setRole(role);
+        u.setActive(true);
+        return u;
+    }
+}
@@ -0,0 +1,208 @@
+package project.demo.service;
+
+import jakarta.validation.Validation;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import project.demo.dto.TaskDtos;
+import project.demo.entity.Tag;
+import project.demo.entity.User;
+import project.demo.enums.Role;
+import project.demo.enums.TaskPriority;
+import project.demo.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TaskImportServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TagService tagService = mock(TagService.class);
+    private final TaskImportWriter writer = mock(TaskImportWriter.class);
+    private TaskImportService importService;
+
+    record EmailRow(Long getId, String getEmail) implements UserRepository.EmailRow {}
+
+    @AfterEach
+    void tearDown() {
+        if (importService != null) importService.shutdown();
+    }
+
+    @Test
+    void csv_shouldInsertValidRowsInChunksAndReportRowErrors() throws Exception {
+        importService = service(2);
+        stubAdmin();
+        when(userRepository.findActiveIdsByEmailIn(any())).thenReturn(List.of(new EmailRow(7L, "Dev@Local.test")));
+        when(tagService.resolveOrCreate(any())).thenAnswer(inv -> {
+            Set<Tag> out = new HashSet<>();
+            int id = 1;
+            for (Object n : (Collection<?>) inv.getArgument(0)) out.add(Tag.builder().id(id++).name((String) n).build());
+            return out;
+        });
+        when(writer.write(eq(1L), any())).thenAnswer(inv -> List.of());
+
+        String csv = """
+                Title,Description,Priority,Due Date,Tags,Assignee Email
+                Task 1,"multi
+                line, with comma",high,2026-01-15,backend;urgent,dev@local.test
+                ,no title,LOW,,,
+                Task 3,,SOMETIMES,,,
+                Task 4,,LOW,15/01/2026,,
+                Task 5,,MEDIUM,,,dev@local.test
+                Task 6,,LOW,,,ghost@local.test
+                Task 7,,URGENT,,,
+                """;
+        var res = await(importService.submit(1L, new MockMultipartFile("file", "tasks.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("DONE", res.status());
+        assertEquals(7, res.rowsRead());
+        assertEquals(3, res.inserted());
+        assertEquals(4, res.failed());
+        assertEquals(List.of(
+                new TaskDtos.ImportRowError(4, "title: must not be blank"),
+                new TaskDtos.ImportRowError(5, "priority: invalid value 'SOMETIMES'"),
+                new TaskDtos.ImportRowError(6, "dueDate: expected yyyy-MM-dd"),
+                new TaskDtos.ImportRowError(8, "assigneeEmail: user not found")
+        ), res.errors().stream().sorted(Comparator.comparingLong(TaskDtos.ImportRowError::row)).toList());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TaskImportWriter.Row>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(writer, times(2)).write(eq(1L), chunks.capture());
+        var first = chunks.getAllValues().get(0).get(0);
+        assertEquals("multi\nline, with comma", first.req().description());
+        assertEquals(TaskPriority.HIGH, first.req().priority());
+        assertEquals(LocalDate.of(2026, 1, 15), first.req().dueDate());
+        assertEquals(7L, first.req().assigneeId());
+        assertEquals(2, first.tagIds().size());
+        // email đã resolve ở chunk đầu được cache, ghost chỉ query 1 lần
+        verify(userRepository, times(2)).findActiveIdsByEmailIn(any());
+    }
+
+    @Test
+    void xlsx_shouldStreamFirstSheetAndReadDateCellsAsIso() throws Exception {
+        importService = service(1000);
+        stubAdmin();
+        when(writer.write(eq(1L), any())).thenAnswer(inv -> List.of());
+
+        byte[] xlsx;
+        try (XSSFWorkbook wb = new XSSFWorkbook(); ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+            Sheet sheet = wb.createSheet("tasks");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("title");
+            header.createCell(2).setCellValue("priority");
+            header.createCell(3).setCellValue("dueDate");
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+            for (int i = 1; i <= 3; i++) {
+                Row r = sheet.createRow(i);
+                r.createCell(0).setCellValue("Task " + i);
+                r.createCell(2).setCellValue("LOW");
+                var due = r.createCell(3);
+                due.setCellValue(LocalDate.of(2026, 2, i));
+                due.setCellStyle(dateStyle);
+            }
+            wb.write(bos);
+            xlsx = bos.toByteArray();
+        }
+
+        var res = await(importService.submit(1L, new MockMultipartFile("file", "tasks.xlsx", null, xlsx)));
+
+        assertEquals("DONE", res.status());
+        assertEquals(3, res.inserted());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TaskImportWriter.Row>> chunk = ArgumentCaptor.forClass(List.class);
+        verify(writer).write(eq(1L), chunk.capture());
+        assertEquals(LocalDate.of(2026, 2, 3), chunk.getValue().get(2).req().dueDate());
+        verify(userRepository, never()).findActiveIdsByEmailIn(any());
+    }
+
+    @Test
+    void missingRequiredColumn_shouldFailJob() throws Exception {
+        importService = service(10);
+        stubAdmin();
+
+        var res = await(importService.submit(1L, new MockMultipartFile("file", "tasks.csv", "text/csv",
+                "title,description\nA,B\n".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("FAILED", res.status());
+        assertEquals("IMPORT_MISSING_COLUMNS: priority", res.message());
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    void chunkWriteFailure_shouldMarkOnlyThatChunkFailed() throws Exception {
+        importService = service(1);
+        stubAdmin();
+        when(writer.write(eq(1L), any()))
+                .thenThrow(new RuntimeException("deadlock"))
+                .thenReturn(List.of(10L));
+
+        var res = await(importService.submit(1L, new MockMultipartFile("file", "tasks.csv", "text/csv",
+                "title,priority\nA,LOW\nB,LOW\n".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("DONE", res.status());
+        assertEquals(1, res.inserted());
+        assertEquals(1, res.failed());
+        assertEquals(2, res.errors().getFirst().row());
+    }
+
+    @Test
+    void tagTooLong_shouldFailOnlyThatRow() throws Exception {
+        importService = service(10);
+        stubAdmin();
+        when(writer.write(eq(1L), any())).thenAnswer(inv -> List.of());
+
+        String csv = "title,priority,tags\nA,LOW," + "x".repeat(51) + ";ok\nB,LOW,ok\n";
+        var res = await(importService.submit(1L, new MockMultipartFile("file", "tasks.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("DONE", res.status());
+        assertEquals(1, res.inserted());
+        assertEquals(1, res.failed());
+        assertEquals(List.of(new TaskDtos.ImportRowError(2, "tags: TAG_TOO_LONG")), res.errors());
+    }
+
+    @Test
+    void unsupportedFile_shouldThrow() {
+        importService = service(10);
+        stubAdmin();
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> importService.submit(1L,
+                new MockMultipartFile("file", "tasks.pdf", "application/pdf", new byte[]{1})));
+        assertEquals("IMPORT_UNSUPPORTED_FORMAT", ex.getMessage());
+    }
+
+    private TaskImportService service(int chunkSize) {
+        return new TaskImportService(userRepository, tagService, writer,
+                Validation.buildDefaultValidatorFactory().getValidator(), chunkSize, 100, 2, 60);
+    }
+
+    private void stubAdmin() {
+        User admin = new User();
+        admin.setId(1L);
+        admin.setRole(Role.ADMIN);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(admin));
+    }
+
+    private TaskDtos.ImportJobResponse await(TaskDtos.ImportJobResponse submitted) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            var job = importService.getJob(1L, submitted.id());
+            if (job.finishedAt() != null) return job;
+            Thread.sleep(10);
+        }
+        fail("import job did not finish");
+        return null;
+    }
+}
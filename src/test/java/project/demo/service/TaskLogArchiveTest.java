@@ -0,0 +1,88 @@
+package project.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import project.demo.entity.TaskLogSegment;
+import project.demo.repository.TaskLogSegmentRepository;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TaskLogArchiveTest {
+
+    @TempDir Path dir;
+
+    private final Instant base = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void segmentFile_shouldRoundTripAndReadSingleTaskAcrossBlocks() throws Exception {
+        Path file = dir.resolve("a.seg");
+        long id = 1;
+        try (LogSegmentFile.Writer w = LogSegmentFile.create(file, 4)) {
+            for (long task = 1; task <= 5; task++) {
+                for (int i = 0; i < 3; i++) {
+                    w.add(row(id++, task, base.plusSeconds(task * 100 + i), i == 0 ? null : "v" + i));
+                }
+            }
+        }
+
+        LogSegmentFile.Index index = LogSegmentFile.readIndex(file);
+        assertEquals(15, index.rowCount());
+
+        List<LogSegmentFile.Row> rows = LogSegmentFile.readTask(file, index, 3L);
+        assertEquals(List.of(7L, 8L, 9L), rows.stream().map(LogSegmentFile.Row::id).toList());
+        assertNull(rows.get(0).newValue());
+        assertEquals("v2", rows.get(2).newValue());
+        assertEquals(base.plusSeconds(302), rows.get(2).createdAt());
+        assertTrue(LogSegmentFile.readTask(file, index, 42L).isEmpty());
+    }
+
+    @Test
+    void before_shouldReturnNewestFirstAfterCursorAcrossMonthsWithoutDuplicates() throws Exception {
+        Instant jan = base;
+        Instant feb = Instant.parse("2026-02-10T00:00:00Z");
+        write("jan.seg", List.of(row(1, 7, jan, "a"), row(2, 7, jan.plusSeconds(60), "b")));
+        write("feb.seg", List.of(row(3, 7, feb, "c"), row(4, 7, feb.plusSeconds(60), "d")));
+        // cùng tháng, segment chạy lại sau crash chứa lại dòng 4
+        write("feb-retry.seg", List.of(row(4, 7, feb.plusSeconds(60), "d")));
+
+        TaskLogSegmentRepository repo = mock(TaskLogSegmentRepository.class);
+        when(repo.findAllByOrderByMonthDescIdDesc()).thenReturn(List.of(
+                segment("2026-02", "feb-retry.seg", feb.plusSeconds(60)),
+                segment("2026-02", "feb.seg", feb),
+                segment("2026-01", "jan.seg", jan)));
+        TaskLogArchive archive = new TaskLogArchive(repo, dir.toString());
+
+        assertEquals(List.of(4L, 3L, 2L), ids(archive.before(7L, null, null, 3)));
+        assertEquals(List.of(2L, 1L), ids(archive.before(7L, feb, 3L, 10)));
+        assertTrue(archive.before(8L, null, null, 10).isEmpty());
+        // manifest được cache
+        verify(repo, times(1)).findAllByOrderByMonthDescIdDesc();
+    }
+
+    private void write(String name, List<LogSegmentFile.Row> rows) throws Exception {
+        try (LogSegmentFile.Writer w = LogSegmentFile.create(dir.resolve(name), 100)) {
+            for (LogSegmentFile.Row r : rows) w.add(r);
+        }
+    }
+
+    private static TaskLogSegment segment(String month, String fileName, Instant minCreatedAt) {
+        return TaskLogSegment.builder().month(month).fileName(fileName).status("ARCHIVED")
+                .minCreatedAt(minCreatedAt).maxCreatedAt(minCreatedAt.plusSeconds(60)).build();
+    }
+
+    private static LogSegmentFile.Row row(long id, long taskId, Instant at, String newValue) {
+        return new LogSegmentFile.Row(id, taskId, 1L, "UPDATED", "title", null, newValue, at);
+    }
+
+    private static List<Long> ids(List<LogSegmentFile.Row> rows) {
+        List<Long> out = new ArrayList<>();
+        for (LogSegmentFile.Row r : rows) out.add(r.id());
+        return out;
+    }
+}
@@ -0,0 +1,76 @@
+package project.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import project.demo.repository.TaskLogSegmentRepository;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TaskLogArchiverTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final JobLeases leases = mock(JobLeases.class);
+    private final TaskLogSegmentRepository segmentRepository = mock(TaskLogSegmentRepository.class);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void archiveExpired_leaseHeldByOtherNode_shouldNotTouchLogsOrSegments() throws Exception {
+        when(leases.tryAcquire(eq(TaskLogArchiver.LEASE), any(Duration.class))).thenReturn(false);
+
+        assertEquals(-1, archiver().archiveExpired());
+
+        verifyNoInteractions(jdbcTemplate, segmentRepository);
+        verify(leases, never()).release(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void archiveExpired_nothingExpired_shouldReleaseLease() throws Exception {
+        when(leases.tryAcquire(eq(TaskLogArchiver.LEASE), any(Duration.class))).thenReturn(true);
+        when(segmentRepository.findByStatus("WRITTEN")).thenReturn(List.of());
+        when(jdbcTemplate.queryForObject(eq(TaskLogArchiver.MIN_CREATED_SQL), any(RowMapper.class))).thenReturn(null);
+
+        assertEquals(0, archiver().archiveExpired());
+
+        verify(leases).release(TaskLogArchiver.LEASE);
+    }
+
+    @Test
+    void scheduledArchive_shouldRunOnItsOwnThread() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        Thread[] worker = new Thread[1];
+        when(leases.tryAcquire(eq(TaskLogArchiver.LEASE), any(Duration.class))).thenAnswer(inv -> {
+            worker[0] = Thread.currentThread();
+            called.countDown();
+            return false;
+        });
+        TaskLogArchiver archiver = archiver();
+
+        archiver.scheduledArchive();
+
+        assertTrue(called.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), worker[0]);
+        archiver.shutdown();
+    }
+
+    private TaskLogArchiver archiver() {
+        Clock clock = Clock.fixed(Instant.parse("2026-10-18T00:00:00Z"), ZoneOffset.UTC);
+        return new TaskLogArchiver(jdbcTemplate, leases, segmentRepository, new TaskLogArchive(segmentRepository, dir.toString()), clock,
+                true, 6, 100, 1000, 60, 60);
+    }
+}
@@ -0,0 +1,124 @@
+package project.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import project.demo.entity.Task;
+import project.demo.event.TaskChangedEvent;
+import project.demo.repository.TaskRepository;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskSearchIndexTest {
+
+    @Mock TaskRepository taskRepository;
+
+    @InjectMocks TaskSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxHits", 1000);
+        ReflectionTestUtils.setField(index, "maxFilterIds", 20000);
+    }
+
+    @Test
+    void matchAll_shouldNotBeCappedByMaxHitsButFallBackAboveFilterLimit() {
+        ReflectionTestUtils.setField(index, "maxHits", 2);
+        ReflectionTestUtils.setField(index, "maxFilterIds", 4);
+        for (long id = 1; id <= 3; id++) index.index(id, "deploy " + id, null);
+
+        assertEquals(2, index.search("deploy").size());
+        assertEquals(Set.of(1L, 2L, 3L), index.matchAll("deploy"));
+        assertEquals(Set.of(), index.matchAll("nothing"));
+
+        for (long id = 4; id <= 5; id++) index.index(id, "deploy " + id, null);
+        assertNull(index.matchAll("deploy"));
+    }
+
+    @Test
+    void matchAll_prefixTooWide_shouldReturnNull() {
+        for (int i = 0; i < 101; i++) index.index((long) i, "tok" + i, null);
+
+        assertNull(index.matchAll("tok"));
+        assertEquals(Set.of(70L), index.matchAll("tok70"));
+    }
+
+    @Test
+    void search_shouldAndTokensAndRankTitleAboveDescription() {
+        index.index(1L, "Fix login bug", "users cannot deploy");
+        index.index(2L, "Deploy backend", "login page after deploy");
+        index.index(3L, "Write docs", "nothing relevant");
+
+        assertEquals(List.of(2L, 1L), index.search("login deploy"));
+        assertEquals(List.of(), index.search("login docs"));
+    }
+
+    @Test
+    void search_lastTokenShouldMatchAsPrefix() {
+        index.index(1L, "Deployment pipeline", null);
+        index.index(2L, "Depot inventory", null);
+
+        assertEquals(List.of(1L), index.search("deplo"));
+        assertEquals(List.of(2L, 1L), index.search("dep"));
+    }
+
+    @Test
+    void search_shouldIgnoreCaseAndVietnameseDiacritics() {
+        index.index(1L, "Cập nhật tiến độ", null);
+
+        assertEquals(List.of(1L), index.search("TIEN DO"));
+        assertEquals(List.of(1L), index.search("cap nhat"));
+    }
+
+    @Test
+    void onTaskChanged_shouldReindexAndRemove() {
+        index.onTaskChanged(new TaskChangedEvent(1L, "Old title", null, true, true));
+        index.onTaskChanged(new TaskChangedEvent(1L, "New title", null, true, true));
+
+        assertEquals(List.of(), index.search("old"));
+        assertEquals(List.of(1L), index.search("new"));
+
+        index.onTaskChanged(new TaskChangedEvent(1L, "New title", null, false, false));
+        assertEquals(List.of(), index.search("new"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_shouldLoadActiveTasksAndMarkReady() {
+        Task t = Task.builder().id(5L).title("Release notes").description("v2").active(true).build();
+        when(taskRepository.findBy(any(Specification.class), any())).thenReturn(List.of(t));
+
+        assertFalse(index.isReady());
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(5L), index.search("release"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_taskDeletedWhileBuilding_shouldNotBeResurrectedBySnapshot() {
+        Task stale = Task.builder().id(5L).title("Release notes").description("v2").active(true).build();
+        when(taskRepository.findBy(any(Specification.class), any())).thenAnswer(inv -> {
+            // xoá mềm commit sau khi rebuild đã đọc snapshot
+            index.onTaskChanged(new TaskChangedEvent(5L, "Release notes", null, false, false));
+            return List.of(stale);
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(), index.search("release"));
+    }
+}
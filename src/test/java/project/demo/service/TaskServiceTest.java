@@ -1,15 +1,26 @@
 package project.demo.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import project.demo.dto.TaskDtos;
 import project.demo.entity.*;
 import project.demo.enums.*;
+import project.demo.event.TaskChangedEvent;
 import project.demo.repository.*;
+import project.demo.security.AuthenticatedUserContext;
+import project.demo.util.CursorUtil;
+import project.demo.util.VersionTag;
+import project.demo.util.TextDelta;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -26,8 +37,16 @@ class TaskServiceTest {
     @Mock TaskRepository taskRepository;
     @Mock SubTaskRepository subTaskRepository;
     @Mock TaskLogRepository taskLogRepository;
+    @Mock TaskLogArchive logArchive;
     @Mock TaskCommentRepository commentRepository;
-    @Mock NotificationService notificationService;
+    @Mock NotificationOutboxWriter notificationOutbox;
+    @Mock TaskSearchIndex searchIndex;
+    @Mock TagService tagService;
+    @Mock TaskSummaryCache summaryCache;
+    @Mock AuditLogWriter auditLog;
+    // fan-out tắt: query con chạy tuần tự trên thread test
+    @Spy ReadFanOut fanOut = new ReadFanOut(null, false, 0, 1000);
+    @Mock ApplicationEventPublisher eventPublisher;
 
     @InjectMocks TaskService taskService;
 
@@ -35,6 +54,11 @@ class TaskServiceTest {
     private final User customer = user(2L, Role.CUSTOMER);
     private final User other = user(3L, Role.CUSTOMER);
 
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
     // =========================
     // CREATE TASK
     // =========================
@@ -57,7 +81,7 @@ class TaskServiceTest {
         var res = taskService.createTask(admin.getId(), req);
 
         assertEquals(10L, res.id());
-        verify(taskLogRepository, atLeastOnce()).save(any());
+        verify(auditLog, atLeastOnce()).append(any());
     }
 
     @Test
@@ -82,7 +106,7 @@ class TaskServiceTest {
 
         RuntimeException ex = assertThrows(RuntimeException.class,
                 () -> taskService.patchTask(admin.getId(), 10L,
-                        new TaskDtos.PatchTaskRequest("x", null, null, null, null)));
+                        new TaskDtos.PatchTaskRequest("x", null, null, null, null), null));
 
         assertEquals("TASK_NOT_FOUND", ex.getMessage());
     }
@@ -96,11 +120,116 @@ class TaskServiceTest {
         when(taskRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         var res = taskService.patchTask(admin.getId(), 10L,
-                new TaskDtos.PatchTaskRequest("New", "Desc", null, null, null));
+                new TaskDtos.PatchTaskRequest("New", "Desc", null, null, null), null);
 
         assertEquals("New", res.title());
-        verify(taskLogRepository, atLeastOnce()).save(any());
+        verify(auditLog, atLeastOnce()).append(any());
+
+    }
+
+    @Test
+    void patchTask_tags_shouldApplyDeltaInPlaceAndLogOnlyDelta() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        Set<Tag> managed = task.getTags();
+        managed.add(Tag.builder().id(1).name("backend").build());
+        managed.add(Tag.builder().id(2).name("old").build());
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(tagService.resolveOrCreate(Set.of("new"))).thenReturn(Set.of(Tag.builder().id(3).name("new").build()));
+
+        var res = taskService.patchTask(admin.getId(), 10L,
+                new TaskDtos.PatchTaskRequest(null, null, null, null, Set.of("Backend", "new")), null);
+
+        assertEquals(Set.of("backend", "new"), res.tags());
+        // cùng PersistentSet -> Hibernate chỉ DELETE / INSERT dòng đổi
+        assertSame(managed, task.getTags());
+        ArgumentCaptor<TaskLog> logs = ArgumentCaptor.forClass(TaskLog.class);
+        verify(auditLog, times(2)).append(logs.capture());
+        assertEquals("tags.remove", logs.getAllValues().get(0).getFieldName());
+        assertEquals("[old]", logs.getAllValues().get(0).getOldValue());
+        assertEquals("tags.add", logs.getAllValues().get(1).getFieldName());
+        assertEquals("[new]", logs.getAllValues().get(1).getNewValue());
+    }
 
+    @Test
+    void patchTask_sameTags_shouldNotWriteOrLog() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        task.getTags().add(Tag.builder().id(1).name("backend").build());
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+
+        var res = taskService.patchTask(admin.getId(), 10L,
+                new TaskDtos.PatchTaskRequest(null, null, null, null, Set.of(" BACKEND ")), null);
+
+        assertEquals(Set.of("backend"), res.tags());
+        verify(taskRepository, never()).save(any());
+        verifyNoInteractions(auditLog, eventPublisher, tagService);
+    }
+
+    @Test
+    void addTag_alreadyPresent_shouldNotWrite() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        task.getTags().add(Tag.builder().id(1).name("backend").build());
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+
+        taskService.addTag(admin.getId(), 10L, "Backend", null);
+
+        verify(taskRepository, never()).save(any());
+        verifyNoInteractions(auditLog);
+    }
+
+    @Test
+    void removeTag_shouldLogRemovedTagOnly() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        task.getTags().add(Tag.builder().id(1).name("backend").build());
+        task.getTags().add(Tag.builder().id(2).name("urgent").build());
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        var res = taskService.removeTag(admin.getId(), 10L, "urgent", null);
+
+        assertEquals(Set.of("backend"), res.tags());
+        ArgumentCaptor<TaskLog> log = ArgumentCaptor.forClass(TaskLog.class);
+        verify(auditLog).append(log.capture());
+        assertEquals("tags.remove", log.getValue().getFieldName());
+        assertEquals("[urgent]", log.getValue().getOldValue());
+        verify(taskRepository).flush();
+    }
+
+    @Test
+    void patchTask_staleVersion_shouldConflictWithoutWriting() {
+        stubUser(admin);
+        Task task = task(10L, admin, customer);
+        task.setVersion(4);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+
+        RuntimeException ex = assertThrows(OptimisticLockingFailureException.class,
+                () -> taskService.patchTask(admin.getId(), 10L,
+                        new TaskDtos.PatchTaskRequest("New", null, null, null, null), 3L));
+
+        assertEquals("VERSION_CONFLICT", ex.getMessage());
+        assertEquals("Task", task.getTitle());
+        verify(taskRepository, never()).save(any());
+        verifyNoInteractions(auditLog, eventPublisher);
+    }
+
+    @Test
+    void updateStatus_matchingVersion_shouldFlushSoResponseCarriesNewVersion() {
+        stubUser(customer);
+        Task task = task(10L, admin, customer);
+        task.setVersion(4);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        doAnswer(inv -> {
+            task.setVersion(5); // Hibernate tăng version khi flush
+            return null;
+        }).when(taskRepository).flush();
+
+        var res = taskService.updateStatus(customer.getId(), 10L, TaskStatus.DONE, 4L);
+
+        assertEquals(5, res.version());
     }
 
     // =========================
@@ -127,7 +256,7 @@ class TaskServiceTest {
         taskService.softDeleteTask(admin.getId(), 10L);
 
         assertFalse(task.isActive());
-        verify(taskLogRepository, atLeastOnce()).save(any());
+        verify(auditLog, atLeastOnce()).append(any());
 
     }
 
@@ -144,7 +273,7 @@ class TaskServiceTest {
         when(userRepository.findById(99L)).thenReturn(Optional.empty());
 
         RuntimeException ex = assertThrows(RuntimeException.class,
-                () -> taskService.assignTask(admin.getId(), 10L, 99L));
+                () -> taskService.assignTask(admin.getId(), 10L, 99L, null));
 
         assertEquals("USER_NOT_FOUND", ex.getMessage());
     }
@@ -158,10 +287,10 @@ class TaskServiceTest {
         when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
         when(taskRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
-        var res = taskService.assignTask(admin.getId(), 10L, customer.getId());
+        var res = taskService.assignTask(admin.getId(), 10L, customer.getId(), null);
 
         assertEquals(customer.getId(), res.assignee().id());
-        verify(taskLogRepository, atLeastOnce()).save(any());
+        verify(auditLog, atLeastOnce()).append(any());
 
     }
 
@@ -189,12 +318,386 @@ class TaskServiceTest {
 
         when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
         when(subTaskRepository.findAllByTaskIdAndActiveTrue(10L)).thenReturn(List.of());
-        when(commentRepository.findAllByTaskIdOrderByCreatedAtAsc(10L)).thenReturn(List.of());
-        when(taskLogRepository.findAllByTaskIdOrderByCreatedAtDesc(10L)).thenReturn(List.of());
+        when(commentRepository.findByTaskIdOrderByCreatedAtAscIdAsc(10L, Limit.of(21))).thenReturn(List.of());
+        when(taskLogRepository.findByTaskIdOrderByCreatedAtDescIdDesc(10L, Limit.of(21))).thenReturn(List.of());
+
+        var res = taskService.getTaskDetail(customer.getId(), 10L);
+
+        assertEquals(10L, res.task().id());
+        assertFalse(res.comments().hasNext());
+        assertFalse(res.logs().hasNext());
+    }
+
+    @Test
+    void getTaskDetail_shouldEmbedFirstPageOfLogsWithCursor() {
+        stubUser(admin);
+        Task task = task(10L, admin, customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+
+        Instant base = Instant.parse("2026-03-01T00:00:00Z");
+        List<TaskLog> rows = new ArrayList<>();
+        for (long i = 21; i >= 1; i--) rows.add(taskLog(i, task, admin, base.plusSeconds(i)));
+        when(taskLogRepository.findByTaskIdOrderByCreatedAtDescIdDesc(10L, Limit.of(21))).thenReturn(rows);
+
+        var res = taskService.getTaskDetail(admin.getId(), 10L);
+
+        assertEquals(20, res.logs().items().size());
+        assertTrue(res.logs().hasNext());
+        assertArrayEquals(new String[]{base.plusSeconds(2).toString(), "2"},
+                CursorUtil.decode(res.logs().nextCursor(), 2));
+    }
+
+    @Test
+    void listLogs_withCursor_shouldSeekPastLastRow() {
+        stubUser(customer);
+        Task task = task(10L, admin, customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        Instant at = Instant.parse("2026-03-01T00:00:02Z");
+        when(taskLogRepository.findPageBefore(10L, at, 2L, Limit.of(6)))
+                .thenReturn(List.of(taskLog(1L, task, admin, at.minusSeconds(1))));
+
+        var page = taskService.listLogs(customer.getId(), 10L, CursorUtil.encode(at.toString(), "2"), 5);
+
+        assertEquals(1, page.items().size());
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+        verify(taskLogRepository, never()).findByTaskIdOrderByCreatedAtDescIdDesc(any(), any());
+    }
+
+    @Test
+    void listLogs_hotTableExhausted_shouldContinueIntoArchiveWithSameCursor() {
+        stubUser(admin);
+        Task task = task(10L, admin, customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        Instant at = Instant.parse("2026-03-01T00:00:00Z");
+        when(taskLogRepository.findByTaskIdOrderByCreatedAtDescIdDesc(10L, Limit.of(4)))
+                .thenReturn(List.of(taskLog(100L, task, admin, at)));
+        List<LogSegmentFile.Row> archived = new ArrayList<>();
+        for (long i = 3; i >= 1; i--) {
+            archived.add(new LogSegmentFile.Row(i, 10L, 1L, "UPDATED", "title", "a", "b", at.minus(30 * i, java.time.temporal.ChronoUnit.DAYS)));
+        }
+        when(logArchive.before(10L, at, 100L, 3)).thenReturn(archived);
+        when(userRepository.findAllById(Set.of(1L))).thenReturn(List.of(admin));
+
+        var page = taskService.listLogs(admin.getId(), 10L, null, 3);
+
+        assertEquals(List.of(100L, 3L, 2L), page.items().stream().map(TaskDtos.LogResponse::id).toList());
+        assertTrue(page.hasNext());
+        assertEquals(admin.getId(), page.items().get(1).actor().id());
+        assertArrayEquals(new String[]{archived.get(1).createdAt().toString(), "2"},
+                CursorUtil.decode(page.nextCursor(), 2));
+    }
+
+    @Test
+    void patchTask_largeDescription_shouldLogDeltaInsteadOfFullValues() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        String doc = "# Spec 😀\n" + "x".repeat(4000);
+        task.setDescription(doc);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        taskService.patchTask(admin.getId(), 10L,
+                new TaskDtos.PatchTaskRequest(null, doc.replace("Spec 😀", "Spec 😃 v2"), null, null, null), null);
+
+        ArgumentCaptor<TaskLog> log = ArgumentCaptor.forClass(TaskLog.class);
+        verify(auditLog).append(log.capture());
+        assertEquals("description.delta", log.getValue().getFieldName());
+        assertNull(log.getValue().getOldValue());
+        assertTrue(log.getValue().getNewValue().length() < 100);
+    }
+
+    @Test
+    void listLogs_descriptionDeltas_shouldBeReplayedFromCurrentDescription() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        String v0 = "intro\n" + "a".repeat(3000);
+        String v1 = v0 + "\nsection 2";
+        String v2 = v1.replace("intro", "Intro 😀");
+        task.setDescription(v2);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        when(taskRepository.findDescriptionById(10L)).thenReturn(Optional.of(v2));
+
+        Instant at = Instant.parse("2026-03-01T00:00:00Z");
+        TaskLog l2 = taskLog(2L, task, admin, at.plusSeconds(1));
+        l2.setFieldName("description.delta");
+        l2.setNewValue(TextDelta.encode(v1, v2));
+        TaskLog l1 = taskLog(1L, task, admin, at);
+        l1.setFieldName("description.delta");
+        l1.setNewValue(TextDelta.encode(v0, v1));
+        when(taskLogRepository.findByTaskIdOrderByCreatedAtDescIdDesc(10L, Limit.of(6))).thenReturn(List.of(l2, l1));
+        when(taskLogRepository.findFieldHistorySince(eq(10L), any(), eq(at), eq(1L))).thenReturn(List.of(
+                fieldChange(2L, l2.getNewValue()), fieldChange(1L, l1.getNewValue())));
+
+        var page = taskService.listLogs(admin.getId(), 10L, null, 5);
+
+        var items = page.items();
+        assertEquals("description", items.get(0).fieldName());
+        assertEquals(v1, items.get(0).oldValue());
+        assertEquals(v2, items.get(0).newValue());
+        assertEquals(v0, items.get(1).oldValue());
+        assertEquals(v1, items.get(1).newValue());
+    }
+
+    @Test
+    void listLogs_descriptionDeltas_shouldReplayOnlyFromNearestFullRewrite() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        String v0 = "intro\n" + "a".repeat(3000);
+        String v1 = v0 + "\nsection 2";
+        String v2 = v1.replace("intro", "Intro");
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        when(taskRepository.findDescriptionById(10L)).thenReturn(Optional.of("rewritten many times since"));
+
+        Instant at = Instant.parse("2026-03-01T00:00:00Z");
+        TaskLog l2 = taskLog(2L, task, admin, at.plusSeconds(1));
+        l2.setFieldName("description.delta");
+        l2.setNewValue(TextDelta.encode(v1, v2));
+        TaskLog l1 = taskLog(1L, task, admin, at);
+        l1.setFieldName("description.delta");
+        l1.setNewValue(TextDelta.encode(v0, v1));
+        when(taskLogRepository.findByTaskIdOrderByCreatedAtDescIdDesc(10L, Limit.of(6))).thenReturn(List.of(l2, l1));
+        // lần viết lại toàn bộ ngay sau l2: oldValue = v2
+        TaskLogRepository.LogPosition rewrite = new TaskLogRepository.LogPosition() {
+            public Long getId() { return 3L; }
+            public Instant getCreatedAt() { return at.plusSeconds(2); }
+        };
+        when(taskLogRepository.findFieldChangesAfter(10L, "description", at.plusSeconds(1), 2L, Limit.of(1)))
+                .thenReturn(List.of(rewrite));
+        when(taskLogRepository.findFieldHistoryBetween(eq(10L), any(), eq(at), eq(1L), eq(at.plusSeconds(2)), eq(3L)))
+                .thenReturn(List.of(fullChange(3L, v2), fieldChange(2L, l2.getNewValue()), fieldChange(1L, l1.getNewValue())));
+
+        var items = taskService.listLogs(admin.getId(), 10L, null, 5).items();
+
+        assertEquals(v1, items.get(0).oldValue());
+        assertEquals(v2, items.get(0).newValue());
+        assertEquals(v0, items.get(1).oldValue());
+        assertEquals(v1, items.get(1).newValue());
+        verify(taskLogRepository, never()).findFieldHistorySince(any(), any(), any(), any());
+    }
+
+    @Test
+    void listLogs_descriptionDeltaChainBroken_shouldNotReturnWrongText() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        String v0 = "a".repeat(3000);
+        String v1 = v0 + "b";
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        // description đã đổi tiếp nhưng log của lần đổi đó chưa có
+        when(taskRepository.findDescriptionById(10L)).thenReturn(Optional.of(v1 + "c"));
+
+        Instant at = Instant.parse("2026-03-01T00:00:00Z");
+        TaskLog l1 = taskLog(1L, task, admin, at);
+        l1.setFieldName("description.delta");
+        l1.setNewValue(TextDelta.encode(v0, v1));
+        when(taskLogRepository.findByTaskIdOrderByCreatedAtDescIdDesc(10L, Limit.of(6))).thenReturn(List.of(l1));
+        when(taskLogRepository.findFieldHistorySince(eq(10L), any(), eq(at), eq(1L)))
+                .thenReturn(List.of(fieldChange(1L, l1.getNewValue())));
+
+        var log = taskService.listLogs(admin.getId(), 10L, null, 5).items().get(0);
+
+        assertEquals("description", log.fieldName());
+        assertNull(log.oldValue());
+        assertNull(log.newValue());
+    }
+
+    @Test
+    void detailETag_shouldChangeWhenNewLogIsWritten() {
+        stubUser(customer);
+        Instant at = Instant.parse("2026-03-01T00:00:00.123456Z");
+        when(taskRepository.findVersionRow(10L))
+                .thenReturn(Optional.of(versionRow(true, at, customer.getId(), 7L)))
+                .thenReturn(Optional.of(versionRow(true, at, customer.getId(), 8L)));
+
+        String before = taskService.detailETag(customer.getId(), 10L);
+        String after = taskService.detailETag(customer.getId(), 10L);
+
+        assertTrue(before.startsWith("\"v3.") && before.endsWith("\""));
+        assertEquals(3L, VersionTag.parseIfMatch(before));
+        assertNotEquals(before, after);
+        verifyNoInteractions(subTaskRepository, commentRepository, taskLogRepository);
+    }
+
+    @Test
+    void detailETag_shouldChangeWithCommentsAndSubTasksBeforeTheirLogIsWritten() {
+        stubUser(customer);
+        Instant at = Instant.parse("2026-03-01T00:00:00.123456Z");
+        // audit log async: TaskLog của comment / subtask chưa có, lastLogId vẫn là 7
+        when(taskRepository.findVersionRow(10L))
+                .thenReturn(Optional.of(versionRow(true, at, customer.getId(), 7L, null, null)))
+                .thenReturn(Optional.of(versionRow(true, at, customer.getId(), 7L, 40L, null)))
+                .thenReturn(Optional.of(versionRow(true, at, customer.getId(), 7L, 40L, at.plusSeconds(5))));
+
+        String initial = taskService.detailETag(customer.getId(), 10L);
+        String afterComment = taskService.detailETag(customer.getId(), 10L);
+        String afterSubTask = taskService.detailETag(customer.getId(), 10L);
+
+        assertNotEquals(initial, afterComment);
+        assertNotEquals(afterComment, afterSubTask);
+        assertEquals(3L, VersionTag.parseIfMatch(afterSubTask));
+    }
+
+    @Test
+    void detailETag_forbidden() {
+        stubUser(customer);
+        when(taskRepository.findVersionRow(10L))
+                .thenReturn(Optional.of(versionRow(true, Instant.now(), other.getId(), null)));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> taskService.detailETag(customer.getId(), 10L));
+
+        assertEquals("FORBIDDEN", ex.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listETag_shouldUseCountAndMaxUpdatedAtOfFilter() {
+        stubUser(admin);
+        Instant at = Instant.parse("2026-03-01T00:00:00Z");
+        when(taskRepository.fingerprint(any()))
+                .thenReturn(new TaskRepositoryCustom.Fingerprint(5, at))
+                .thenReturn(new TaskRepositoryCustom.Fingerprint(4, at));
+
+        assertNotEquals(taskService.listETag(admin.getId(), noFilter()), taskService.listETag(admin.getId(), noFilter()));
+        verify(taskRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void listComments_forbidden() {
+        stubUser(customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task(10L, admin, other)));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> taskService.listComments(customer.getId(), 10L, null, 20));
+
+        assertEquals("FORBIDDEN", ex.getMessage());
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    void listComments_badCursor_shouldThrow() {
+        stubUser(admin);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task(10L, admin, null)));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> taskService.listComments(admin.getId(), 10L, CursorUtil.encode("yesterday", "1"), 20));
+
+        assertEquals("INVALID_CURSOR", ex.getMessage());
+    }
+
+    @Test
+    void getTaskDetail_cacheHit_shouldSkipTaskLoad() {
+        stubUser(customer);
+        when(summaryCache.get(10L)).thenReturn(summary(10L, customer, Instant.now()));
 
         var res = taskService.getTaskDetail(customer.getId(), 10L);
 
         assertEquals(10L, res.task().id());
+        verify(taskRepository, never()).findById(any());
+        verify(summaryCache, never()).put(any(), any(), anyLong());
+    }
+
+    @Test
+    void getTaskDetail_cacheHit_shouldStillEnforceAccess() {
+        stubUser(customer);
+        when(summaryCache.get(10L)).thenReturn(summary(10L, other, Instant.now()));
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> taskService.getTaskDetail(customer.getId(), 10L));
+
+        assertEquals("FORBIDDEN", ex.getMessage());
+    }
+
+    @Test
+    void getTaskDetail_cacheMiss_shouldPopulateWithTokenTakenBeforeRead() {
+        when(summaryCache.readToken()).thenReturn(41L);
+        stubUser(admin);
+        Task task = task(10L, admin, customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+
+        taskService.getTaskDetail(admin.getId(), 10L);
+
+        InOrder order = inOrder(summaryCache, userRepository);
+        order.verify(summaryCache).readToken();
+        order.verify(userRepository).findById(admin.getId());
+        verify(summaryCache).put(eq(10L), any(), eq(41L));
+    }
+
+    @Test
+    void updateStatus_shouldPublishChangeForCacheInvalidation() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+
+        taskService.updateStatus(admin.getId(), 10L, TaskStatus.DONE, null);
+
+        ArgumentCaptor<TaskChangedEvent> cap = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(cap.capture());
+        assertEquals(10L, cap.getValue().taskId());
+        assertFalse(cap.getValue().contentChanged());
+    }
+
+    // =========================
+    // USER LOOKUPS (số SELECT users / request)
+    // actor đã được JwtAuthenticationFilter load và bind vào request -> service không query lại
+    // =========================
+
+    @Test
+    void updateStatus_withRequestUser_shouldNotSelectUsers() {
+        bindRequestUser(customer);
+        Task task = task(10L, admin, customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+
+        taskService.updateStatus(customer.getId(), 10L, TaskStatus.DONE, null);
+
+        // trước: 1 (actor) + 2 (recipient, actor trong createNotification); giờ: 0
+        verify(userRepository, never()).findById(any());
+        verify(notificationOutbox).append(eq(customer.getId()), eq(customer.getId()),
+                eq(NotificationType.TASK_STATUS_CHANGED), anyString(), eq(10L));
+    }
+
+    @Test
+    void addComment_withRequestUser_shouldNotSelectUsers() {
+        bindRequestUser(admin);
+        Task task = task(10L, admin, customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        when(commentRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        taskService.addComment(admin.getId(), 10L, new TaskDtos.CreateCommentRequest("hi"));
+
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void getTaskDetail_withRequestUser_shouldNotSelectUsers() {
+        bindRequestUser(customer);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task(10L, admin, customer)));
+
+        taskService.getTaskDetail(customer.getId(), 10L);
+
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void assignTask_withRequestUser_shouldOnlySelectAssignee() {
+        bindRequestUser(admin);
+        when(userRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task(10L, admin, null)));
+
+        taskService.assignTask(admin.getId(), 10L, customer.getId(), null);
+
+        verify(userRepository, times(1)).findById(any());
+    }
+
+    @Test
+    void requestUser_forDifferentId_shouldFallBackToRepository() {
+        bindRequestUser(customer);
+        stubUser(admin);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task(10L, admin, customer)));
+
+        taskService.getTaskDetail(admin.getId(), 10L);
+
+        verify(userRepository).findById(admin.getId());
     }
 
     // =========================
@@ -202,6 +705,7 @@ class TaskServiceTest {
     // =========================
 
     @Test
+    @SuppressWarnings("unchecked")
     void listTasks_withFilters_shouldHitSpecBranches() {
         stubUser(customer);
 
@@ -209,22 +713,41 @@ class TaskServiceTest {
         when(taskRepository.findAll(any(Specification.class), eq(pageable)))
                 .thenReturn(Page.empty());
 
-        taskService.listTasks(
-                customer.getId(),              // actorId
+        var filter = new TaskDtos.TaskFilter(
                 "Task",                        // q
-                TaskStatus.TODO,               // status
-                TaskPriority.HIGH,             // priority
-                customer.getId(),              // assigneeId
+                Set.of(TaskStatus.TODO),       // status
+                Set.of(TaskPriority.HIGH),     // priority
+                Set.of(customer.getId()),      // assigneeId
                 LocalDate.now().minusDays(1),  // dueFrom
                 LocalDate.now().plusDays(1),   // dueTo
                 "backend",                     // tag
-                pageable
+                null, null, null               // tagsAll / tagsAny / tagsNone
         );
+        taskService.listTasks(customer.getId(), filter, pageable);
 
         verify(taskRepository).findAll(any(Specification.class), eq(pageable));
     }
 
     @Test
+    @SuppressWarnings("unchecked")
+    void listTasks_multiValueFilters_shouldBeOneQuery() {
+        stubUser(admin);
+
+        Pageable pageable = PageRequest.of(0, 10);
+        when(taskRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(Page.empty());
+
+        var filter = new TaskDtos.TaskFilter(null,
+                Set.of(TaskStatus.TODO, TaskStatus.IN_PROGRESS),
+                Set.of(TaskPriority.HIGH, TaskPriority.URGENT),
+                Set.of(customer.getId(), other.getId()),
+                null, null, null, null, null, null);
+        taskService.listTasks(admin.getId(), filter, pageable);
+
+        verify(taskRepository, times(1)).findAll(any(Specification.class), eq(pageable));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
     void listTasks_noFilters_shouldWork() {
         stubUser(customer);
 
@@ -232,29 +755,353 @@ class TaskServiceTest {
         when(taskRepository.findAll(any(Specification.class), eq(pageable)))
                 .thenReturn(Page.empty());
 
-        taskService.listTasks(
-                customer.getId(),
-                null,
-                null,
-                null,
-                null,
-                null,
-                null,
-                null,
-                pageable
-        );
+        taskService.listTasks(customer.getId(), noFilter(), pageable);
 
         verify(taskRepository).findAll(any(Specification.class), eq(pageable));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void listTasks_pageOf100_shouldUseConstantNumberOfQueries() {
+        stubUser(admin);
+        Pageable pageable = PageRequest.of(0, 100);
+
+        List<Task> rows = new ArrayList<>();
+        List<TaskRepository.TagRow> tagRows = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            Task t = task(id, admin, id % 2 == 0 ? customer : other);
+            t.setTags(null); // giả lập collection chưa init: read path không được chạm vào
+            rows.add(t);
+            tagRows.add(tagRow(id, "t" + id));
+            tagRows.add(tagRow(id, "shared"));
+        }
+        when(taskRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(rows, pageable, 1000));
+        when(taskRepository.findTagRows(anyCollection())).thenReturn(tagRows);
+
+        var page = taskService.listTasks(admin.getId(), noFilter(), pageable);
+
+        assertEquals(100, page.getContent().size());
+        assertEquals(Set.of("t42", "shared"), page.getContent().get(41).tags());
+        assertEquals(customer.getId(), page.getContent().get(41).assignee().id());
+
+        // 1 query rows (+ count của Page) và 1 query tags cho cả trang; actor load 1 lần
+        verify(taskRepository, times(1)).findAll(any(Specification.class), eq(pageable));
+        verify(taskRepository, times(1)).findTagRows(anyCollection());
+        verifyNoMoreInteractions(taskRepository);
+        verify(userRepository, times(1)).findById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listTasks_tagFilters_shouldResolveNamesThroughDictionary() {
+        stubUser(admin);
+        when(tagService.idsByName(Set.of("backend", "urgent"))).thenReturn(Map.of("backend", 1, "urgent", 2));
+        when(tagService.idsByName(Set.of("blocked"))).thenReturn(Map.of("blocked", 3));
+
+        Pageable pageable = PageRequest.of(0, 10);
+        when(taskRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(Page.empty());
+
+        var filter = new TaskDtos.TaskFilter(null, null, null, null, null, null,
+                null, Set.of("Backend", " urgent "), null, Set.of("blocked"));
+        taskService.listTasks(admin.getId(), filter, pageable);
+
+        verify(tagService).idsByName(Set.of("backend", "urgent"));
+        verify(tagService).idsByName(Set.of("blocked"));
+        verify(taskRepository).findAll(any(Specification.class), eq(pageable));
+    }
+
+    @Test
+    void createTask_shouldResolveTagsFromDictionary() {
+        stubUser(admin);
+        Tag backend = Tag.builder().id(1).name("backend").build();
+        when(tagService.resolveOrCreate(Set.of("backend"))).thenReturn(new HashSet<>(Set.of(backend)));
+        when(taskRepository.save(any(Task.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var res = taskService.createTask(admin.getId(),
+                new TaskDtos.CreateTaskRequest("Task", null, TaskPriority.LOW, null, Set.of("backend"), null));
+
+        assertEquals(Set.of("backend"), res.tags());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listTasks_cachedSummaries_shouldOnlyLoadTagsForMisses() {
+        stubUser(admin);
+        Pageable pageable = PageRequest.of(0, 10);
+        Task fresh = task(1L, admin, customer);
+        Task changed = task(2L, admin, customer);
+        when(summaryCache.get(1L)).thenReturn(summary(1L, customer, fresh.getUpdatedAt()));
+        // updatedAt khác -> summary cũ, không dùng
+        when(summaryCache.get(2L)).thenReturn(summary(2L, customer, changed.getUpdatedAt().minusSeconds(5)));
+        when(taskRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(fresh, changed), pageable, 2));
+        when(taskRepository.findTagRows(List.of(2L))).thenReturn(List.of(tagRow(2L, "x")));
+
+        var page = taskService.listTasks(admin.getId(), noFilter(), pageable);
+
+        assertEquals(Set.of("x"), page.getContent().get(1).tags());
+        verify(taskRepository).findTagRows(List.of(2L));
+        verify(summaryCache).put(eq(2L), any(), anyLong());
+        verify(summaryCache, never()).put(eq(1L), any(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listTasks_keyword_shouldUseSearchIndexWhenReady() {
+        stubUser(admin);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.matchAll("deploy")).thenReturn(Set.of(7L, 3L));
+
+        Pageable pageable = PageRequest.of(0, 10);
+        when(taskRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(Page.empty());
+
+        taskService.listTasks(admin.getId(), keyword("deploy"), pageable);
+
+        // sort theo updatedAt: dùng tập id đầy đủ, không phải top max-hits theo relevance
+        verify(searchIndex).matchAll("deploy");
+        verify(searchIndex, never()).search(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listTasks_keywordMatchingTooManyIds_shouldFallBackToLike() {
+        stubUser(admin);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.matchAll("a")).thenReturn(null);
+
+        Pageable pageable = PageRequest.of(0, 10);
+        when(taskRepository.findAll(any(Specification.class), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(), pageable, 25_000));
+
+        var page = taskService.listTasks(admin.getId(), keyword("a"), pageable);
+
+        assertEquals(25_000, page.getTotalElements());
+        verify(searchIndex, never()).search(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listTasks_relevanceSort_shouldKeepIndexOrder() {
+        stubUser(admin);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("deploy")).thenReturn(List.of(7L, 3L, 5L));
+        // id 5 bị filter khác loại
+        when(taskRepository.findIds(any())).thenReturn(List.of(3L, 7L));
+        when(taskRepository.findAll(any(Specification.class)))
+                .thenReturn(List.of(task(3L, admin, null), task(7L, admin, null)));
+
+        var page = taskService.listTasks(admin.getId(), keyword("deploy"),
+                PageRequest.of(0, 10, Sort.by("relevance")));
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals(List.of(7L, 3L), page.getContent().stream().map(TaskDtos.TaskSummaryResponse::id).toList());
+        verify(taskRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void patchTask_shouldPublishChangeForIndex() {
+        stubUser(admin);
+        Task task = task(10L, admin, null);
+        when(taskRepository.findById(10L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        taskService.patchTask(admin.getId(), 10L, new TaskDtos.PatchTaskRequest("New title", null, null, null, null), null);
+
+        ArgumentCaptor<TaskChangedEvent> cap = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(cap.capture());
+        assertEquals("New title", cap.getValue().title());
+        assertTrue(cap.getValue().active());
+    }
+
+    // =========================
+    // FACETS
+    // =========================
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void facets_shouldAggregateEachDimensionOnce() {
+        stubUser(admin);
+        Map<Object, Long> byStatus = new LinkedHashMap<>();
+        byStatus.put(TaskStatus.TODO, 5L);
+        byStatus.put(TaskStatus.DONE, 2L);
+        Map<Object, Long> byAssignee = new LinkedHashMap<>();
+        byAssignee.put(customer.getId(), 4L);
+        byAssignee.put(null, 3L);
+
+        when(taskRepository.countGroupedBy(any(), eq("status"))).thenReturn(byStatus);
+        when(taskRepository.countGroupedBy(any(), eq("priority"))).thenReturn(Map.of(TaskPriority.HIGH, 7L));
+        when(taskRepository.countGroupedBy(any(), eq("assignee.id"))).thenReturn(byAssignee);
+        when(taskRepository.countTopTags(any(), eq(10))).thenReturn(Map.of(1, 6L));
+        when(userRepository.findAllById(List.of(customer.getId()))).thenReturn(List.of(customer));
+        when(tagService.namesById(Set.of(1))).thenReturn(Map.of(1, "backend"));
+
+        var res = taskService.facets(admin.getId(), noFilter(), 10);
+
+        assertEquals(7L, res.total());
+        assertEquals(5L, res.status().get(TaskStatus.TODO));
+        assertEquals(0L, res.status().get(TaskStatus.CANCELLED));
+        assertEquals(7L, res.priority().get(TaskPriority.HIGH));
+        assertEquals(0L, res.priority().get(TaskPriority.LOW));
+        assertEquals(customer.getId(), res.assignees().get(0).assignee().id());
+        assertNull(res.assignees().get(1).assignee());
+        assertEquals(new TaskDtos.TagCount("backend", 6L), res.tags().get(0));
+
+        verify(taskRepository, times(3)).countGroupedBy(any(), anyString());
+        verify(taskRepository, times(1)).countTopTags(any(), anyInt());
+        verify(taskRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void facets_statusFilter_totalShouldOnlyCountSelectedStatus() {
+        stubUser(customer);
+        when(taskRepository.countGroupedBy(any(), eq("status")))
+                .thenReturn(Map.of(TaskStatus.TODO, 5L, TaskStatus.DONE, 2L));
+        when(taskRepository.countGroupedBy(any(), eq("priority"))).thenReturn(Map.of());
+        when(taskRepository.countGroupedBy(any(), eq("assignee.id"))).thenReturn(Map.of());
+
+        var filter = new TaskDtos.TaskFilter(null, Set.of(TaskStatus.DONE), null, null, null, null, null, null, null, null);
+        var res = taskService.facets(customer.getId(), filter, 10);
+
+        assertEquals(2L, res.total());
+        assertEquals(5L, res.status().get(TaskStatus.TODO));
+    }
+
+    // =========================
+    // SCROLL TASKS (keyset)
+    // =========================
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void scrollTasks_fullPage_shouldReturnCursorWithoutCount() {
+        stubUser(admin);
+        List<Task> rows = List.of(task(30L, admin, null), task(20L, admin, null), task(10L, admin, null));
+        when(taskRepository.findBy(any(Specification.class), any())).thenReturn(rows);
+
+        var res = taskService.scrollTasks(admin.getId(), noFilter(), null, 2, Sort.Order.desc("updatedAt"));
+
+        assertEquals(2, res.items().size());
+        assertTrue(res.hasNext());
+        assertNotNull(res.nextCursor());
+        verify(taskRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        verify(taskRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void scrollTasks_lastPage_shouldHaveNoCursor() {
+        stubUser(customer);
+        when(taskRepository.findBy(any(Specification.class), any())).thenReturn(List.of(task(10L, admin, customer)));
+
+        var res = taskService.scrollTasks(customer.getId(), noFilter(), null, 10, Sort.Order.desc("updatedAt"));
+
+        assertEquals(1, res.items().size());
+        assertFalse(res.hasNext());
+        assertNull(res.nextCursor());
+    }
+
+    @Test
+    void scrollTasks_cursorOfOtherSort_shouldBeRejected() {
+        stubUser(admin);
+        String cursor = CursorUtil.encode("createdAt", "DESC", Instant.now().toString(), "5");
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> taskService.scrollTasks(admin.getId(), noFilter(), cursor, 10, Sort.Order.desc("updatedAt")));
+
+        assertEquals("INVALID_CURSOR", ex.getMessage());
+    }
+
+    @Test
+    void scrollTasks_unsupportedSort() {
+        stubUser(admin);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> taskService.scrollTasks(admin.getId(), noFilter(), null, 10, Sort.Order.asc("dueDate")));
+
+        assertEquals("UNSUPPORTED_SORT", ex.getMessage());
+    }
+
     // =========================
     // HELPERS
     // =========================
 
+    private static TaskDtos.TaskFilter noFilter() {
+        return new TaskDtos.TaskFilter(null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static TaskDtos.TaskFilter keyword(String q) {
+        return new TaskDtos.TaskFilter(q, null, null, null, null, null, null, null, null, null);
+    }
+
     private void stubUser(User u) {
         when(userRepository.findById(u.getId())).thenReturn(Optional.of(u));
     }
 
+    private static void bindRequestUser(User u) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        AuthenticatedUserContext.bind(request, u);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static TaskRepository.VersionRow versionRow(boolean active, Instant updatedAt, Long assigneeId, Long lastLogId) {
+        return versionRow(active, updatedAt, assigneeId, lastLogId, null, null);
+    }
+
+    private static TaskRepository.VersionRow versionRow(boolean active, Instant updatedAt, Long assigneeId, Long lastLogId,
+                                                        Long lastCommentId, Instant lastSubTaskUpdatedAt) {
+        return new TaskRepository.VersionRow() {
+            @Override public boolean isActive() { return active; }
+            @Override public long getVersion() { return 3L; }
+            @Override public Instant getUpdatedAt() { return updatedAt; }
+            @Override public Long getAssigneeId() { return assigneeId; }
+            @Override public Long getLastLogId() { return lastLogId; }
+            @Override public Long getLastCommentId() { return lastCommentId; }
+            @Override public Instant getLastSubTaskUpdatedAt() { return lastSubTaskUpdatedAt; }
+        };
+    }
+
+    private static TaskLog taskLog(Long id, Task task, User actor, Instant at) {
+        return TaskLog.builder()
+                .id(id)
+                .task(task)
+                .actor(actor)
+                .action(TaskLogAction.UPDATED)
+                .fieldName("title")
+                .createdAt(at)
+                .build();
+    }
+
+    private static TaskLogRepository.FieldChangeRow fullChange(Long id, String oldValue) {
+        return new TaskLogRepository.FieldChangeRow() {
+            public Long getId() { return id; }
+            public String getFieldName() { return "description"; }
+            public String getOldValue() { return oldValue; }
+            public String getNewValue() { return "new"; }
+        };
+    }
+
+    private static TaskLogRepository.FieldChangeRow fieldChange(Long id, String delta) {
+        return new TaskLogRepository.FieldChangeRow() {
+            public Long getId() { return id; }
+            public String getFieldName() { return "description.delta"; }
+            public String getOldValue() { return null; }
+            public String getNewValue() { return delta; }
+        };
+    }
+
+    private static TaskDtos.TaskSummaryResponse summary(Long id, User assignee, Instant updatedAt) {
+        return new TaskDtos.TaskSummaryResponse(id, "Task", TaskStatus.TODO, TaskPriority.MEDIUM, null, Set.of(),
+                new TaskDtos.UserBrief(assignee.getId(), assignee.getEmail(), assignee.getFullName()),
+                true, updatedAt, updatedAt, 0);
+    }
+
+    private static TaskRepository.TagRow tagRow(Long taskId, String tag) {
+        return new TaskRepository.TagRow() {
+            @Override public Long getTaskId() { return taskId; }
+            @Override public String getTag() { return tag; }
+        };
+    }
+
     private static User user(Long id, Role role) {
         return User.builder()
                 .id(id)
@@ -0,0 +1,97 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import project.demo.dto.TaskDtos;
+import project.demo.enums.TaskPriority;
+import project.demo.enums.TaskStatus;
+import project.demo.event.TaskChangedEvent;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSummaryCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void get_shouldCountHitsAndMisses() {
+        TaskSummaryCache cache = new TaskSummaryCache(10, 60, registry);
+
+        assertNull(cache.get(1L));
+        cache.put(1L, summary(1L, TaskStatus.TODO), cache.readToken());
+        assertEquals(TaskStatus.TODO, cache.get(1L).status());
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1.0, registry.get("task.summary.cache.requests").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void put_afterInvalidate_withOlderToken_shouldBeRejected() {
+        TaskSummaryCache cache = new TaskSummaryCache(10, 60, registry);
+
+        long readerToken = cache.readToken();              // reader bắt đầu đọc DB (snapshot cũ)
+        cache.onTaskChanged(new TaskChangedEvent(1L, null, null, true, false)); // writer commit xong
+        cache.put(1L, summary(1L, TaskStatus.TODO), readerToken);
+
+        assertNull(cache.get(1L));
+
+        cache.put(1L, summary(1L, TaskStatus.DONE), cache.readToken());
+        assertEquals(TaskStatus.DONE, cache.get(1L).status());
+    }
+
+    @Test
+    void latePut_withTokenFromBeforeInvalidate_shouldNotOverwriteFreshValue() {
+        TaskSummaryCache cache = new TaskSummaryCache(10, 60, registry);
+
+        long slowReader = cache.readToken();
+        cache.invalidate(1L);
+        cache.put(1L, summary(1L, TaskStatus.DONE), cache.readToken());   // reader mới thay tombstone
+        cache.put(1L, summary(1L, TaskStatus.TODO), slowReader);          // reader chậm put muộn
+
+        assertEquals(TaskStatus.DONE, cache.get(1L).status());
+    }
+
+    @Test
+    void latePut_afterTombstoneEvicted_shouldBeRejected() {
+        TaskSummaryCache cache = new TaskSummaryCache(1, 60, registry);
+
+        long slowReader = cache.readToken();
+        cache.invalidate(1L);
+        cache.put(2L, summary(2L, TaskStatus.TODO), cache.readToken());   // đẩy tombstone của 1 ra
+        cache.put(1L, summary(1L, TaskStatus.TODO), slowReader);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedBeyondMaxSize() {
+        TaskSummaryCache cache = new TaskSummaryCache(2, 60, registry);
+
+        cache.put(1L, summary(1L, TaskStatus.TODO), 0);
+        cache.put(2L, summary(2L, TaskStatus.TODO), 0);
+        cache.get(1L);
+        cache.put(3L, summary(3L, TaskStatus.TODO), 0);
+
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void get_expiredEntry_shouldMiss() {
+        TaskSummaryCache cache = new TaskSummaryCache(10, 0, registry);
+
+        cache.put(1L, summary(1L, TaskStatus.TODO), 0);
+
+        assertNull(cache.get(1L));
+    }
+
+    private static TaskDtos.TaskSummaryResponse summary(Long id, TaskStatus status) {
+        Instant now = Instant.now();
+        return new TaskDtos.TaskSummaryResponse(id, "Task", status, TaskPriority.LOW, null, Set.of(), null, true, now, now, 0);
+    }
+}
@@ -0,0 +1,86 @@
+package project.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import project.demo.dto.NotificationDtos;
+import project.demo.entity.User;
+import project.demo.enums.NotificationType;
+import project.demo.event.NotificationCreatedEvent;
+import project.demo.event.NotificationsReadEvent;
+import project.demo.repository.UserRepository;
+import project.demo.security.AuthenticatedUserContext;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UnreadNotificationCounterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UnreadNotificationCounter counter =
+            new UnreadNotificationCounter(userRepository, jdbcTemplate, new SimpleMeterRegistry(), 1000, 60, true);
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void get_shouldSeedFromRequestUserThenServeFromMemory() {
+        User me = new User();
+        me.setId(1L);
+        me.setUnreadNotifications(4);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        AuthenticatedUserContext.bind(request, me);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals(4, counter.get(1L));
+        counter.onCreated(created(1L));
+        counter.onCreated(created(1L));
+        counter.onRead(new NotificationsReadEvent(1L, 1));
+
+        assertEquals(5, counter.get(1L));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void eventsForUnknownUser_shouldBeIgnoredAndColumnReadOnNextGet() {
+        counter.onCreated(created(2L));
+        when(userRepository.findUnreadNotifications(2L)).thenReturn(Optional.of(3));
+
+        assertEquals(3, counter.get(2L));
+        counter.onRead(new NotificationsReadEvent(2L, 10));
+        assertEquals(0, counter.get(2L));
+        verify(userRepository, times(1)).findUnreadNotifications(2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcile_withDrift_shouldDropCachedValues() {
+        when(userRepository.findUnreadNotifications(1L)).thenReturn(Optional.of(9), Optional.of(2));
+        assertEquals(9, counter.get(1L));
+        when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class)).thenReturn(2500L);
+        when(jdbcTemplate.update(eq(UnreadNotificationCounter.RECONCILE_SQL), anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(1, 0, 0);
+
+        assertEquals(1, counter.reconcile());
+
+        // 3 lô id [1,1001) [1001,2001) [2001,3001)
+        verify(jdbcTemplate, times(3)).update(eq(UnreadNotificationCounter.RECONCILE_SQL), anyLong(), anyLong(), anyLong(), anyLong());
+        assertEquals(2, counter.get(1L));
+    }
+
+    private static NotificationCreatedEvent created(Long recipientId) {
+        return new NotificationCreatedEvent(recipientId,
+                new NotificationDtos.NotificationResponse(1L, NotificationType.COMMENT_ADDED, "m", 10L, Instant.now(), null, 1));
+    }
+}
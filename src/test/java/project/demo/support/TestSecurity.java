@@ -9,11 +9,15 @@ import org.springframework.test.web.servlet.request.RequestPostProcessor;
 public class TestSecurity {
 
     public static CustomUserDetails mockUser() {
+        return mockUser(project.demo.enums.Role.CUSTOMER);
+    }
+
+    public static CustomUserDetails mockUser(project.demo.enums.Role role) {
         User u = new User();
         u.setId(1L);
         u.setEmail("test@local.test");
         u.setPasswordHash("password");
-        u.setRole(project.demo.enums.Role.CUSTOMER);
+        u.setRole(role);
         u.setActive(true);
         u.setEmailVerified(true);
 
@@ -25,4 +29,8 @@ public class TestSecurity {
     public static RequestPostProcessor user() {
         return SecurityMockMvcRequestPostProcessors.user(mockUser());
     }
+
+    public static RequestPostProcessor admin() {
+        return SecurityMockMvcRequestPostProcessors.user(mockUser(project.demo.enums.Role.ADMIN));
+    }
 }